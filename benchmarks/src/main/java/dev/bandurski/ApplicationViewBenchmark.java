@@ -0,0 +1,81 @@
+package dev.bandurski;
+
+import dev.bandurski.benchmark.BenchmarkDatabase;
+import dev.bandurski.model.Expense;
+import dev.bandurski.model.IncomeSource;
+import dev.bandurski.model.Money;
+import dev.bandurski.util.BatchConsole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Totals and table rendering in {@link ApplicationView}, with console output discarded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ApplicationViewBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int rows;
+
+    private ApplicationView view;
+    private List<Expense> expenses;
+    private List<IncomeSource> incomeSources;
+
+    @Setup
+    public void setup() {
+        view = new ApplicationView(new BatchConsole(new PrintStream(OutputStream.nullOutputStream())));
+
+        Random random = new Random(rows);
+        expenses = new ArrayList<>(rows);
+        incomeSources = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            Expense expense = new Expense();
+            expense.setExpenseId(i);
+            expense.setName("Benchmark expense " + i);
+            expense.setAmount(BenchmarkDatabase.randomAmount(random));
+            expenses.add(expense);
+
+            IncomeSource incomeSource = new IncomeSource();
+            incomeSource.setIncomeSourceId(i);
+            incomeSource.setName("Benchmark income " + i);
+            incomeSource.setAmount(BenchmarkDatabase.randomAmount(random));
+            incomeSources.add(incomeSource);
+        }
+    }
+
+    @Benchmark
+    public long netIncome() {
+        return Money.subtract(Money.sum(incomeSources), Money.sum(expenses));
+    }
+
+    @Benchmark
+    public int calculatePaddingLength() {
+        return view.calculatePaddingLength(expenses);
+    }
+
+    @Benchmark
+    public void displayExpenses() {
+        view.displayExpenses(expenses, true);
+    }
+}
@@ -0,0 +1,114 @@
+package dev.bandurski.benchmark;
+
+import dev.bandurski.dao.ExpenseDao;
+import dev.bandurski.dao.IncomeSourceDao;
+import dev.bandurski.model.Expense;
+import dev.bandurski.model.IncomeSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Creates a scratch database for the DAO benchmarks, the same way the DAO tests do.
+ * Set the DB_* environment variables to run against an existing database instead.
+ */
+public final class BenchmarkDatabase {
+
+    private static final String DB_HOST =
+            Objects.requireNonNullElse(System.getenv("DB_HOST"), "localhost");
+    private static final String DB_PORT =
+            Objects.requireNonNullElse(System.getenv("DB_PORT"), "5432");
+    private static final String DB_NAME =
+            Objects.requireNonNullElse(System.getenv("DB_NAME"), "monthly_budget_benchmark");
+    private static final String DB_USER =
+            Objects.requireNonNullElse(System.getenv("DB_USER"), "postgres");
+    private static final String DB_PASSWORD =
+            Objects.requireNonNullElse(System.getenv("DB_PASSWORD"), "postgres1");
+
+    private static final int SEED_BATCH_SIZE = 10_000;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * @return a data source on a freshly created schema, in autocommit mode like the application
+     */
+    public static SingleConnectionDataSource create() throws SQLException {
+        if (System.getenv("DB_HOST") == null) {
+            SingleConnectionDataSource adminDataSource = new SingleConnectionDataSource(
+                    "jdbc:postgresql://localhost:5432/postgres", DB_USER, DB_PASSWORD, false);
+            JdbcTemplate adminJdbcTemplate = new JdbcTemplate(adminDataSource);
+            adminJdbcTemplate.update("DROP DATABASE IF EXISTS \"" + DB_NAME + "\";");
+            adminJdbcTemplate.update("CREATE DATABASE \"" + DB_NAME + "\";");
+            adminDataSource.destroy();
+        }
+
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                String.format("jdbc:postgresql://%s:%s/%s", DB_HOST, DB_PORT, DB_NAME),
+                DB_USER, DB_PASSWORD, true);
+        ScriptUtils.executeSqlScript(dataSource.getConnection(), new ClassPathResource("monthly_budget.sql"));
+        return dataSource;
+    }
+
+    /**
+     * Adds {@code rows} expenses through the bulk API.
+     *
+     * @return the ids of the new expenses
+     */
+    public static int[] seedExpenses(ExpenseDao expenseDao, int rows) {
+        Random random = new Random(rows);
+        int[] ids = new int[rows];
+        List<Expense> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int start = 0; start < rows; start += SEED_BATCH_SIZE) {
+            batch.clear();
+            for (int i = start; i < Math.min(rows, start + SEED_BATCH_SIZE); i++) {
+                Expense expense = new Expense();
+                expense.setName("Benchmark expense " + i);
+                expense.setAmount(randomAmount(random));
+                batch.add(expense);
+            }
+            List<Expense> created = expenseDao.createExpenses(batch);
+            for (int i = 0; i < created.size(); i++) {
+                ids[start + i] = created.get(i).getExpenseId();
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Adds {@code rows} income sources through the bulk API.
+     *
+     * @return the ids of the new income sources
+     */
+    public static int[] seedIncomeSources(IncomeSourceDao incomeSourceDao, int rows) {
+        Random random = new Random(rows);
+        int[] ids = new int[rows];
+        List<IncomeSource> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int start = 0; start < rows; start += SEED_BATCH_SIZE) {
+            batch.clear();
+            for (int i = start; i < Math.min(rows, start + SEED_BATCH_SIZE); i++) {
+                IncomeSource incomeSource = new IncomeSource();
+                incomeSource.setName("Benchmark income " + i);
+                incomeSource.setAmount(randomAmount(random));
+                batch.add(incomeSource);
+            }
+            List<IncomeSource> created = incomeSourceDao.createIncomeSources(batch);
+            for (int i = 0; i < created.size(); i++) {
+                ids[start + i] = created.get(i).getIncomeSourceId();
+            }
+        }
+        return ids;
+    }
+
+    public static BigDecimal randomAmount(Random random) {
+        return BigDecimal.valueOf(1 + random.nextInt(500_000), 2);
+    }
+}
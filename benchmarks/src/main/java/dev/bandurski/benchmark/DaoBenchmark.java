@@ -0,0 +1,63 @@
+package dev.bandurski.benchmark;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixture shared by the DAO benchmarks: a scratch database seeded with {@code rows} rows
+ * through the DAO under test, and random ids to read and write.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public abstract class DaoBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int rows;
+
+    protected final Random random = new Random(42);
+    protected int created;
+
+    private SingleConnectionDataSource dataSource;
+    private int[] ids;
+
+    @Setup
+    public void setup() throws SQLException {
+        dataSource = BenchmarkDatabase.create();
+        ids = seed(dataSource, rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    /**
+     * Creates the DAO under test on {@code dataSource} and adds {@code rows} rows through it.
+     *
+     * @return the ids of the new rows
+     */
+    protected abstract int[] seed(DataSource dataSource, int rows);
+
+    protected int randomId() {
+        return ids[random.nextInt(ids.length)];
+    }
+}
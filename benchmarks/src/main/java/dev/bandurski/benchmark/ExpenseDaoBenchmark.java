@@ -0,0 +1,55 @@
+package dev.bandurski.benchmark;
+
+import dev.bandurski.dao.JdbcExpenseDao;
+import dev.bandurski.model.Expense;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * {@link JdbcExpenseDao} against a local PostgreSQL holding {@code rows} expenses.
+ */
+public class ExpenseDaoBenchmark extends DaoBenchmark {
+
+    private JdbcExpenseDao expenseDao;
+
+    @Override
+    protected int[] seed(DataSource dataSource, int rows) {
+        expenseDao = new JdbcExpenseDao(dataSource);
+        return BenchmarkDatabase.seedExpenses(expenseDao, rows);
+    }
+
+    @Benchmark
+    public List<Expense> getExpenses() {
+        return expenseDao.getExpenses();
+    }
+
+    @Benchmark
+    public List<Expense> getExpensesFirstPage() {
+        return expenseDao.getExpensesPage(null, 0, 20);
+    }
+
+    @Benchmark
+    public Expense getExpenseById() {
+        return expenseDao.getExpenseById(randomId());
+    }
+
+    @Benchmark
+    public Expense updateExpense() {
+        Expense expense = new Expense();
+        expense.setExpenseId(randomId());
+        expense.setName("Benchmark expense updated " + expense.getExpenseId());
+        expense.setAmount(BenchmarkDatabase.randomAmount(random));
+        return expenseDao.updateExpense(expense);
+    }
+
+    @Benchmark
+    public int createAndDeleteExpense() {
+        Expense expense = new Expense();
+        expense.setName("Benchmark expense new " + created++);
+        expense.setAmount(BenchmarkDatabase.randomAmount(random));
+        // Delete straight away so the table stays at the requested size.
+        return expenseDao.deleteExpenseById(expenseDao.createExpense(expense).getExpenseId());
+    }
+}
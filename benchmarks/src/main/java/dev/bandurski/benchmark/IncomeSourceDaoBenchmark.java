@@ -0,0 +1,56 @@
+package dev.bandurski.benchmark;
+
+import dev.bandurski.dao.JdbcIncomeSourceDao;
+import dev.bandurski.model.IncomeSource;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * {@link JdbcIncomeSourceDao} against a local PostgreSQL holding {@code rows} income sources.
+ */
+public class IncomeSourceDaoBenchmark extends DaoBenchmark {
+
+    private JdbcIncomeSourceDao incomeSourceDao;
+
+    @Override
+    protected int[] seed(DataSource dataSource, int rows) {
+        incomeSourceDao = new JdbcIncomeSourceDao(dataSource);
+        return BenchmarkDatabase.seedIncomeSources(incomeSourceDao, rows);
+    }
+
+    @Benchmark
+    public List<IncomeSource> getIncomeSources() {
+        return incomeSourceDao.getIncomeSources();
+    }
+
+    @Benchmark
+    public List<IncomeSource> getIncomeSourcesFirstPage() {
+        return incomeSourceDao.getIncomeSourcesPage(null, 0, 20);
+    }
+
+    @Benchmark
+    public IncomeSource getIncomeSourceById() {
+        return incomeSourceDao.getIncomeSourceById(randomId());
+    }
+
+    @Benchmark
+    public IncomeSource updateIncomeSource() {
+        IncomeSource incomeSource = new IncomeSource();
+        incomeSource.setIncomeSourceId(randomId());
+        incomeSource.setName("Benchmark income updated " + incomeSource.getIncomeSourceId());
+        incomeSource.setAmount(BenchmarkDatabase.randomAmount(random));
+        return incomeSourceDao.updateIncomeSource(incomeSource);
+    }
+
+    @Benchmark
+    public int createAndDeleteIncomeSource() {
+        IncomeSource incomeSource = new IncomeSource();
+        incomeSource.setName("Benchmark income new " + created++);
+        incomeSource.setAmount(BenchmarkDatabase.randomAmount(random));
+        // Delete straight away so the table stays at the requested size.
+        int incomeSourceId = incomeSourceDao.createIncomeSource(incomeSource).getIncomeSourceId();
+        return incomeSourceDao.deleteIncomeSourceById(incomeSourceId);
+    }
+}
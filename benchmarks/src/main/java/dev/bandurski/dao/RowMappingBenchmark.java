@@ -0,0 +1,130 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.benchmark.BenchmarkDatabase;
+import dev.bandurski.model.Expense;
+import dev.bandurski.model.IncomeSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.SqlRowSetResultSetExtractor;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row mapping on its own: the rows are held in memory so no driver or network time is measured.
+ * <p>
+ * The {@code sqlRowSet} benchmarks repeat what the DAOs used to do, copying the result set into
+ * a row set and reading every cell by column name; the {@code mapper} benchmarks use
+ * {@link TransactionMapper}. Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RowMappingBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int rows;
+
+    private CachedRowSet expenseRows;
+    private CachedRowSet incomeSourceRows;
+
+    @Setup
+    public void setup() throws SQLException {
+        expenseRows = createRows("expense_id");
+        incomeSourceRows = createRows("income_source_id");
+    }
+
+    @Benchmark
+    public List<Expense> expensesBySqlRowSet() throws SQLException {
+        expenseRows.beforeFirst();
+        SqlRowSet results = new SqlRowSetResultSetExtractor().extractData(expenseRows);
+        List<Expense> expenses = new ArrayList<>();
+        while (results.next()) {
+            Expense expense = new Expense();
+            expense.setExpenseId(results.getInt("expense_id"));
+            expense.setName(results.getString("name"));
+            expense.setAmount(results.getBigDecimal("amount"));
+            expense.setVersion(results.getInt("version"));
+            expenses.add(expense);
+        }
+        return expenses;
+    }
+
+    @Benchmark
+    public List<Expense> expensesByMapper() throws SQLException {
+        expenseRows.beforeFirst();
+        return JdbcExpenseDao.EXPENSE_MAPPER.mapAll(expenseRows, rows);
+    }
+
+    @Benchmark
+    public List<IncomeSource> incomeSourcesBySqlRowSet() throws SQLException {
+        incomeSourceRows.beforeFirst();
+        SqlRowSet results = new SqlRowSetResultSetExtractor().extractData(incomeSourceRows);
+        List<IncomeSource> incomeSources = new ArrayList<>();
+        while (results.next()) {
+            IncomeSource incomeSource = new IncomeSource();
+            incomeSource.setIncomeSourceId(results.getInt("income_source_id"));
+            incomeSource.setName(results.getString("name"));
+            incomeSource.setAmount(results.getBigDecimal("amount"));
+            incomeSource.setVersion(results.getInt("version"));
+            incomeSources.add(incomeSource);
+        }
+        return incomeSources;
+    }
+
+    @Benchmark
+    public List<IncomeSource> incomeSourcesByMapper() throws SQLException {
+        incomeSourceRows.beforeFirst();
+        return JdbcIncomeSourceDao.INCOME_SOURCE_MAPPER.mapAll(incomeSourceRows, rows);
+    }
+
+    private CachedRowSet createRows(String idColumn) throws SQLException {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(4);
+        setColumn(metaData, 1, idColumn, Types.INTEGER);
+        setColumn(metaData, 2, "name", Types.VARCHAR);
+        setColumn(metaData, 3, "amount", Types.NUMERIC);
+        setColumn(metaData, 4, "version", Types.INTEGER);
+
+        CachedRowSet rowSet = RowSetProvider.newFactory().createCachedRowSet();
+        rowSet.setMetaData(metaData);
+        Random random = new Random(rows);
+        rowSet.moveToInsertRow();
+        for (int i = 1; i <= rows; i++) {
+            rowSet.updateInt(1, i);
+            rowSet.updateString(2, "Benchmark row " + i);
+            rowSet.updateBigDecimal(3, BenchmarkDatabase.randomAmount(random));
+            rowSet.updateInt(4, 1);
+            rowSet.insertRow();
+        }
+        rowSet.moveToCurrentRow();
+        return rowSet;
+    }
+
+    private static void setColumn(RowSetMetaDataImpl metaData, int index, String name, int type)
+            throws SQLException {
+        metaData.setColumnName(index, name);
+        metaData.setColumnLabel(index, name);
+        metaData.setColumnType(index, type);
+    }
+}
@@ -1,11 +1,58 @@
 package dev.bandurski;
 
+import dev.bandurski.batch.BatchResult;
+import dev.bandurski.batch.BatchRunner;
+import dev.bandurski.util.BatchConsole;
 import dev.bandurski.util.SystemInOutConsole;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 public class Application {
     public static void main(String[] args) {
-        SystemInOutConsole systemInOutConsole = new SystemInOutConsole();
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(runBatch(args));
+        }
+
+        SystemInOutConsole systemInOutConsole = new SystemInOutConsole(true);
         ApplicationController controller = new ApplicationController(systemInOutConsole);
         controller.run();
     }
-}
\ No newline at end of file
+
+    /**
+     * {@code --batch <script> [results]} runs a script without prompting and writes one JSON
+     * result per command to the results file, or to standard output when none is given.
+     * Log messages go to standard error.
+     *
+     * @return the process exit code: 0 when every command succeeded, 1 when any failed or the
+     *         script could not be read, 2 when the arguments are wrong
+     */
+    private static int runBatch(String[] args) {
+        BatchConsole console = new BatchConsole(System.err);
+        if (args.length < 2 || args.length > 3) {
+            console.printErrorMessage("Usage: --batch <script> [results]");
+            return 2;
+        }
+
+        // The runner groups writes itself and reports each one's result as it goes.
+        try (DataAccess dataAccess = new DataAccess(false);
+             Writer results = args.length == 3
+                     ? Files.newBufferedWriter(Path.of(args[2]), StandardCharsets.UTF_8)
+                     : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            BatchRunner runner = new BatchRunner(console, dataAccess.getIncomeSourceDao(),
+                    dataAccess.getExpenseDao(), dataAccess.getBudgetSummaryDao());
+            BatchResult result = runner.run(Path.of(args[1]), results);
+            return result.getFailures() == 0 ? 0 : 1;
+        } catch (IOException e) {
+            console.printErrorMessage("Could not run " + args[1] + " - " + e.getMessage());
+            return 1;
+        } finally {
+            console.flush();
+        }
+    }
+}
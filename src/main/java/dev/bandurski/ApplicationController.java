@@ -1,48 +1,104 @@
 package dev.bandurski;
 
+import dev.bandurski.dao.CategoryDao;
 import dev.bandurski.dao.ExpenseDao;
 import dev.bandurski.dao.IncomeSourceDao;
-import dev.bandurski.dao.JdbcExpenseDao;
-import dev.bandurski.dao.JdbcIncomeSourceDao;
+import dev.bandurski.dao.LedgerEntryDao;
+import dev.bandurski.dao.LedgerRollupDao;
 import dev.bandurski.exception.DaoException;
+import dev.bandurski.exception.ExportException;
+import dev.bandurski.exception.ImportException;
+import dev.bandurski.exception.UpdateConflictException;
+import dev.bandurski.model.BudgetSummary;
+import dev.bandurski.model.Category;
+import dev.bandurski.model.CategoryTotal;
+import dev.bandurski.model.CategoryTree;
 import dev.bandurski.model.Expense;
 import dev.bandurski.model.IncomeSource;
+import dev.bandurski.model.LedgerEntry;
+import dev.bandurski.model.Transaction;
+import dev.bandurski.service.CsvImporter;
+import dev.bandurski.service.ImportResult;
+import dev.bandurski.service.TransactionExporter;
 import dev.bandurski.util.BasicConsole;
-import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import dev.bandurski.util.Futures;
+import dev.bandurski.util.IntIndex;
 
-import javax.sql.DataSource;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class ApplicationController {
 
-    private final String DB_NAME = "monthly_budget";
+    private final int PAGE_SIZE = Integer.getInteger("budget.pageSize", 20);
+    private final int SUMMARY_ROWS = Integer.getInteger("budget.summaryRows", 10);
 
     private final BasicConsole console;
     private final ApplicationView view;
 
+    private final DataAccess dataAccess;
     private final IncomeSourceDao incomeSourceDao;
     private final ExpenseDao expenseDao;
 
+    private final LedgerEntryDao ledgerEntryDao;
+    private final LedgerRollupDao ledgerRollupDao;
+    private final CategoryDao categoryDao;
+
+    private final CsvImporter csvImporter;
+    private final TransactionExporter transactionExporter;
+
     public ApplicationController(BasicConsole console) {
+        this(console, new DataAccess());
+    }
+
+    public ApplicationController(BasicConsole console, DataAccess dataAccess) {
         this.console = console;
+        this.dataAccess = dataAccess;
         view = new ApplicationView(console);
 
-        DataSource dataSource = setupDataSource(DB_NAME);
-        incomeSourceDao = new JdbcIncomeSourceDao(dataSource);
-        expenseDao = new JdbcExpenseDao(dataSource);
+        incomeSourceDao = dataAccess.getIncomeSourceDao();
+        expenseDao = dataAccess.getExpenseDao();
+        ledgerEntryDao = dataAccess.getLedgerEntryDao();
+        ledgerRollupDao = dataAccess.getLedgerRollupDao();
+        categoryDao = dataAccess.getCategoryDao();
+        // Importing loads straight into the database, so it is not offered when storing to files.
+        csvImporter = dataAccess.getDataSource() == null
+                ? null
+                : new CsvImporter(dataAccess.getDataSource(), dataAccess.getBudgetId());
+        transactionExporter = new TransactionExporter(expenseDao, incomeSourceDao);
     }
 
     public void run() {
-        displayMainMenu();
+        try {
+            displayMainMenu();
+        } finally {
+            try {
+                // Saves any writes still buffered.
+                dataAccess.close();
+            } catch (UpdateConflictException e) {
+                printConflict(e);
+            } catch (DaoException e) {
+                console.printErrorMessage("DAO error - " + e.getMessage());
+            }
+            console.flush();
+        }
     }
 
     private void displayMainMenu() {
         final String SUMMARY = "Display Summary";
         final String INCOME = "Income Menu";
         final String EXPENSES = "Expense Menu";
+        final String CATEGORIES = "Category Menu";
+        final String HISTORY = "History Menu";
+        final String DIAGNOSTICS = "Diagnostics";
         final String EXIT = "Exit";
-        final String[] MENU_OPTIONS = {SUMMARY, INCOME, EXPENSES, EXIT};
+        // Categories and history are only kept in the database.
+        final String[] MENU_OPTIONS = categoryDao == null
+                ? new String[]{SUMMARY, INCOME, EXPENSES, DIAGNOSTICS, EXIT}
+                : new String[]{SUMMARY, INCOME, EXPENSES, CATEGORIES, HISTORY, DIAGNOSTICS, EXIT};
 
         console.printBlankLine();
         console.printMessage("Monthly Budget Application");
@@ -51,22 +107,52 @@ public class ApplicationController {
             console.printBlankLine();
             String title = "Main Menu";
             String selection = view.getMenuSelection(title, MENU_OPTIONS);
-            if (selection.equals(SUMMARY)) {
-                summary();
-            } else if (selection.equals(INCOME)) {
-                incomeMenu();
-            } else if (selection.equals(EXPENSES)) {
-                expensesMenu();
-            } else {
+            if (selection.equals(EXIT)) {
                 break;
             }
+            try {
+                if (selection.equals(SUMMARY)) {
+                    summary();
+                } else if (selection.equals(INCOME)) {
+                    incomeMenu();
+                } else if (selection.equals(EXPENSES)) {
+                    expensesMenu();
+                } else if (selection.equals(CATEGORIES)) {
+                    categoryMenu();
+                } else if (selection.equals(HISTORY)) {
+                    historyMenu();
+                } else if (selection.equals(DIAGNOSTICS)) {
+                    diagnosticsMenu();
+                }
+            } catch (UpdateConflictException e) {
+                // Summary and the category and history menus save buffered updates first.
+                printConflict(e);
+            }
         }
     }
 
     private void summary() {
-        List<IncomeSource> incomeSources = incomeSourceDao.getIncomeSources();
-        List<Expense> expenses = expenseDao.getExpenses();
-        view.displaySummary(incomeSources, expenses);
+        // The totals are read from the database, so it needs every buffered write.
+        dataAccess.flushWrites();
+
+        // Start all four queries before waiting on any, so the screen waits for the slowest.
+        // The totals come from budget_totals, so only the largest rows are listed.
+        CompletableFuture<List<IncomeSource>> incomeSources =
+                dataAccess.getAsyncIncomeSourceDao().getIncomeSourcesPage(null, 0, SUMMARY_ROWS);
+        CompletableFuture<List<Expense>> expenses =
+                dataAccess.getAsyncExpenseDao().getExpensesPage(null, 0, SUMMARY_ROWS);
+        CompletableFuture<BudgetSummary> budgetSummary =
+                dataAccess.getAsyncBudgetSummaryDao().getBudgetSummary();
+        CompletableFuture<List<CategoryTotal>> categoryTotals = categoryDao == null
+                ? null
+                : dataAccess.getAsyncCategoryDao().getCategoryTotals();
+
+        view.displaySummary(Futures.join(incomeSources), Futures.join(expenses),
+                Futures.join(budgetSummary));
+        if (categoryTotals != null) {
+            console.printBlankLine();
+            view.displayCategoryTotals(CategoryTree.of(Futures.join(categoryTotals)));
+        }
         console.pauseOutput();
     }
 
@@ -75,8 +161,12 @@ public class ApplicationController {
         final String CREATE = "Add new income source";
         final String UPDATE = "Modify income source";
         final String DELETE = "Delete income source";
+        final String IMPORT = "Import income sources from CSV";
+        final String EXPORT = "Export income sources to file";
         final String RETURN = "Return to Main Menu";
-        final String[] MENU_OPTIONS = {VIEW, CREATE, UPDATE, DELETE, RETURN};
+        final String[] MENU_OPTIONS = csvImporter == null
+                ? new String[]{VIEW, CREATE, UPDATE, DELETE, EXPORT, RETURN}
+                : new String[]{VIEW, CREATE, UPDATE, DELETE, IMPORT, EXPORT, RETURN};
 
         while (true) {
             console.printBlankLine();
@@ -94,9 +184,16 @@ public class ApplicationController {
                     updateIncomeSource();
                 } else if (selection.equals(DELETE)) {
                     deleteIncomeSource();
+                } else if (selection.equals(IMPORT)) {
+                    importIncomeSources();
+                } else if (selection.equals(EXPORT)) {
+                    exportIncomeSources();
                 } else {
                     break;
                 }
+            } catch (UpdateConflictException e) {
+                // Buffered updates are only checked against other clients' changes when saved.
+                printConflict(e);
             } catch (DaoException e) {
                 console.printErrorMessage("DAO error - " + e.getMessage());
                 throw e;
@@ -105,8 +202,27 @@ public class ApplicationController {
     }
 
     private void viewIncomeSources() {
-        List<IncomeSource> incomeSources = incomeSourceDao.getIncomeSources();
-        view.displayIncomeSources(incomeSources);
+        BigDecimal afterAmount = null;
+        int afterId = 0;
+
+        while (true) {
+            // Fetch one extra row to learn whether another page follows.
+            List<IncomeSource> page = incomeSourceDao.getIncomeSourcesPage(afterAmount, afterId,
+                    PAGE_SIZE + 1);
+            boolean hasMore = page.size() > PAGE_SIZE;
+            if (hasMore) {
+                page = page.subList(0, PAGE_SIZE);
+            }
+
+            view.displayIncomeSources(page, !hasMore && afterAmount == null);
+            if (!hasMore || !console.promptForYesNo("Show next page? [y/n] ")) {
+                return;
+            }
+
+            IncomeSource last = page.get(page.size() - 1);
+            afterAmount = last.getAmount();
+            afterId = last.getIncomeSourceId();
+        }
     }
 
     private void createIncomeSource() {
@@ -122,32 +238,23 @@ public class ApplicationController {
     }
 
     private void updateIncomeSource() {
-        List<IncomeSource> sources = incomeSourceDao.getIncomeSources();
-
-        if (sources.size() == 0) {
-            console.printErrorMessage("There are no income sources to update!");
-            return;
-        }
-
-        IncomeSource source = view.selectIncomeSource(sources);
+        IncomeSource source = selectIncomeSource("There are no income sources to update!");
         if (source == null) {
             return;
         }
 
         source = view.promptForIncomeSource(source);
 
-        incomeSourceDao.updateIncomeSource(source);
-        console.printMessage("Income source has been updated.");
+        try {
+            incomeSourceDao.updateIncomeSource(source);
+            console.printMessage("Income source has been updated.");
+        } catch (UpdateConflictException e) {
+            printConflict(e);
+        }
     }
 
     private void deleteIncomeSource() {
-        List<IncomeSource> sources = incomeSourceDao.getIncomeSources();
-        if (sources.size() == 0) {
-            console.printErrorMessage("There are no income sources to delete!");
-            return;
-        }
-
-        IncomeSource source = view.selectIncomeSource(sources);
+        IncomeSource source = selectIncomeSource("There are no income sources to delete!");
 
         if (source == null) {
             return;
@@ -164,13 +271,52 @@ public class ApplicationController {
         console.printMessage("Income source has been deleted.");
     }
 
+    private void exportIncomeSources() {
+        Path file = promptForExportFile();
+        if (file == null) {
+            return;
+        }
+        TransactionExporter.Format format = promptForExportFormat();
+
+        try {
+            long rows = transactionExporter.exportIncomeSources(file, format);
+            console.printMessage(rows + " income sources written to " + file + ".");
+        } catch (ExportException e) {
+            console.printErrorMessage("Export failed - " + e.getMessage());
+        }
+    }
+
+    private void importIncomeSources() {
+        Path file = promptForImportFile();
+        if (file == null) {
+            return;
+        }
+        CsvImporter.DuplicatePolicy policy = promptForDuplicatePolicy();
+
+        try {
+            // The import merges by name into the stored rows.
+            dataAccess.flushWrites();
+            ImportResult result = csvImporter.importIncomeSources(file, policy, this::printImportProgress);
+            if (dataAccess.getIncomeSourceCache() != null) {
+                dataAccess.getIncomeSourceCache().invalidate();
+            }
+            printImportResult(result);
+        } catch (ImportException e) {
+            console.printErrorMessage("Import failed - " + e.getMessage());
+        }
+    }
+
     private void expensesMenu() {
         final String VIEW = "View expenses";
         final String CREATE = "Add new expense";
         final String UPDATE = "Modify expense";
         final String DELETE = "Delete expense";
+        final String IMPORT = "Import expenses from CSV";
+        final String EXPORT = "Export expenses to file";
         final String RETURN = "Return to Main Menu";
-        final String[] MENU_OPTIONS = {VIEW, CREATE, UPDATE, DELETE, RETURN};
+        final String[] MENU_OPTIONS = csvImporter == null
+                ? new String[]{VIEW, CREATE, UPDATE, DELETE, EXPORT, RETURN}
+                : new String[]{VIEW, CREATE, UPDATE, DELETE, IMPORT, EXPORT, RETURN};
 
         while (true) {
             console.printBlankLine();
@@ -188,9 +334,16 @@ public class ApplicationController {
                     updateExpense();
                 } else if (selection.equals(DELETE)) {
                     deleteExpense();
+                } else if (selection.equals(IMPORT)) {
+                    importExpenses();
+                } else if (selection.equals(EXPORT)) {
+                    exportExpenses();
                 } else {
                     break;
                 }
+            } catch (UpdateConflictException e) {
+                // Buffered updates are only checked against other clients' changes when saved.
+                printConflict(e);
             } catch (DaoException e) {
                 console.printErrorMessage("DAO error - " + e.getMessage());
                 throw e;
@@ -199,8 +352,26 @@ public class ApplicationController {
     }
 
     private void viewExpenses() {
-        List<Expense> expenses = expenseDao.getExpenses();
-        view.displayExpenses(expenses);
+        BigDecimal afterAmount = null;
+        int afterId = 0;
+
+        while (true) {
+            // Fetch one extra row to learn whether another page follows.
+            List<Expense> page = expenseDao.getExpensesPage(afterAmount, afterId, PAGE_SIZE + 1);
+            boolean hasMore = page.size() > PAGE_SIZE;
+            if (hasMore) {
+                page = page.subList(0, PAGE_SIZE);
+            }
+
+            view.displayExpenses(page, !hasMore && afterAmount == null);
+            if (!hasMore || !console.promptForYesNo("Show next page? [y/n] ")) {
+                return;
+            }
+
+            Expense last = page.get(page.size() - 1);
+            afterAmount = last.getAmount();
+            afterId = last.getExpenseId();
+        }
     }
 
     private void createExpense() {
@@ -216,32 +387,23 @@ public class ApplicationController {
     }
 
     private void updateExpense() {
-        List<Expense> expenses = expenseDao.getExpenses();
-
-        if (expenses.size() == 0) {
-            console.printErrorMessage("There are no expenses to update!");
-            return;
-        }
-
-        Expense expense = view.selectExpense(expenses);
+        Expense expense = selectExpense("There are no expenses to update!");
         if (expense == null) {
             return;
         }
 
         expense = view.promptForExpense(expense);
 
-        expenseDao.updateExpense(expense);
-        console.printMessage("Expense has been updated.");
+        try {
+            expenseDao.updateExpense(expense);
+            console.printMessage("Expense has been updated.");
+        } catch (UpdateConflictException e) {
+            printConflict(e);
+        }
     }
 
     private void deleteExpense() {
-        List<Expense> expenses = expenseDao.getExpenses();
-        if (expenses.size() == 0) {
-            console.printErrorMessage("There are no expenses to delete!");
-            return;
-        }
-
-        Expense expense = view.selectExpense(expenses);
+        Expense expense = selectExpense("There are no expenses to delete!");
 
         if (expense == null) {
             return;
@@ -258,11 +420,406 @@ public class ApplicationController {
         console.printMessage("Expense has been deleted.");
     }
 
-    private DataSource setupDataSource(String databaseName) {
-        SingleConnectionDataSource dataSource = new SingleConnectionDataSource();
-        dataSource.setUrl(String.format("jdbc:postgresql://localhost:5432/" + databaseName));
-        dataSource.setUsername("postgres");
-        dataSource.setPassword("postgres1");
-        return dataSource;
+    private void exportExpenses() {
+        Path file = promptForExportFile();
+        if (file == null) {
+            return;
+        }
+        TransactionExporter.Format format = promptForExportFormat();
+
+        try {
+            long rows = transactionExporter.exportExpenses(file, format);
+            console.printMessage(rows + " expenses written to " + file + ".");
+        } catch (ExportException e) {
+            console.printErrorMessage("Export failed - " + e.getMessage());
+        }
+    }
+
+    private void importExpenses() {
+        Path file = promptForImportFile();
+        if (file == null) {
+            return;
+        }
+        CsvImporter.DuplicatePolicy policy = promptForDuplicatePolicy();
+
+        try {
+            // The import merges by name into the stored rows.
+            dataAccess.flushWrites();
+            ImportResult result = csvImporter.importExpenses(file, policy, this::printImportProgress);
+            if (dataAccess.getExpenseCache() != null) {
+                dataAccess.getExpenseCache().invalidate();
+            }
+            printImportResult(result);
+        } catch (ImportException e) {
+            console.printErrorMessage("Import failed - " + e.getMessage());
+        }
+    }
+
+    private void categoryMenu() {
+        final String VIEW = "View totals by category";
+        final String CREATE = "Add category";
+        final String INCOME = "Assign income source to category";
+        final String EXPENSE = "Assign expense to category";
+        final String RETURN = "Return to Main Menu";
+        final String[] MENU_OPTIONS = {VIEW, CREATE, INCOME, EXPENSE, RETURN};
+
+        // Category totals and assignments work on stored rows and their real ids.
+        dataAccess.flushWrites();
+
+        while (true) {
+            console.printBlankLine();
+            String title = "Category Menu";
+            String selection = view.getMenuSelection(title, MENU_OPTIONS);
+            console.printDivider();
+            console.printBlankLine();
+
+            try {
+                if (selection.equals(VIEW)) {
+                    view.displayCategoryTotals(CategoryTree.of(categoryDao.getCategoryTotals()));
+                    console.pauseOutput();
+                } else if (selection.equals(CREATE)) {
+                    createCategory();
+                } else if (selection.equals(INCOME)) {
+                    assignIncomeSourceCategory();
+                } else if (selection.equals(EXPENSE)) {
+                    assignExpenseCategory();
+                } else {
+                    break;
+                }
+            } catch (UpdateConflictException e) {
+                // Buffered updates are only checked against other clients' changes when saved.
+                printConflict(e);
+            } catch (DaoException e) {
+                console.printErrorMessage("DAO error - " + e.getMessage());
+                throw e;
+            }
+        }
+    }
+
+    private void createCategory() {
+        Category newCategory = view.promptForCategory(categoryDao.getCategories());
+
+        newCategory = categoryDao.createCategory(newCategory);
+        console.printMessage("Category " + newCategory.getName() + " has been created.");
+    }
+
+    private void assignIncomeSourceCategory() {
+        IncomeSource source = selectIncomeSource("There are no income sources to assign!");
+        if (source == null) {
+            return;
+        }
+
+        Integer categoryId = view.selectCategory(categoryDao.getCategories(), "[0 for none]");
+        categoryDao.setIncomeSourceCategory(source.getIncomeSourceId(), categoryId);
+        console.printMessage("Income source has been assigned.");
+    }
+
+    private void assignExpenseCategory() {
+        Expense expense = selectExpense("There are no expenses to assign!");
+        if (expense == null) {
+            return;
+        }
+
+        Integer categoryId = view.selectCategory(categoryDao.getCategories(), "[0 for none]");
+        categoryDao.setExpenseCategory(expense.getExpenseId(), categoryId);
+        console.printMessage("Expense has been assigned.");
+    }
+
+    private void historyMenu() {
+        final String VIEW = "View entries for a date range";
+        final String MONTHLY = "View monthly totals";
+        final String VARIANCE = "View budget vs actual for a month";
+        final String REFRESH = "Rebuild monthly totals";
+        final String INCOME = "Record dated income";
+        final String EXPENSE = "Record dated expense";
+        final String RETURN = "Return to Main Menu";
+        final String[] MENU_OPTIONS = {VIEW, MONTHLY, VARIANCE, INCOME, EXPENSE, REFRESH, RETURN};
+
+        // Budget vs actual compares against the stored income sources and expenses.
+        dataAccess.flushWrites();
+
+        while (true) {
+            console.printBlankLine();
+            String title = "History Menu";
+            String selection = view.getMenuSelection(title, MENU_OPTIONS);
+            console.printDivider();
+            console.printBlankLine();
+
+            try {
+                if (selection.equals(VIEW)) {
+                    viewLedgerEntries();
+                } else if (selection.equals(MONTHLY)) {
+                    viewMonthlySummaries();
+                } else if (selection.equals(VARIANCE)) {
+                    viewBudgetVariances();
+                } else if (selection.equals(INCOME)) {
+                    createLedgerEntry(LedgerEntry.Type.INCOME);
+                } else if (selection.equals(EXPENSE)) {
+                    createLedgerEntry(LedgerEntry.Type.EXPENSE);
+                } else if (selection.equals(REFRESH)) {
+                    refreshRollups();
+                } else {
+                    break;
+                }
+            } catch (UpdateConflictException e) {
+                // Buffered updates are only checked against other clients' changes when saved.
+                printConflict(e);
+            } catch (DaoException e) {
+                console.printErrorMessage("DAO error - " + e.getMessage());
+                throw e;
+            }
+        }
+    }
+
+    private void viewLedgerEntries() {
+        LocalDate fromDate = console.promptForLocalDate("From date, blank to cancel ");
+        if (fromDate == null) {
+            return;
+        }
+        LocalDate toDate = console.promptForLocalDate("To date, blank for today ");
+        if (toDate == null) {
+            toDate = LocalDate.now();
+        }
+
+        LocalDate afterDate = null;
+        long afterId = 0;
+
+        while (true) {
+            // Fetch one extra row to learn whether another page follows.
+            List<LedgerEntry> page = ledgerEntryDao.getLedgerEntriesPage(fromDate, toDate, afterDate, afterId,
+                    PAGE_SIZE + 1);
+            boolean hasMore = page.size() > PAGE_SIZE;
+            if (hasMore) {
+                page = page.subList(0, PAGE_SIZE);
+            }
+
+            view.displayLedgerEntries(page, !hasMore && afterDate == null);
+            if (!hasMore) {
+                console.pauseOutput();
+                return;
+            }
+            if (!console.promptForYesNo("Show next page? [y/n] ")) {
+                return;
+            }
+
+            LedgerEntry last = page.get(page.size() - 1);
+            afterDate = last.getEntryDate();
+            afterId = last.getLedgerEntryId();
+        }
+    }
+
+    private void viewMonthlySummaries() {
+        // Two years by default, so every month has last year's figure to compare against.
+        LocalDate fromDate = console.promptForLocalDate("From month, blank for two years ago ");
+        YearMonth toMonth = YearMonth.now();
+        YearMonth fromMonth = fromDate == null ? toMonth.minusMonths(23) : YearMonth.from(fromDate);
+
+        view.displayMonthlySummaries(ledgerRollupDao.getMonthlySummaries(fromMonth, toMonth));
+        console.pauseOutput();
+    }
+
+    private void viewBudgetVariances() {
+        LocalDate date = console.promptForLocalDate("Any date in the month, blank for this month ");
+        YearMonth month = date == null ? YearMonth.now() : YearMonth.from(date);
+
+        view.displayBudgetVariances(month, ledgerRollupDao.getBudgetVariances(month));
+        console.pauseOutput();
+    }
+
+    private void refreshRollups() {
+        LocalDate fromDate = console.promptForLocalDate("From month, blank to cancel ");
+        if (fromDate == null) {
+            return;
+        }
+        YearMonth fromMonth = YearMonth.from(fromDate);
+        YearMonth toMonth = YearMonth.now();
+
+        ledgerRollupDao.refreshRollups(fromMonth, toMonth);
+        console.printMessage("Monthly totals from " + fromMonth + " to " + toMonth + " have been rebuilt.");
+    }
+
+    private void createLedgerEntry(LedgerEntry.Type type) {
+        LedgerEntry newLedgerEntry = view.promptForLedgerEntry(type);
+
+        newLedgerEntry = ledgerEntryDao.createLedgerEntry(newLedgerEntry);
+        console.printMessage("Entry " + newLedgerEntry.getName() + " on " +
+                newLedgerEntry.getEntryDate() + " has been recorded.");
+    }
+
+    private void diagnosticsMenu() {
+        final String VIEW = "View DAO, statement, pool and cache stats";
+        final String DUMP = "Write stats to file";
+        final String RESET = "Reset DAO and statement metrics";
+        final String RETURN = "Return to Main Menu";
+        final String[] MENU_OPTIONS = {VIEW, DUMP, RESET, RETURN};
+
+        while (true) {
+            console.printBlankLine();
+            String title = "Diagnostics";
+            String selection = view.getMenuSelection(title, MENU_OPTIONS);
+            console.printDivider();
+            console.printBlankLine();
+
+            if (selection.equals(VIEW)) {
+                view.displayDiagnostics(dataAccess.getDiagnostics());
+                console.pauseOutput();
+            } else if (selection.equals(DUMP)) {
+                dumpDiagnostics();
+            } else if (selection.equals(RESET)) {
+                dataAccess.resetMetrics();
+                console.printMessage("DAO and statement metrics have been reset.");
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void dumpDiagnostics() {
+        Path file = promptForExportFile();
+        if (file == null) {
+            return;
+        }
+
+        try {
+            dataAccess.getDiagnostics().writeTo(file);
+            console.printMessage("Diagnostics written to " + file + ".");
+        } catch (ExportException e) {
+            console.printErrorMessage("Export failed - " + e.getMessage());
+        }
+    }
+
+    private Path promptForImportFile() {
+        String fileName = console.promptForString("CSV file with name,amount header [blank to cancel]: ");
+        if (fileName.isBlank()) {
+            return null;
+        }
+        return Path.of(fileName.trim());
+    }
+
+    private CsvImporter.DuplicatePolicy promptForDuplicatePolicy() {
+        boolean update = console.promptForYesNo("Update the amount when a name already exists? [y/n] ");
+        return update ? CsvImporter.DuplicatePolicy.UPDATE : CsvImporter.DuplicatePolicy.SKIP;
+    }
+
+    private Path promptForExportFile() {
+        String fileName = console.promptForString("File to write [blank to cancel]: ");
+        if (fileName.isBlank()) {
+            return null;
+        }
+        return Path.of(fileName.trim());
+    }
+
+    private TransactionExporter.Format promptForExportFormat() {
+        final String CSV = "CSV";
+        final String NDJSON = "Newline-delimited JSON";
+        String selection = console.getMenuSelection(new String[] {CSV, NDJSON});
+        return selection.equals(CSV) ? TransactionExporter.Format.CSV : TransactionExporter.Format.NDJSON;
+    }
+
+    private void printImportProgress(long linesRead) {
+        console.printMessage("... " + linesRead + " lines read");
+        console.flush();
+    }
+
+    private void printConflict(UpdateConflictException e) {
+        Transaction current = e.getCurrent();
+        console.printErrorMessage("Not updated - it was changed by someone else since you read it. " +
+                "It is now " + current.getName() + " " + current.getAmount() +
+                "; select it again to make your change.");
+    }
+
+    private void printImportResult(ImportResult result) {
+        console.printMessage("Import complete: " + result.getRowsRead() + " rows read, " +
+                result.getRowsInserted() + " added, " + result.getRowsUpdated() + " updated, " +
+                result.getRowsSkipped() + " skipped.");
+    }
+
+    /**
+     * Pages through the income sources, as the listing does, until the user enters an id.
+     * Ids on the page shown are looked up in it; any other id is read from the DAO.
+     *
+     * @param emptyMessage shown, instead of a listing, when there are no income sources
+     * @return the selected income source, or null when cancelled or there are none
+     */
+    private IncomeSource selectIncomeSource(String emptyMessage) {
+        BigDecimal afterAmount = null;
+        int afterId = 0;
+
+        while (true) {
+            List<IncomeSource> page = incomeSourceDao.getIncomeSourcesPage(afterAmount, afterId,
+                    PAGE_SIZE + 1);
+            boolean hasMore = page.size() > PAGE_SIZE;
+            if (hasMore) {
+                page = page.subList(0, PAGE_SIZE);
+            }
+            if (page.isEmpty()) {
+                console.printErrorMessage(emptyMessage);
+                return null;
+            }
+            IntIndex<IncomeSource> pageById = IntIndex.of(page, IncomeSource::getIncomeSourceId);
+
+            Integer sourceId;
+            while ((sourceId = view.promptForIncomeSourceId(page, hasMore)) != null) {
+                if (sourceId == 0) {
+                    return null;
+                }
+                IncomeSource selectedSource = pageById.get(sourceId);
+                if (selectedSource == null) {
+                    selectedSource = incomeSourceDao.getIncomeSourceById(sourceId);
+                }
+                if (selectedSource != null) {
+                    return selectedSource;
+                }
+                console.printErrorMessage("That's not a valid id. Please try again.");
+            }
+
+            IncomeSource last = page.get(page.size() - 1);
+            afterAmount = last.getAmount();
+            afterId = last.getIncomeSourceId();
+        }
+    }
+
+    /**
+     * Pages through the expenses, as the listing does, until the user enters an id. Ids on
+     * the page shown are looked up in it; any other id is read from the DAO.
+     *
+     * @param emptyMessage shown, instead of a listing, when there are no expenses
+     * @return the selected expense, or null when cancelled or there are none
+     */
+    private Expense selectExpense(String emptyMessage) {
+        BigDecimal afterAmount = null;
+        int afterId = 0;
+
+        while (true) {
+            List<Expense> page = expenseDao.getExpensesPage(afterAmount, afterId, PAGE_SIZE + 1);
+            boolean hasMore = page.size() > PAGE_SIZE;
+            if (hasMore) {
+                page = page.subList(0, PAGE_SIZE);
+            }
+            if (page.isEmpty()) {
+                console.printErrorMessage(emptyMessage);
+                return null;
+            }
+            IntIndex<Expense> pageById = IntIndex.of(page, Expense::getExpenseId);
+
+            Integer expenseId;
+            while ((expenseId = view.promptForExpenseId(page, hasMore)) != null) {
+                if (expenseId == 0) {
+                    return null;
+                }
+                Expense selectedExpense = pageById.get(expenseId);
+                if (selectedExpense == null) {
+                    selectedExpense = expenseDao.getExpenseById(expenseId);
+                }
+                if (selectedExpense != null) {
+                    return selectedExpense;
+                }
+                console.printErrorMessage("That's not a valid id. Please try again.");
+            }
+
+            Expense last = page.get(page.size() - 1);
+            afterAmount = last.getAmount();
+            afterId = last.getExpenseId();
+        }
     }
 }
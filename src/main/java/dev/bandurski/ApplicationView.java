@@ -2,10 +2,27 @@ package dev.bandurski;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
+
+import dev.bandurski.dao.CacheStats;
+import dev.bandurski.datasource.ConnectionPoolStats;
+import dev.bandurski.metrics.DiagnosticsReport;
+import dev.bandurski.metrics.MethodStats;
+import dev.bandurski.metrics.StatementStats;
+import dev.bandurski.model.BudgetSummary;
+import dev.bandurski.model.BudgetVariance;
+import dev.bandurski.model.Category;
+import dev.bandurski.model.CategoryTree;
 import dev.bandurski.model.Expense;
 import dev.bandurski.model.IncomeSource;
+import dev.bandurski.model.LedgerEntry;
+import dev.bandurski.model.Money;
+import dev.bandurski.model.MonthlySummary;
 import dev.bandurski.model.Transaction;
 import dev.bandurski.util.BasicConsole;
 public class ApplicationView {
@@ -21,20 +38,122 @@ public class ApplicationView {
         return console.getMenuSelection(options);
     }
 
-    public void displaySummary(List<IncomeSource> incomeSources, List<Expense> expenses) {
-        displayIncomeSources(incomeSources);
-        displayExpenses(expenses);
-
-        BigDecimal netIncome = computeMonthlyNetIncome(incomeSources, expenses);
+    /**
+     * Shows the largest income sources and expenses with the totals for all of them.
+     *
+     * @param incomeSources the largest income sources, which may be fewer than the summary counts
+     * @param expenses      the largest expenses, which may be fewer than the summary counts
+     */
+    public void displaySummary(List<IncomeSource> incomeSources, List<Expense> expenses,
+                               BudgetSummary summary) {
+        displayIncomeSources(incomeSources, false);
+        printRemaining(summary.getIncomeCount() - incomeSources.size(), "income sources");
+        displayExpenses(expenses, false);
+        printRemaining(summary.getExpenseCount() - expenses.size(), "expenses");
 
         console.printDivider();
+        console.printMessage(String.format(
+                "      %-10s  %5s  %s",
+                "Income",
+                summary.getIncomeCount(),
+                summary.getIncomeTotal()
+        ));
+        console.printMessage(String.format(
+                "      %-10s  %5s  %s",
+                "Expenses",
+                summary.getExpenseCount(),
+                summary.getExpenseTotal()
+        ));
         console.printBanner(String.format(
-                "      %-10s  %s",
+                "      %-10s  %5s  %s",
                 "Net Income",
-                netIncome
+                "",
+                summary.getNetIncome()
+        ));
+    }
+
+    private void printRemaining(int remaining, String label) {
+        if (remaining > 0) {
+            console.printMessage(String.format("      ... and %d more %s", remaining, label));
+        }
+    }
+
+    public void displayCategoryTotals(CategoryTree tree) {
+        String title = String.format(
+                "Totals by Category%n%-30s  %12s  %12s  %12s",
+                "Category",
+                "Income",
+                "Expenses",
+                "Net"
+        );
+        console.printBanner(title);
+
+        for (int i = 0; i < tree.size(); i++) {
+            printCategoryTotal("  ".repeat(tree.getDepth(i)) + tree.getName(i),
+                    tree.getSubtreeIncomeCents(i), tree.getSubtreeExpenseCents(i));
+        }
+        if (tree.getUncategorizedIncomeCents() != 0 || tree.getUncategorizedExpenseCents() != 0) {
+            printCategoryTotal("Uncategorized",
+                    tree.getUncategorizedIncomeCents(), tree.getUncategorizedExpenseCents());
+        }
+    }
+
+    private void printCategoryTotal(String label, long incomeCents, long expenseCents) {
+        console.printMessage(String.format(
+                "%-30s  %12s  %12s  %12s",
+                label,
+                Money.toBigDecimal(incomeCents),
+                Money.toBigDecimal(expenseCents),
+                Money.toBigDecimal(Money.subtract(incomeCents, expenseCents))
         ));
     }
 
+    public void displayCategories(List<Category> categories) {
+        String title = String.format("Categories%n%4s  %s", "Id", "Name");
+        console.printBanner(title);
+
+        // Parents come first, so each category's depth is known by the time its children appear.
+        Map<Integer, Integer> depths = new HashMap<>();
+        for (Category category : categories) {
+            int depth = category.getParentId() == null ? 0 : depths.get(category.getParentId()) + 1;
+            depths.put(category.getCategoryId(), depth);
+            console.printMessage(String.format(
+                    "%4s  %s",
+                    category.getCategoryId(),
+                    "  ".repeat(depth) + category.getName()
+            ));
+        }
+    }
+
+    /**
+     * @return the chosen category's id, or null when 0 is entered
+     */
+    public Integer selectCategory(List<Category> categories, String noneLabel) {
+        Set<Integer> categoryIds = new HashSet<>();
+        for (Category category : categories) {
+            categoryIds.add(category.getCategoryId());
+        }
+
+        while (true) {
+            displayCategories(categories);
+            Integer categoryId = console.promptForInteger("Enter Category Id " + noneLabel + ": ");
+            if (categoryId == null || categoryId == 0) {
+                return null;
+            }
+            if (categoryIds.contains(categoryId)) {
+                return categoryId;
+            }
+            console.printErrorMessage("That's not a valid id. Please try again.");
+        }
+    }
+
+    public Category promptForCategory(List<Category> categories) {
+        Category newCategory = new Category();
+        newCategory.setName(promptForName(null));
+        newCategory.setParentId(categories.isEmpty() ? null : selectCategory(categories, "of parent [0 for top level]"));
+        return newCategory;
+    }
+
     public void displayIncomeSources(List<IncomeSource> incomeSources) {
         displayIncomeSources(incomeSources, true);
     }
@@ -50,7 +169,7 @@ public class ApplicationView {
         );
         console.printBanner(title);
 
-        BigDecimal total = BigDecimal.ZERO;
+        long totalCents = 0;
         for (IncomeSource incomeSource: incomeSources) {
             console.printMessage(String.format(
                     "%4s  %-" + padding + "s  %s",
@@ -59,7 +178,7 @@ public class ApplicationView {
                     incomeSource.getAmount()
             ));
 
-            total = total.add(incomeSource.getAmount());
+            totalCents = Money.add(totalCents, incomeSource.getAmountCents());
         }
 
         if (displayTotal) {
@@ -67,7 +186,7 @@ public class ApplicationView {
             console.printMessage(String.format(
                     "      %-" + padding + "s  %s",
                     "Total",
-                    total
+                    Money.toBigDecimal(totalCents)
             ));
         }
     }
@@ -79,34 +198,25 @@ public class ApplicationView {
             newIncomeSource.setAmount(promptForAmount(null));
         } else {
             newIncomeSource.setIncomeSourceId(existingSource.getIncomeSourceId());
+            newIncomeSource.setVersion(existingSource.getVersion());
             newIncomeSource.setName(promptForName(existingSource.getName()));
             newIncomeSource.setAmount(promptForAmount(existingSource.getAmount()));
         }
         return newIncomeSource;
     }
 
-    public IncomeSource selectIncomeSource(List<IncomeSource> sources) {
-        while (true) {
-            displayIncomeSources(sources, false);
-            Integer sourceId = console.promptForInteger("Enter Income Source Id [0 to cancel]: ");
-            if (sourceId == null || sourceId == 0) {
-                return null;
-            }
-            IncomeSource selectedSource = findIncomeSourceById(sources, sourceId);
-            if (selectedSource != null) {
-                return selectedSource;
-            }
-            console.printErrorMessage("That's not a valid id. Please try again.");
-        }
-    }
-
-    private IncomeSource findIncomeSourceById(List<IncomeSource> incomeSources, int incomeSourceId) {
-        for (IncomeSource incomeSource : incomeSources) {
-            if (incomeSource.getIncomeSourceId() == incomeSourceId) {
-                return incomeSource;
-            }
-        }
-        return null;
+    /**
+     * Shows one page of income sources and asks for the id of one, which need not be on the page.
+     *
+     * @param hasMore whether another page follows, in which case a blank entry asks for it
+     * @return the id entered, 0 to cancel, or null for the next page
+     */
+    public Integer promptForIncomeSourceId(List<IncomeSource> page, boolean hasMore) {
+        displayIncomeSources(page, false);
+        Integer sourceId = console.promptForInteger(hasMore
+                ? "Enter Income Source Id [0 to cancel, blank for next page]: "
+                : "Enter Income Source Id [0 to cancel]: ");
+        return sourceId == null && !hasMore ? Integer.valueOf(0) : sourceId;
     }
 
     public void displayExpenses(List<Expense> expenses) {
@@ -124,7 +234,7 @@ public class ApplicationView {
         );
         console.printBanner(title);
 
-        BigDecimal total = BigDecimal.ZERO;
+        long totalCents = 0;
         for (Expense expense: expenses) {
             console.printMessage(String.format(
                     "%4s  %-" + padding + "s  %s",
@@ -133,7 +243,7 @@ public class ApplicationView {
                     expense.getAmount()
             ));
 
-            total = total.add(expense.getAmount());
+            totalCents = Money.add(totalCents, expense.getAmountCents());
         }
 
         if (displayTotal) {
@@ -141,7 +251,236 @@ public class ApplicationView {
             console.printMessage(String.format(
                     "      %-" + padding + "s  %s",
                     "Total",
-                    total
+                    Money.toBigDecimal(totalCents)
+            ));
+        }
+    }
+
+    /**
+     * @param displayTotals whether to add the income, expense and net totals, which only
+     *                      cover the whole range when every entry in it is listed
+     */
+    public void displayLedgerEntries(List<LedgerEntry> ledgerEntries, boolean displayTotals) {
+        int padding = calculatePaddingLength(ledgerEntries);
+
+        String title = String.format(
+                "History%n%-10s  %-7s  %-" + padding + "s  %s",
+                "Date",
+                "Type",
+                "Name",
+                "Amount"
+        );
+        console.printBanner(title);
+
+        long incomeCents = 0;
+        long expenseCents = 0;
+        for (LedgerEntry ledgerEntry: ledgerEntries) {
+            console.printMessage(String.format(
+                    "%-10s  %-7s  %-" + padding + "s  %s",
+                    ledgerEntry.getEntryDate(),
+                    ledgerEntry.getType() == LedgerEntry.Type.INCOME ? "Income" : "Expense",
+                    ledgerEntry.getName(),
+                    ledgerEntry.getAmount()
+            ));
+
+            if (ledgerEntry.getType() == LedgerEntry.Type.INCOME) {
+                incomeCents = Money.add(incomeCents, ledgerEntry.getAmountCents());
+            } else {
+                expenseCents = Money.add(expenseCents, ledgerEntry.getAmountCents());
+            }
+        }
+
+        if (!displayTotals) {
+            return;
+        }
+        console.printDivider();
+        console.printMessage(String.format("%-21s  %-" + padding + "s  %s",
+                "", "Income", Money.toBigDecimal(incomeCents)));
+        console.printMessage(String.format("%-21s  %-" + padding + "s  %s",
+                "", "Expenses", Money.toBigDecimal(expenseCents)));
+        console.printMessage(String.format("%-21s  %-" + padding + "s  %s",
+                "", "Net Income", Money.toBigDecimal(Money.subtract(incomeCents, expenseCents))));
+    }
+
+    /**
+     * Lists each month's totals, with the change in net income from the same month a year
+     * earlier when that month is part of the list.
+     */
+    public void displayMonthlySummaries(List<MonthlySummary> summaries) {
+        Map<YearMonth, MonthlySummary> byMonth = new HashMap<>();
+        for (MonthlySummary summary : summaries) {
+            byMonth.put(summary.getMonth(), summary);
+        }
+
+        String title = String.format(
+                "Monthly Totals%n%-7s  %7s  %12s  %12s  %12s  %12s",
+                "Month",
+                "Entries",
+                "Income",
+                "Expenses",
+                "Net Income",
+                "vs Last Year"
+        );
+        console.printBanner(title);
+
+        for (MonthlySummary summary : summaries) {
+            MonthlySummary lastYear = byMonth.get(summary.getMonth().minusYears(1));
+            console.printMessage(String.format(
+                    "%-7s  %7d  %12s  %12s  %12s  %12s",
+                    summary.getMonth(),
+                    summary.getEntryCount(),
+                    summary.getIncomeTotal(),
+                    summary.getExpenseTotal(),
+                    summary.getNetIncome(),
+                    lastYear == null ? "" : Money.toBigDecimal(Money.subtract(Money.toCents(summary.getNetIncome()),
+                            Money.toCents(lastYear.getNetIncome())))
+            ));
+        }
+    }
+
+    public void displayBudgetVariances(YearMonth month, List<BudgetVariance> variances) {
+        String title = String.format(
+                "Budget vs Actual for %s%n%-7s  %-20s  %12s  %12s  %12s",
+                month,
+                "Type",
+                "Name",
+                "Budget",
+                "Actual",
+                "Variance"
+        );
+        console.printBanner(title);
+
+        long netBudgetedCents = 0;
+        long netActualCents = 0;
+        for (BudgetVariance variance : variances) {
+            console.printMessage(String.format(
+                    "%-7s  %-20s  %12s  %12s  %12s",
+                    variance.getType() == LedgerEntry.Type.INCOME ? "Income" : "Expense",
+                    variance.getName(),
+                    variance.getBudgeted(),
+                    variance.getActual(),
+                    variance.getVariance()
+            ));
+            long budgetedCents = Money.toCents(variance.getBudgeted());
+            long actualCents = Money.toCents(variance.getActual());
+            if (variance.getType() == LedgerEntry.Type.INCOME) {
+                netBudgetedCents = Money.add(netBudgetedCents, budgetedCents);
+                netActualCents = Money.add(netActualCents, actualCents);
+            } else {
+                netBudgetedCents = Money.subtract(netBudgetedCents, budgetedCents);
+                netActualCents = Money.subtract(netActualCents, actualCents);
+            }
+        }
+
+        console.printDivider();
+        console.printMessage(String.format(
+                "%-29s  %12s  %12s  %12s",
+                "Net Income",
+                Money.toBigDecimal(netBudgetedCents),
+                Money.toBigDecimal(netActualCents),
+                Money.toBigDecimal(Money.subtract(netActualCents, netBudgetedCents))
+        ));
+    }
+
+    public LedgerEntry promptForLedgerEntry(LedgerEntry.Type type) {
+        LedgerEntry newLedgerEntry = new LedgerEntry();
+        LocalDate entryDate = console.promptForLocalDate("Date, blank for today ");
+        newLedgerEntry.setEntryDate(entryDate == null ? LocalDate.now() : entryDate);
+        newLedgerEntry.setType(type);
+        newLedgerEntry.setName(promptForName(null));
+        newLedgerEntry.setAmount(promptForAmount(null));
+        return newLedgerEntry;
+    }
+
+    public void displayDiagnostics(DiagnosticsReport report) {
+        console.printBanner("Diagnostics at " + report.getCreatedAt());
+
+        if (report.getDaoStats().isEmpty()) {
+            console.printMessage("DAO metrics are disabled.");
+        }
+        for (Map.Entry<String, List<MethodStats>> dao : report.getDaoStats().entrySet()) {
+            console.printBlankLine();
+            console.printMessage(String.format(
+                    "%-24s  %8s  %6s  %9s  %9s  %9s",
+                    dao.getKey(),
+                    "Calls",
+                    "Errors",
+                    "p50 ms",
+                    "p99 ms",
+                    "max ms"
+            ));
+            console.printDivider();
+            for (MethodStats method : dao.getValue()) {
+                console.printMessage(String.format(
+                        "%-24s  %8d  %6d  %9.3f  %9.3f  %9.3f",
+                        method.getName(),
+                        method.getCalls(),
+                        method.getErrorCount(),
+                        method.getP50Millis(),
+                        method.getP99Millis(),
+                        method.getMaxMillis()
+                ));
+                for (Map.Entry<String, Long> error : method.getErrors().entrySet()) {
+                    console.printMessage(String.format("    %-20s  %8d", error.getKey(), error.getValue()));
+                }
+            }
+        }
+
+        if (!report.getStatementStats().isEmpty()) {
+            console.printBlankLine();
+            console.printMessage(String.format(
+                    "%-30s  %10s  %8s  %8s",
+                    "Statement",
+                    "Executions",
+                    "Parses",
+                    "Reuses"
+            ));
+            console.printDivider();
+            for (StatementStats statement : report.getStatementStats()) {
+                console.printMessage(String.format(
+                        "%-30s  %10d  %8d  %8d",
+                        statement.getName(),
+                        statement.getExecutions(),
+                        statement.getParses(),
+                        statement.getReuses()
+                ));
+            }
+        }
+
+        ConnectionPoolStats pool = report.getPoolStats();
+        console.printBlankLine();
+        if (pool == null) {
+            console.printMessage("Connection pool is disabled.");
+        } else {
+            console.printMessage(String.format(
+                    "Connection pool: %d active, %d idle, %d total, %d waiting",
+                    pool.getActiveConnections(),
+                    pool.getIdleConnections(),
+                    pool.getTotalConnections(),
+                    pool.getPendingThreads()
+            ));
+            console.printMessage(String.format(
+                    "  %d acquisitions, %d timeouts, wait avg %.3f ms, max %.3f ms",
+                    pool.getAcquisitions(),
+                    pool.getTimeouts(),
+                    pool.getAverageWaitMillis(),
+                    pool.getMaxWaitMillis()
+            ));
+        }
+
+        if (report.getCacheStats().isEmpty()) {
+            console.printMessage("Caching is disabled.");
+        }
+        for (Map.Entry<String, CacheStats> cache : report.getCacheStats().entrySet()) {
+            CacheStats stats = cache.getValue();
+            console.printMessage(String.format(
+                    "Cache %s: %d entries, %d hits, %d misses, %d evictions, hit ratio %.2f",
+                    cache.getKey(),
+                    stats.getSize(),
+                    stats.getHits(),
+                    stats.getMisses(),
+                    stats.getEvictions(),
+                    stats.getHitRatio()
             ));
         }
     }
@@ -153,34 +492,25 @@ public class ApplicationView {
             newExpense.setAmount(promptForAmount(null));
         } else {
             newExpense.setExpenseId(existingExpense.getExpenseId());
+            newExpense.setVersion(existingExpense.getVersion());
             newExpense.setName(promptForName(existingExpense.getName()));
             newExpense.setAmount(promptForAmount(existingExpense.getAmount()));
         }
         return newExpense;
     }
 
-    public Expense selectExpense(List<Expense> expenses) {
-        while (true) {
-            displayExpenses(expenses, false);
-            Integer expenseId = console.promptForInteger("Enter Expense Id [0 to cancel]: ");
-            if (expenseId == null || expenseId == 0) {
-                return null;
-            }
-            Expense selectedExpense = findExpenseById(expenses, expenseId);
-            if (selectedExpense != null) {
-                return selectedExpense;
-            }
-            console.printErrorMessage("That's not a valid id. Please try again.");
-        }
-    }
-
-    private Expense findExpenseById(List<Expense> expenses, Integer expenseId) {
-        for (Expense expense : expenses) {
-            if (expense.getExpenseId() == expenseId) {
-                return expense;
-            }
-        }
-        return null;
+    /**
+     * Shows one page of expenses and asks for the id of one, which need not be on the page.
+     *
+     * @param hasMore whether another page follows, in which case a blank entry asks for it
+     * @return the id entered, 0 to cancel, or null for the next page
+     */
+    public Integer promptForExpenseId(List<Expense> page, boolean hasMore) {
+        displayExpenses(page, false);
+        Integer expenseId = console.promptForInteger(hasMore
+                ? "Enter Expense Id [0 to cancel, blank for next page]: "
+                : "Enter Expense Id [0 to cancel]: ");
+        return expenseId == null && !hasMore ? Integer.valueOf(0) : expenseId;
     }
 
     private String promptForName(String defaultValue) {
@@ -220,6 +550,10 @@ public class ApplicationView {
         prompt = promptWithDefault(prompt, defaultValue);
         while (true) {
             BigDecimal entry = console.promptForBigDecimal(prompt);
+            if (entry != null && entry.stripTrailingZeros().scale() > Money.SCALE) {
+                console.printErrorMessage("Enter at most " + Money.SCALE + " decimal places, please.");
+                continue;
+            }
             if (entry != null) {
                 return entry;
             }
@@ -234,7 +568,7 @@ public class ApplicationView {
         }
     }
 
-    private int calculatePaddingLength(List<? extends Transaction> transactions) {
+    int calculatePaddingLength(List<? extends Transaction> transactions) {
         final int MIN_PADDING = 10;
 
         int padding = MIN_PADDING;
@@ -247,18 +581,4 @@ public class ApplicationView {
 
         return padding;
     }
-
-    private BigDecimal computeMonthlyNetIncome(List<IncomeSource> sources, List<Expense> expenses) {
-        BigDecimal netIncome = BigDecimal.ZERO;
-
-        for (IncomeSource source: sources) {
-            netIncome = netIncome.add(source.getAmount());
-        }
-
-        for (Expense expense: expenses) {
-            netIncome = netIncome.subtract(expense.getAmount());
-        }
-
-        return netIncome;
-    }
 }
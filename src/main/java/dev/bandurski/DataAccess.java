@@ -0,0 +1,488 @@
+package dev.bandurski;
+
+import dev.bandurski.dao.AsyncBudgetSummaryDao;
+import dev.bandurski.dao.AsyncCategoryDao;
+import dev.bandurski.dao.AsyncExpenseDao;
+import dev.bandurski.dao.AsyncIncomeSourceDao;
+import dev.bandurski.dao.BudgetSummaryDao;
+import dev.bandurski.dao.CacheStats;
+import dev.bandurski.dao.CachingExpenseDao;
+import dev.bandurski.dao.CategoryDao;
+import dev.bandurski.dao.CachingIncomeSourceDao;
+import dev.bandurski.dao.ExpenseDao;
+import dev.bandurski.dao.FileBudgetSummaryDao;
+import dev.bandurski.dao.FileExpenseDao;
+import dev.bandurski.dao.FileIncomeSourceDao;
+import dev.bandurski.dao.IncomeSourceDao;
+import dev.bandurski.dao.InstrumentedExpenseDao;
+import dev.bandurski.dao.InstrumentedIncomeSourceDao;
+import dev.bandurski.dao.JdbcBudgetSummaryDao;
+import dev.bandurski.dao.JdbcCategoryDao;
+import dev.bandurski.dao.JdbcExpenseDao;
+import dev.bandurski.dao.JdbcIncomeSourceDao;
+import dev.bandurski.dao.JdbcLedgerEntryDao;
+import dev.bandurski.dao.JdbcLedgerRollupDao;
+import dev.bandurski.dao.LedgerEntryDao;
+import dev.bandurski.dao.LedgerRollupDao;
+import dev.bandurski.dao.SqlStatement;
+import dev.bandurski.dao.SqlStatements;
+import dev.bandurski.dao.WriteBehindExpenseDao;
+import dev.bandurski.dao.WriteBehindIncomeSourceDao;
+import dev.bandurski.datasource.ConnectionPool;
+import dev.bandurski.datasource.ShardRouter;
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.metrics.DaoMetrics;
+import dev.bandurski.metrics.DiagnosticsReport;
+import dev.bandurski.metrics.MethodStats;
+import dev.bandurski.metrics.StatementStats;
+import dev.bandurski.storage.LogStore;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the data source and DAOs shared by the interactive menus and batch mode.
+ * <p>
+ * With {@code -Dbudget.storage=file} income sources and expenses live in local log files
+ * instead of the database and no data source is created, so the ledger, rollup and
+ * category DAOs are null.
+ * <p>
+ * The interactive menus buffer income source and expense writes and save them in batches;
+ * see {@link WriteBehindExpenseDao}.
+ * <p>
+ * Every DAO is scoped to the single budget chosen with {@code -Dbudget.id}. Budgets can be
+ * spread over several databases listed in {@code -Dbudget.shards}; see {@link ShardRouter}.
+ */
+public class DataAccess implements AutoCloseable {
+
+    private final String DB_NAME = "monthly_budget";
+    private final String DB_USER = "postgres";
+    private final String DB_PASSWORD = "postgres1";
+
+    // Pool sizing can be tuned with -Dbudget.pool.minSize / -Dbudget.pool.maxSize,
+    // -Dbudget.pool.disabled=true falls back to a single shared connection.
+    private final int POOL_MIN_SIZE = Integer.getInteger("budget.pool.minSize", 2);
+    private final int POOL_MAX_SIZE = Integer.getInteger("budget.pool.maxSize", 10);
+    private final boolean POOL_DISABLED = Boolean.getBoolean("budget.pool.disabled");
+
+    // -Dbudget.cache.disabled=true talks to the database on every read.
+    private final boolean CACHE_DISABLED = Boolean.getBoolean("budget.cache.disabled");
+    private final int CACHE_MAX_ENTRIES = Integer.getInteger("budget.cache.maxEntries", 10_000);
+    private final long CACHE_TTL_MILLIS = Long.getLong("budget.cache.ttlMillis", 60_000L);
+
+    // -Dbudget.metrics.disabled=true skips recording DAO call latencies.
+    private final boolean METRICS_DISABLED = Boolean.getBoolean("budget.metrics.disabled");
+
+    // -Dbudget.storage=file keeps income sources and expenses in -Dbudget.storage.dir.
+    private final boolean FILE_STORAGE = "file".equals(System.getProperty("budget.storage"));
+    private final Path STORAGE_DIR = Path.of(System.getProperty("budget.storage.dir",
+            Path.of(System.getProperty("user.home"), ".monthly_budget").toString()));
+    private final long COMPACTION_INTERVAL_SECONDS = Long.getLong("budget.storage.compactionSeconds", 60L);
+
+    // -Dbudget.id picks the budget to work on, -Dbudget.shards is a comma separated list of the
+    // databases budgets are spread over.
+    private final int BUDGET_ID = Integer.getInteger("budget.id", BudgetSummaryDao.DEFAULT_BUDGET_ID);
+    private final List<String> SHARDS = List.of(System.getProperty("budget.shards", DB_NAME).split(","));
+
+    // -Dbudget.writeBehind.disabled=true saves every write as it is made.
+    private final boolean WRITE_BEHIND_DISABLED = Boolean.getBoolean("budget.writeBehind.disabled");
+    private final int WRITE_BEHIND_MAX_PENDING = Integer.getInteger("budget.writeBehind.maxPending", 100);
+    private final long WRITE_BEHIND_FLUSH_MILLIS = Long.getLong("budget.writeBehind.flushMillis", 2_000L);
+    private final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final int budgetId;
+    private final DataSource dataSource;
+    private final IncomeSourceDao incomeSourceDao;
+    private final ExpenseDao expenseDao;
+    private final BudgetSummaryDao budgetSummaryDao;
+    private final LedgerEntryDao ledgerEntryDao;
+    private final LedgerRollupDao ledgerRollupDao;
+    private final CategoryDao categoryDao;
+
+    // Runs queries that a screen needs at the same time, one thread per pooled connection.
+    private final ExecutorService queryExecutor;
+    private final AsyncIncomeSourceDao asyncIncomeSourceDao;
+    private final AsyncExpenseDao asyncExpenseDao;
+    private final AsyncBudgetSummaryDao asyncBudgetSummaryDao;
+    private final AsyncCategoryDao asyncCategoryDao;
+
+    private ConnectionPool connectionPool;
+    // Set when storing to files.
+    private LogStore incomeSourceStore;
+    private LogStore expenseStore;
+    // Runs log compaction and write-behind flushes, when either is in use.
+    private ScheduledExecutorService maintenanceExecutor;
+    // Set when caching is enabled, so writes that bypass the DAOs can invalidate them.
+    private CachingIncomeSourceDao incomeSourceCache;
+    private CachingExpenseDao expenseCache;
+    // Set when metrics are enabled. They wrap the JDBC DAOs, so only calls that reach the
+    // database are timed; cache hits show up in the cache stats instead.
+    private DaoMetrics incomeSourceMetrics;
+    private DaoMetrics expenseMetrics;
+    // Set when writes are buffered.
+    private WriteBehindIncomeSourceDao incomeSourceWrites;
+    private WriteBehindExpenseDao expenseWrites;
+
+    public DataAccess() {
+        this(true);
+    }
+
+    /**
+     * @param bufferWrites whether income source and expense writes may be buffered and saved
+     *                     later; batch mode groups its own writes and needs each result at once
+     */
+    public DataAccess(boolean bufferWrites) {
+        budgetId = BUDGET_ID;
+        IncomeSourceDao databaseIncomeSourceDao;
+        ExpenseDao databaseExpenseDao;
+        if (FILE_STORAGE) {
+            dataSource = null;
+            openStores();
+            databaseIncomeSourceDao = new FileIncomeSourceDao(incomeSourceStore);
+            databaseExpenseDao = new FileExpenseDao(expenseStore);
+        } else {
+            dataSource = new ShardRouter(SHARDS, this::setupDataSource).getDataSource(budgetId);
+            databaseIncomeSourceDao = new JdbcIncomeSourceDao(dataSource, budgetId);
+            databaseExpenseDao = new JdbcExpenseDao(dataSource, budgetId);
+        }
+        if (!METRICS_DISABLED) {
+            InstrumentedIncomeSourceDao instrumentedIncomeSourceDao =
+                    new InstrumentedIncomeSourceDao(databaseIncomeSourceDao);
+            InstrumentedExpenseDao instrumentedExpenseDao = new InstrumentedExpenseDao(databaseExpenseDao);
+            incomeSourceMetrics = instrumentedIncomeSourceDao.getMetrics();
+            expenseMetrics = instrumentedExpenseDao.getMetrics();
+            databaseIncomeSourceDao = instrumentedIncomeSourceDao;
+            databaseExpenseDao = instrumentedExpenseDao;
+        }
+
+        // The file stores already answer every read from memory.
+        if (!CACHE_DISABLED && !FILE_STORAGE) {
+            incomeSourceCache = new CachingIncomeSourceDao(databaseIncomeSourceDao,
+                    CACHE_MAX_ENTRIES, CACHE_TTL_MILLIS);
+            expenseCache = new CachingExpenseDao(databaseExpenseDao,
+                    CACHE_MAX_ENTRIES, CACHE_TTL_MILLIS);
+            databaseIncomeSourceDao = incomeSourceCache;
+            databaseExpenseDao = expenseCache;
+        }
+
+        // Local file writes are already cheap, so only database writes are buffered.
+        if (bufferWrites && !WRITE_BEHIND_DISABLED && !FILE_STORAGE) {
+            TransactionTemplate transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            incomeSourceWrites = new WriteBehindIncomeSourceDao(databaseIncomeSourceDao, transactions,
+                    this::invalidateCaches, WRITE_BEHIND_MAX_PENDING);
+            expenseWrites = new WriteBehindExpenseDao(databaseExpenseDao, transactions,
+                    this::invalidateCaches, WRITE_BEHIND_MAX_PENDING);
+            incomeSourceDao = incomeSourceWrites;
+            expenseDao = expenseWrites;
+
+            maintenanceExecutor().scheduleWithFixedDelay(() -> {
+                incomeSourceWrites.flushInBackground();
+                expenseWrites.flushInBackground();
+            }, WRITE_BEHIND_FLUSH_MILLIS, WRITE_BEHIND_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+        } else {
+            incomeSourceDao = databaseIncomeSourceDao;
+            expenseDao = databaseExpenseDao;
+        }
+        if (FILE_STORAGE) {
+            budgetSummaryDao = new FileBudgetSummaryDao(incomeSourceStore, expenseStore);
+        } else {
+            budgetSummaryDao = new JdbcBudgetSummaryDao(dataSource, budgetId);
+        }
+        if (FILE_STORAGE) {
+            ledgerEntryDao = null;
+            ledgerRollupDao = null;
+            categoryDao = null;
+        } else {
+            ledgerEntryDao = new JdbcLedgerEntryDao(dataSource, budgetId);
+            ledgerRollupDao = new JdbcLedgerRollupDao(dataSource, budgetId);
+            categoryDao = new JdbcCategoryDao(dataSource, budgetId);
+        }
+
+        // A single shared connection cannot run two queries at once, so there is no point
+        // in more than one thread without a pool.
+        queryExecutor = Executors.newFixedThreadPool(connectionPool == null ? 1 : POOL_MAX_SIZE,
+                new QueryThreadFactory());
+        asyncIncomeSourceDao = new AsyncIncomeSourceDao(incomeSourceDao, queryExecutor);
+        asyncExpenseDao = new AsyncExpenseDao(expenseDao, queryExecutor);
+        asyncBudgetSummaryDao = new AsyncBudgetSummaryDao(budgetSummaryDao, queryExecutor);
+        asyncCategoryDao = new AsyncCategoryDao(categoryDao, queryExecutor);
+    }
+
+    /**
+     * @return the budget every DAO is scoped to
+     */
+    public int getBudgetId() {
+        return budgetId;
+    }
+
+    /**
+     * @return the database holding the budget, or null when storing to files
+     */
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public IncomeSourceDao getIncomeSourceDao() {
+        return incomeSourceDao;
+    }
+
+    public ExpenseDao getExpenseDao() {
+        return expenseDao;
+    }
+
+    public BudgetSummaryDao getBudgetSummaryDao() {
+        return budgetSummaryDao;
+    }
+
+    /**
+     * @return null when storing to files, as are the rollup and category DAOs
+     */
+    public LedgerEntryDao getLedgerEntryDao() {
+        return ledgerEntryDao;
+    }
+
+    public LedgerRollupDao getLedgerRollupDao() {
+        return ledgerRollupDao;
+    }
+
+    public CategoryDao getCategoryDao() {
+        return categoryDao;
+    }
+
+    public AsyncIncomeSourceDao getAsyncIncomeSourceDao() {
+        return asyncIncomeSourceDao;
+    }
+
+    public AsyncExpenseDao getAsyncExpenseDao() {
+        return asyncExpenseDao;
+    }
+
+    public AsyncBudgetSummaryDao getAsyncBudgetSummaryDao() {
+        return asyncBudgetSummaryDao;
+    }
+
+    public AsyncCategoryDao getAsyncCategoryDao() {
+        return asyncCategoryDao;
+    }
+
+    /**
+     * @return the cache in front of the income source DAO, or null when caching is disabled
+     */
+    public CachingIncomeSourceDao getIncomeSourceCache() {
+        return incomeSourceCache;
+    }
+
+    /**
+     * @return the cache in front of the expense DAO, or null when caching is disabled
+     */
+    public CachingExpenseDao getExpenseCache() {
+        return expenseCache;
+    }
+
+    /**
+     * Saves any buffered income source and expense writes. Call before reading totals or
+     * writing to the tables by other means.
+     *
+     * @throws DaoException when some writes could not be saved; the others are saved
+     */
+    public void flushWrites() {
+        if (incomeSourceWrites != null) {
+            incomeSourceWrites.flush();
+            expenseWrites.flush();
+        }
+    }
+
+    /**
+     * Drops cached income sources and expenses, after writes that bypassed the DAOs.
+     */
+    private void invalidateCaches() {
+        if (incomeSourceCache != null) {
+            incomeSourceCache.invalidate();
+        }
+        if (expenseCache != null) {
+            expenseCache.invalidate();
+        }
+    }
+
+    /**
+     * @return call metrics for the income source DAO, or null when metrics are disabled
+     */
+    public DaoMetrics getIncomeSourceMetrics() {
+        return incomeSourceMetrics;
+    }
+
+    /**
+     * @return call metrics for the expense DAO, or null when metrics are disabled
+     */
+    public DaoMetrics getExpenseMetrics() {
+        return expenseMetrics;
+    }
+
+    /**
+     * @return the connection pool, or null when pooling is disabled
+     */
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * @return a snapshot of statement stats and whichever DAO metrics, pool and cache stats are enabled
+     */
+    public DiagnosticsReport getDiagnostics() {
+        Map<String, List<MethodStats>> daoStats = new LinkedHashMap<>();
+        if (incomeSourceMetrics != null) {
+            daoStats.put(incomeSourceMetrics.getDaoName(), incomeSourceMetrics.getStats());
+        }
+        if (expenseMetrics != null) {
+            daoStats.put(expenseMetrics.getDaoName(), expenseMetrics.getStats());
+        }
+
+        List<StatementStats> statementStats = new ArrayList<>();
+        for (SqlStatement statement : SqlStatements.all()) {
+            StatementStats stats = statement.getStats();
+            if (stats.getExecutions() > 0) {
+                statementStats.add(stats);
+            }
+        }
+
+        Map<String, CacheStats> cacheStats = new LinkedHashMap<>();
+        if (incomeSourceCache != null) {
+            cacheStats.put("IncomeSourceDao", incomeSourceCache.getStats());
+        }
+        if (expenseCache != null) {
+            cacheStats.put("ExpenseDao", expenseCache.getStats());
+        }
+
+        return new DiagnosticsReport(daoStats, statementStats,
+                connectionPool == null ? null : connectionPool.getStats(), cacheStats);
+    }
+
+    public void resetMetrics() {
+        if (incomeSourceMetrics != null) {
+            incomeSourceMetrics.reset();
+        }
+        if (expenseMetrics != null) {
+            expenseMetrics.reset();
+        }
+        for (SqlStatement statement : SqlStatements.all()) {
+            statement.reset();
+        }
+    }
+
+    /**
+     * Saves any buffered writes before releasing the connections.
+     *
+     * @throws DaoException when some buffered writes could not be saved
+     */
+    @Override
+    public void close() {
+        try {
+            if (maintenanceExecutor != null) {
+                // Let a flush or compaction in progress finish rather than interrupting it.
+                maintenanceExecutor.shutdown();
+                try {
+                    maintenanceExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            flushWrites();
+        } finally {
+            queryExecutor.shutdownNow();
+            if (incomeSourceStore != null) {
+                incomeSourceStore.close();
+                expenseStore.close();
+            }
+            if (connectionPool != null) {
+                connectionPool.close();
+            } else if (dataSource instanceof SingleConnectionDataSource) {
+                ((SingleConnectionDataSource) dataSource).destroy();
+            }
+        }
+    }
+
+    private static class QueryThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        QueryThreadFactory() {
+            this("budget-query-");
+        }
+
+        QueryThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            // Never keep the JVM alive once the menus have exited.
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    private void openStores() {
+        // Other budgets get a directory each beside the default budget's logs.
+        Path directory = budgetId == BudgetSummaryDao.DEFAULT_BUDGET_ID
+                ? STORAGE_DIR
+                : STORAGE_DIR.resolve("budgets").resolve(Integer.toString(budgetId));
+        try {
+            Files.createDirectories(directory);
+            incomeSourceStore = LogStore.open(directory.resolve("income_source.log"));
+            expenseStore = LogStore.open(directory.resolve("expense.log"));
+        } catch (IOException e) {
+            throw new DaoException("Could not open storage in " + directory, e);
+        }
+
+        // Compaction holds a store's lock while it rewrites the file, so it runs off the
+        // menu thread and only once a store is mostly dead records.
+        maintenanceExecutor().scheduleWithFixedDelay(() -> {
+            try {
+                incomeSourceStore.compactIfWorthwhile();
+                expenseStore.compactIfWorthwhile();
+            } catch (DaoException e) {
+                // Leaves the log as it was; the next run tries again.
+            }
+        }, COMPACTION_INTERVAL_SECONDS, COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private ScheduledExecutorService maintenanceExecutor() {
+        if (maintenanceExecutor == null) {
+            maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(
+                    new QueryThreadFactory("budget-maintenance-"));
+        }
+        return maintenanceExecutor;
+    }
+
+    private DataSource setupDataSource(String databaseName) {
+        String url = "jdbc:postgresql://localhost:5432/" + databaseName;
+
+        if (POOL_DISABLED) {
+            SingleConnectionDataSource dataSource = new SingleConnectionDataSource();
+            dataSource.setUrl(url);
+            dataSource.setUsername(DB_USER);
+            dataSource.setPassword(DB_PASSWORD);
+            return dataSource;
+        }
+
+        connectionPool = new ConnectionPool(url, DB_USER, DB_PASSWORD, POOL_MIN_SIZE, POOL_MAX_SIZE);
+        connectionPool.warmUp();
+        return connectionPool.getDataSource();
+    }
+}
@@ -0,0 +1,188 @@
+package dev.bandurski.batch;
+
+import dev.bandurski.model.Money;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One parsed line of a batch script.
+ */
+class BatchCommand {
+
+    enum Operation {
+        ADD,
+        UPDATE,
+        DELETE,
+        SUMMARY
+    }
+
+    enum Target {
+        EXPENSE,
+        INCOME
+    }
+
+    private final int lineNumber;
+    private final Operation operation;
+    private final Target target;
+    private final int id;
+    private final String name;
+    private final BigDecimal amount;
+
+    private BatchCommand(int lineNumber, Operation operation, Target target, int id,
+                         String name, BigDecimal amount) {
+        this.lineNumber = lineNumber;
+        this.operation = operation;
+        this.target = target;
+        this.id = id;
+        this.name = name;
+        this.amount = amount;
+    }
+
+    /**
+     * Parses a line such as {@code add expense "Car Payment" 244.44}.
+     *
+     * @throws IllegalArgumentException when the line is not a valid command
+     */
+    static BatchCommand parse(int lineNumber, String line) {
+        List<String> tokens = tokenize(line);
+        Operation operation = parseEnum(Operation.class, tokens.get(0), "command");
+
+        if (operation == Operation.SUMMARY) {
+            expectTokens(tokens, 1, "summary");
+            return new BatchCommand(lineNumber, operation, null, 0, null, null);
+        }
+
+        if (tokens.size() < 2) {
+            throw new IllegalArgumentException("Missing expense or income after " + tokens.get(0));
+        }
+        Target target = parseEnum(Target.class, tokens.get(1), "type");
+
+        switch (operation) {
+            case ADD:
+                expectTokens(tokens, 4, "add <type> <name> <amount>");
+                return new BatchCommand(lineNumber, operation, target, 0,
+                        parseName(tokens.get(2)), parseAmount(tokens.get(3)));
+            case UPDATE:
+                expectTokens(tokens, 5, "update <type> <id> <name> <amount>");
+                return new BatchCommand(lineNumber, operation, target, parseId(tokens.get(2)),
+                        parseName(tokens.get(3)), parseAmount(tokens.get(4)));
+            default:
+                expectTokens(tokens, 3, "delete <type> <id>");
+                return new BatchCommand(lineNumber, operation, target, parseId(tokens.get(2)),
+                        null, null);
+        }
+    }
+
+    /**
+     * @return true when both commands can be applied by the same bulk DAO call
+     */
+    boolean canBatchWith(BatchCommand other) {
+        return operation != Operation.SUMMARY && operation == other.operation && target == other.target;
+    }
+
+    int getLineNumber() {
+        return lineNumber;
+    }
+
+    Operation getOperation() {
+        return operation;
+    }
+
+    Target getTarget() {
+        return target;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    BigDecimal getAmount() {
+        return amount;
+    }
+
+    /**
+     * Splits on whitespace. Tokens may be wrapped in double quotes to include spaces,
+     * with {@code ""} standing for a literal quote.
+     */
+    private static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                StringBuilder token = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= line.length()) {
+                        throw new IllegalArgumentException("Unterminated quoted value");
+                    }
+                    char q = line.charAt(i++);
+                    if (q != '"') {
+                        token.append(q);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        token.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                tokens.add(token.toString());
+            } else {
+                int start = i;
+                while (i < line.length() && !Character.isWhitespace(line.charAt(i))) {
+                    i++;
+                }
+                tokens.add(line.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String token, String description) {
+        for (E value : type.getEnumConstants()) {
+            if (value.name().equalsIgnoreCase(token)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Unknown " + description + " '" + token + "'");
+    }
+
+    private static void expectTokens(List<String> tokens, int count, String usage) {
+        if (tokens.size() != count) {
+            throw new IllegalArgumentException("Expected: " + usage);
+        }
+    }
+
+    private static int parseId(String token) {
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid id '" + token + "'");
+        }
+    }
+
+    private static String parseName(String token) {
+        if (token.isBlank()) {
+            throw new IllegalArgumentException("Name must not be blank");
+        }
+        return token;
+    }
+
+    private static BigDecimal parseAmount(String token) {
+        try {
+            BigDecimal amount = new BigDecimal(token);
+            Money.toCents(amount);
+            return amount;
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid amount '" + token + "'");
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package dev.bandurski.batch;
+
+public class BatchResult {
+    private final long commands;
+    private final long failures;
+    private final long batches;
+
+    public BatchResult(long commands, long failures, long batches) {
+        this.commands = commands;
+        this.failures = failures;
+        this.batches = batches;
+    }
+
+    public long getCommands() {
+        return commands;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Number of DAO calls used to apply the writes in the script.
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "commands=" + commands +
+                ", failures=" + failures +
+                ", batches=" + batches +
+                '}';
+    }
+}
@@ -0,0 +1,311 @@
+package dev.bandurski.batch;
+
+import dev.bandurski.dao.BudgetSummaryDao;
+import dev.bandurski.dao.ExpenseDao;
+import dev.bandurski.dao.IncomeSourceDao;
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.exception.MissingRowsException;
+import dev.bandurski.model.BudgetSummary;
+import dev.bandurski.model.Expense;
+import dev.bandurski.model.IncomeSource;
+import dev.bandurski.util.BasicConsole;
+import dev.bandurski.util.Json;
+import org.springframework.dao.DataAccessException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Runs a script of budget commands without prompting, one command per line:
+ * <pre>
+ * # comments and blank lines are ignored
+ * add expense "Car Payment" 244.44
+ * update income 2 Salary 5100.00
+ * delete expense 3
+ * summary
+ * </pre>
+ * Consecutive commands of the same kind are applied with a single bulk DAO call, so each
+ * run of writes is one statement and one transaction. A failed batch fails every command
+ * in it; the rest of the script still runs.
+ * <p>
+ * One JSON object is written per command, in script order, with its line number, status,
+ * and the id of the affected row or the summary totals. An update or delete of an id that
+ * does not exist is reported with status {@code not_found}; it counts as a failure but does
+ * not fail the rest of its batch. Deletes learn which rows they removed from the delete
+ * itself; an update batch with missing ids is sent again without them.
+ * <p>
+ * Updates are sent with version 0, which skips the concurrency check entirely: a script
+ * overwrites the row whatever another client saved since, and never gets a conflict.
+ */
+public class BatchRunner {
+
+    private static final int MAX_BATCH_SIZE = 1000;
+    // Serial ids start at 1, so 0 marks an update or delete whose row was not found.
+    private static final int NOT_FOUND = 0;
+
+    private final BasicConsole console;
+    private final IncomeSourceDao incomeSourceDao;
+    private final ExpenseDao expenseDao;
+    private final BudgetSummaryDao budgetSummaryDao;
+
+    private final List<BatchCommand> pending = new ArrayList<>();
+    private final Set<Integer> pendingIds = new HashSet<>();
+    private long commands;
+    private long failures;
+    private long batches;
+
+    public BatchRunner(BasicConsole console, IncomeSourceDao incomeSourceDao, ExpenseDao expenseDao,
+                       BudgetSummaryDao budgetSummaryDao) {
+        this.console = console;
+        this.incomeSourceDao = incomeSourceDao;
+        this.expenseDao = expenseDao;
+        this.budgetSummaryDao = budgetSummaryDao;
+    }
+
+    public BatchResult run(Path script, Writer results) throws IOException {
+        long start = System.nanoTime();
+        commands = 0;
+        failures = 0;
+        batches = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(script, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                commands++;
+                BatchCommand command;
+                try {
+                    command = BatchCommand.parse(lineNumber, line);
+                } catch (IllegalArgumentException e) {
+                    applyPending(results);
+                    writeError(results, lineNumber, e.getMessage());
+                    continue;
+                }
+
+                if (!pending.isEmpty() && (!pending.get(0).canBatchWith(command)
+                        || (command.getOperation() != BatchCommand.Operation.ADD
+                        && pendingIds.contains(command.getId())))) {
+                    applyPending(results);
+                }
+
+                if (command.getOperation() == BatchCommand.Operation.SUMMARY) {
+                    summary(results, command);
+                } else {
+                    pending.add(command);
+                    pendingIds.add(command.getId());
+                    if (pending.size() >= MAX_BATCH_SIZE) {
+                        applyPending(results);
+                    }
+                }
+            }
+            applyPending(results);
+        } finally {
+            results.flush();
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        console.printMessage("Ran " + commands + " commands in " + batches + " batches, " +
+                failures + " failed, in " + elapsedMillis + " ms.");
+        return new BatchResult(commands, failures, batches);
+    }
+
+    private void summary(Writer results, BatchCommand command) throws IOException {
+        BudgetSummary summary;
+        try {
+            summary = budgetSummaryDao.getBudgetSummary();
+        } catch (DaoException | DataAccessException e) {
+            writeError(results, command.getLineNumber(), e.getMessage());
+            return;
+        }
+
+        results.write("{\"line\":" + command.getLineNumber() +
+                ",\"command\":\"summary\",\"status\":\"ok\"" +
+                ",\"incomeTotal\":" + summary.getIncomeTotal().toPlainString() +
+                ",\"incomeCount\":" + summary.getIncomeCount() +
+                ",\"expenseTotal\":" + summary.getExpenseTotal().toPlainString() +
+                ",\"expenseCount\":" + summary.getExpenseCount() +
+                ",\"netIncome\":" + summary.getNetIncome().toPlainString() + "}\n");
+    }
+
+    private void applyPending(Writer results) throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        BatchCommand first = pending.get(0);
+        int[] ids;
+        try {
+            batches++;
+            if (first.getTarget() == BatchCommand.Target.EXPENSE) {
+                ids = applyExpenses(first.getOperation());
+            } else {
+                ids = applyIncomeSources(first.getOperation());
+            }
+        } catch (DaoException | DataAccessException e) {
+            // Any database error fails the batch, not the rest of the script.
+            console.printErrorMessage("Batch starting on line " + first.getLineNumber() +
+                    " failed - " + e.getMessage());
+            for (BatchCommand command : pending) {
+                writeError(results, command.getLineNumber(), e.getMessage());
+            }
+            clearPending();
+            return;
+        }
+
+        String operation = first.getOperation().name().toLowerCase();
+        String target = first.getTarget().name().toLowerCase();
+        for (int i = 0; i < pending.size(); i++) {
+            String status = "ok";
+            int id = ids[i];
+            if (id == NOT_FOUND) {
+                failures++;
+                status = "not_found";
+                id = pending.get(i).getId();
+            }
+            results.write("{\"line\":" + pending.get(i).getLineNumber() +
+                    ",\"command\":\"" + operation + "\",\"type\":\"" + target +
+                    "\",\"status\":\"" + status + "\",\"id\":" + id + "}\n");
+        }
+        clearPending();
+    }
+
+    private int[] applyExpenses(BatchCommand.Operation operation) {
+        int[] ids = pendingIdArray();
+
+        if (operation == BatchCommand.Operation.DELETE) {
+            markNotFound(ids, expenseDao.deleteExpensesByIds(ids));
+            return ids;
+        }
+
+        List<Expense> expenses = new ArrayList<>(pending.size());
+        for (BatchCommand command : pending) {
+            Expense expense = new Expense();
+            expense.setExpenseId(command.getId());
+            expense.setName(command.getName());
+            expense.setAmount(command.getAmount());
+            expenses.add(expense);
+        }
+
+        if (operation == BatchCommand.Operation.UPDATE) {
+            updateExisting(expenses, ids, expenseDao::updateExpenses);
+            return ids;
+        }
+
+        List<Expense> created = expenseDao.createExpenses(expenses);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = created.get(i).getExpenseId();
+        }
+        return ids;
+    }
+
+    private int[] applyIncomeSources(BatchCommand.Operation operation) {
+        int[] ids = pendingIdArray();
+
+        if (operation == BatchCommand.Operation.DELETE) {
+            markNotFound(ids, incomeSourceDao.deleteIncomeSourcesByIds(ids));
+            return ids;
+        }
+
+        List<IncomeSource> incomeSources = new ArrayList<>(pending.size());
+        for (BatchCommand command : pending) {
+            IncomeSource incomeSource = new IncomeSource();
+            incomeSource.setIncomeSourceId(command.getId());
+            incomeSource.setName(command.getName());
+            incomeSource.setAmount(command.getAmount());
+            incomeSources.add(incomeSource);
+        }
+
+        if (operation == BatchCommand.Operation.UPDATE) {
+            updateExisting(incomeSources, ids, incomeSourceDao::updateIncomeSources);
+            return ids;
+        }
+
+        List<IncomeSource> created = incomeSourceDao.createIncomeSources(incomeSources);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = created.get(i).getIncomeSourceId();
+        }
+        return ids;
+    }
+
+    private int[] pendingIdArray() {
+        int[] ids = new int[pending.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = pending.get(i).getId();
+        }
+        return ids;
+    }
+
+    /**
+     * Marks the ids that are not among {@code foundIds} as {@link #NOT_FOUND}.
+     */
+    private static void markNotFound(int[] ids, int[] foundIds) {
+        Set<Integer> found = new HashSet<>();
+        for (int id : foundIds) {
+            found.add(id);
+        }
+        for (int i = 0; i < ids.length; i++) {
+            if (!found.contains(ids[i])) {
+                ids[i] = NOT_FOUND;
+            }
+        }
+    }
+
+    /**
+     * Updates the rows of a batch that exist and marks the rest {@link #NOT_FOUND}. A bulk
+     * update that names a missing row changes nothing, so it is sent again without the rows
+     * it reported missing; that also catches a row deleted between the two statements.
+     */
+    private static <T> void updateExisting(List<T> rows, int[] ids, Consumer<List<T>> update) {
+        List<T> remaining = rows;
+        while (!remaining.isEmpty()) {
+            try {
+                update.accept(remaining);
+                return;
+            } catch (MissingRowsException e) {
+                Set<Integer> missing = new HashSet<>();
+                for (int id : e.getMissingIds()) {
+                    missing.add(id);
+                }
+
+                List<T> existing = new ArrayList<>(remaining.size());
+                for (int i = 0; i < rows.size(); i++) {
+                    if (missing.contains(ids[i])) {
+                        ids[i] = NOT_FOUND;
+                    } else if (ids[i] != NOT_FOUND) {
+                        existing.add(rows.get(i));
+                    }
+                }
+                if (existing.size() == remaining.size()) {
+                    throw e;
+                }
+                remaining = existing;
+            }
+        }
+    }
+
+    private void clearPending() {
+        pending.clear();
+        pendingIds.clear();
+    }
+
+    private void writeError(Writer results, int lineNumber, String message) throws IOException {
+        failures++;
+        results.write("{\"line\":" + lineNumber + ",\"status\":\"error\",\"message\":" +
+                Json.quote(String.valueOf(message)) + "}\n");
+    }
+}
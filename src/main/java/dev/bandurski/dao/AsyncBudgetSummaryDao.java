@@ -0,0 +1,24 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.BudgetSummary;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs another {@link BudgetSummaryDao} on an executor so it can overlap with other queries.
+ */
+public class AsyncBudgetSummaryDao {
+
+    private final BudgetSummaryDao delegate;
+    private final Executor executor;
+
+    public AsyncBudgetSummaryDao(BudgetSummaryDao delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<BudgetSummary> getBudgetSummary() {
+        return CompletableFuture.supplyAsync(delegate::getBudgetSummary, executor);
+    }
+}
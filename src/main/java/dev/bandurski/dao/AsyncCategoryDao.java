@@ -0,0 +1,25 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.CategoryTotal;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs another {@link CategoryDao} on an executor so it can overlap with other queries.
+ */
+public class AsyncCategoryDao {
+
+    private final CategoryDao delegate;
+    private final Executor executor;
+
+    public AsyncCategoryDao(CategoryDao delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<List<CategoryTotal>> getCategoryTotals() {
+        return CompletableFuture.supplyAsync(delegate::getCategoryTotals, executor);
+    }
+}
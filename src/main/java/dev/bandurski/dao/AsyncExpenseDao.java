@@ -0,0 +1,37 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.Expense;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs reads of another {@link ExpenseDao} on an executor so they can overlap with other
+ * queries. Each call borrows its own connection, so with a connection pool the queries
+ * really do run side by side.
+ */
+public class AsyncExpenseDao {
+
+    private final ExpenseDao delegate;
+    private final Executor executor;
+
+    public AsyncExpenseDao(ExpenseDao delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<List<Expense>> getExpenses() {
+        return CompletableFuture.supplyAsync(delegate::getExpenses, executor);
+    }
+
+    public CompletableFuture<List<Expense>> getExpensesPage(BigDecimal afterAmount, int afterId, int limit) {
+        return CompletableFuture.supplyAsync(
+                () -> delegate.getExpensesPage(afterAmount, afterId, limit), executor);
+    }
+
+    public CompletableFuture<Expense> getExpenseById(int expenseId) {
+        return CompletableFuture.supplyAsync(() -> delegate.getExpenseById(expenseId), executor);
+    }
+}
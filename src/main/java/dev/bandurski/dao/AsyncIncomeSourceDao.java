@@ -0,0 +1,38 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.IncomeSource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs reads of another {@link IncomeSourceDao} on an executor so they can overlap with
+ * other queries. Each call borrows its own connection, so with a connection pool the
+ * queries really do run side by side.
+ */
+public class AsyncIncomeSourceDao {
+
+    private final IncomeSourceDao delegate;
+    private final Executor executor;
+
+    public AsyncIncomeSourceDao(IncomeSourceDao delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<List<IncomeSource>> getIncomeSources() {
+        return CompletableFuture.supplyAsync(delegate::getIncomeSources, executor);
+    }
+
+    public CompletableFuture<List<IncomeSource>> getIncomeSourcesPage(BigDecimal afterAmount, int afterId,
+                                                                      int limit) {
+        return CompletableFuture.supplyAsync(
+                () -> delegate.getIncomeSourcesPage(afterAmount, afterId, limit), executor);
+    }
+
+    public CompletableFuture<IncomeSource> getIncomeSourceById(int incomeSourceId) {
+        return CompletableFuture.supplyAsync(() -> delegate.getIncomeSourceById(incomeSourceId), executor);
+    }
+}
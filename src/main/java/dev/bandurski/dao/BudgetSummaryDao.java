@@ -0,0 +1,13 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.BudgetSummary;
+
+public interface BudgetSummaryDao {
+
+    /**
+     * The budget the schema seeds, and the only one the ledger and categories cover.
+     */
+    int DEFAULT_BUDGET_ID = 1;
+
+    BudgetSummary getBudgetSummary();
+}
@@ -0,0 +1,112 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.Expense;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache in front of another {@link ExpenseDao}.
+ * <p>
+ * Listings and lookups by id are served from memory until they expire or a write
+ * through this DAO invalidates them. Returned {@code Expense} objects are shared with
+ * the cache and must not be modified by callers.
+ */
+public class CachingExpenseDao implements ExpenseDao {
+
+    private final ExpenseDao delegate;
+    private final DaoCache<Expense> cache;
+
+    public CachingExpenseDao(ExpenseDao delegate, int maxEntries, long ttlMillis) {
+        this.delegate = delegate;
+        this.cache = new DaoCache<>(maxEntries, ttlMillis, Expense::getExpenseId);
+    }
+
+    @Override
+    public List<Expense> getExpenses() {
+        return cache.getAll(delegate::getExpenses);
+    }
+
+    @Override
+    public List<Expense> getExpensesPage(BigDecimal afterAmount, int afterId, int limit) {
+        return delegate.getExpensesPage(afterAmount, afterId, limit);
+    }
+
+    @Override
+    public void forEachExpense(Consumer<Expense> action) {
+        List<Expense> cached = cache.peekAll();
+        if (cached != null) {
+            cached.forEach(action);
+        } else {
+            delegate.forEachExpense(action);
+        }
+    }
+
+    @Override
+    public Expense getExpenseById(int expenseId) {
+        return cache.getById(expenseId, delegate::getExpenseById);
+    }
+
+    @Override
+    public Expense createExpense(Expense expense) {
+        Expense newExpense = delegate.createExpense(expense);
+        cache.put(newExpense);
+        return newExpense;
+    }
+
+    @Override
+    public Expense updateExpense(Expense expense) {
+        try {
+            Expense updatedExpense = delegate.updateExpense(expense);
+            cache.put(updatedExpense);
+            return updatedExpense;
+        } catch (RuntimeException e) {
+            cache.remove(expense.getExpenseId());
+            throw e;
+        }
+    }
+
+    @Override
+    public int deleteExpenseById(int expenseId) {
+        int rowsAffected = delegate.deleteExpenseById(expenseId);
+        cache.remove(expenseId);
+        return rowsAffected;
+    }
+
+    @Override
+    public List<Expense> createExpenses(List<Expense> expenses) {
+        List<Expense> newExpenses = delegate.createExpenses(expenses);
+        newExpenses.forEach(cache::put);
+        return newExpenses;
+    }
+
+    @Override
+    public List<Expense> updateExpenses(List<Expense> expenses) {
+        try {
+            List<Expense> updatedExpenses = delegate.updateExpenses(expenses);
+            updatedExpenses.forEach(cache::put);
+            return updatedExpenses;
+        } catch (RuntimeException e) {
+            cache.invalidateAll();
+            throw e;
+        }
+    }
+
+    @Override
+    public int[] deleteExpensesByIds(int[] expenseIds) {
+        int[] deletedIds = delegate.deleteExpensesByIds(expenseIds);
+        for (int expenseId : expenseIds) {
+            cache.remove(expenseId);
+        }
+        return deletedIds;
+    }
+
+    public void invalidate() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return cache.getStats();
+    }
+}
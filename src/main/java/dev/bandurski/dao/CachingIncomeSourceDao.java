@@ -0,0 +1,112 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.IncomeSource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache in front of another {@link IncomeSourceDao}.
+ * <p>
+ * Listings and lookups by id are served from memory until they expire or a write
+ * through this DAO invalidates them. Returned {@code IncomeSource} objects are shared with
+ * the cache and must not be modified by callers.
+ */
+public class CachingIncomeSourceDao implements IncomeSourceDao {
+
+    private final IncomeSourceDao delegate;
+    private final DaoCache<IncomeSource> cache;
+
+    public CachingIncomeSourceDao(IncomeSourceDao delegate, int maxEntries, long ttlMillis) {
+        this.delegate = delegate;
+        this.cache = new DaoCache<>(maxEntries, ttlMillis, IncomeSource::getIncomeSourceId);
+    }
+
+    @Override
+    public List<IncomeSource> getIncomeSources() {
+        return cache.getAll(delegate::getIncomeSources);
+    }
+
+    @Override
+    public List<IncomeSource> getIncomeSourcesPage(BigDecimal afterAmount, int afterId, int limit) {
+        return delegate.getIncomeSourcesPage(afterAmount, afterId, limit);
+    }
+
+    @Override
+    public void forEachIncomeSource(Consumer<IncomeSource> action) {
+        List<IncomeSource> cached = cache.peekAll();
+        if (cached != null) {
+            cached.forEach(action);
+        } else {
+            delegate.forEachIncomeSource(action);
+        }
+    }
+
+    @Override
+    public IncomeSource getIncomeSourceById(int incomeSourceId) {
+        return cache.getById(incomeSourceId, delegate::getIncomeSourceById);
+    }
+
+    @Override
+    public IncomeSource createIncomeSource(IncomeSource incomeSource) {
+        IncomeSource newIncomeSource = delegate.createIncomeSource(incomeSource);
+        cache.put(newIncomeSource);
+        return newIncomeSource;
+    }
+
+    @Override
+    public IncomeSource updateIncomeSource(IncomeSource incomeSource) {
+        try {
+            IncomeSource updatedIncomeSource = delegate.updateIncomeSource(incomeSource);
+            cache.put(updatedIncomeSource);
+            return updatedIncomeSource;
+        } catch (RuntimeException e) {
+            cache.remove(incomeSource.getIncomeSourceId());
+            throw e;
+        }
+    }
+
+    @Override
+    public int deleteIncomeSourceById(int incomeSourceId) {
+        int rowsAffected = delegate.deleteIncomeSourceById(incomeSourceId);
+        cache.remove(incomeSourceId);
+        return rowsAffected;
+    }
+
+    @Override
+    public List<IncomeSource> createIncomeSources(List<IncomeSource> incomeSources) {
+        List<IncomeSource> newIncomeSources = delegate.createIncomeSources(incomeSources);
+        newIncomeSources.forEach(cache::put);
+        return newIncomeSources;
+    }
+
+    @Override
+    public List<IncomeSource> updateIncomeSources(List<IncomeSource> incomeSources) {
+        try {
+            List<IncomeSource> updatedIncomeSources = delegate.updateIncomeSources(incomeSources);
+            updatedIncomeSources.forEach(cache::put);
+            return updatedIncomeSources;
+        } catch (RuntimeException e) {
+            cache.invalidateAll();
+            throw e;
+        }
+    }
+
+    @Override
+    public int[] deleteIncomeSourcesByIds(int[] incomeSourceIds) {
+        int[] deletedIds = delegate.deleteIncomeSourcesByIds(incomeSourceIds);
+        for (int incomeSourceId : incomeSourceIds) {
+            cache.remove(incomeSourceId);
+        }
+        return deletedIds;
+    }
+
+    public void invalidate() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return cache.getStats();
+    }
+}
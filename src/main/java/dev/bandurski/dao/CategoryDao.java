@@ -0,0 +1,14 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.Category;
+import dev.bandurski.model.CategoryTotal;
+
+import java.util.List;
+
+public interface CategoryDao {
+    List<Category> getCategories();
+    Category createCategory(Category category);
+    int setIncomeSourceCategory(int incomeSourceId, Integer categoryId);
+    int setExpenseCategory(int expenseId, Integer categoryId);
+    List<CategoryTotal> getCategoryTotals();
+}
@@ -0,0 +1,148 @@
+package dev.bandurski.dao;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Cache shared by the caching DAOs: the full ordered listing plus a bounded,
+ * least recently used map of rows by id. Both expire after the configured TTL.
+ * <p>
+ * Misses are loaded without holding the cache's lock, so one slow query does not hold up
+ * readers of rows that are cached. A load that overlaps a write is returned but not cached,
+ * since it may predate the write.
+ */
+class DaoCache<T> {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final ToIntFunction<T> idOf;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private List<T> all;
+    private long allLoadedAt;
+    // Bumped by every write, so a load that started before it is not cached.
+    private long generation;
+    private final Map<Integer, CacheEntry<T>> byId;
+
+    DaoCache(int maxEntries, long ttlMillis, ToIntFunction<T> idOf) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.idOf = idOf;
+        this.byId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CacheEntry<T>> eldest) {
+                if (size() > DaoCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    List<T> getAll(Supplier<List<T>> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            if (all != null && !isExpired(allLoadedAt)) {
+                hits.increment();
+                return all;
+            }
+            misses.increment();
+            loadGeneration = generation;
+        }
+
+        List<T> loaded = Collections.unmodifiableList(loader.get());
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                all = loaded;
+                allLoadedAt = System.nanoTime();
+                for (T value : loaded) {
+                    byId.put(idOf.applyAsInt(value), new CacheEntry<>(value, allLoadedAt));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the cached listing, or null if it is not loaded or has expired.
+     */
+    synchronized List<T> peekAll() {
+        return all != null && !isExpired(allLoadedAt) ? all : null;
+    }
+
+    T getById(int id, IntFunction<T> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            CacheEntry<T> entry = byId.get(id);
+            if (entry != null && !isExpired(entry.loadedAt)) {
+                hits.increment();
+                return entry.value;
+            }
+            misses.increment();
+            loadGeneration = generation;
+        }
+
+        T value = loader.apply(id);
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                if (value == null) {
+                    byId.remove(id);
+                } else {
+                    byId.put(id, new CacheEntry<>(value, System.nanoTime()));
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Records a row that was just written. The listing is dropped because its order may have changed.
+     */
+    synchronized void put(T value) {
+        generation++;
+        all = null;
+        if (value != null) {
+            byId.put(idOf.applyAsInt(value), new CacheEntry<>(value, System.nanoTime()));
+        }
+    }
+
+    synchronized void remove(int id) {
+        generation++;
+        all = null;
+        byId.remove(id);
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        all = null;
+        byId.clear();
+    }
+
+    synchronized CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), byId.size());
+    }
+
+    private boolean isExpired(long loadedAt) {
+        return System.nanoTime() - loadedAt > ttlNanos;
+    }
+
+    private static class CacheEntry<T> {
+        private final T value;
+        private final long loadedAt;
+
+        private CacheEntry(T value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.metrics.MethodMetrics;
+
+import java.util.function.Supplier;
+
+/**
+ * Times calls for the instrumented DAOs: each call is counted with its latency, and a call
+ * that throws is also counted under its cause before the exception is rethrown.
+ */
+final class DaoTimer {
+
+    private DaoTimer() {
+    }
+
+    static <R> R time(MethodMetrics method, Supplier<R> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            method.recordError(e);
+            throw e;
+        } finally {
+            method.record(System.nanoTime() - start);
+        }
+    }
+
+    static void run(MethodMetrics method, Runnable call) {
+        time(method, () -> {
+            call.run();
+            return null;
+        });
+    }
+}
@@ -2,12 +2,29 @@ package dev.bandurski.dao;
 
 import dev.bandurski.model.Expense;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ExpenseDao {
     List<Expense> getExpenses();
+    List<Expense> getExpensesPage(BigDecimal afterAmount, int afterId, int limit);
     Expense getExpenseById(int expenseId);
     Expense createExpense(Expense expense);
     Expense updateExpense(Expense expense);
     int deleteExpenseById(int expenseId);
+    List<Expense> createExpenses(List<Expense> expenses);
+    /**
+     * Updates every row or, when any of them is missing or has moved on to another version,
+     * none of them.
+     *
+     * @throws dev.bandurski.exception.MissingRowsException when some ids do not exist
+     * @throws dev.bandurski.exception.UpdateConflictException when a row has moved on
+     */
+    List<Expense> updateExpenses(List<Expense> expenses);
+    /**
+     * @return the ids of the rows deleted; ids that did not exist are left out
+     */
+    int[] deleteExpensesByIds(int[] expenseIds);
+    void forEachExpense(Consumer<Expense> action);
 }
@@ -0,0 +1,35 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.BudgetSummary;
+import dev.bandurski.model.Money;
+import dev.bandurski.storage.LogStore;
+
+/**
+ * Reads the running totals that the income source and expense {@link LogStore}s keep as
+ * records change.
+ */
+public class FileBudgetSummaryDao implements BudgetSummaryDao {
+
+    private final LogStore incomeSourceStore;
+    private final LogStore expenseStore;
+
+    public FileBudgetSummaryDao(LogStore incomeSourceStore, LogStore expenseStore) {
+        this.incomeSourceStore = incomeSourceStore;
+        this.expenseStore = expenseStore;
+    }
+
+    @Override
+    public BudgetSummary getBudgetSummary() {
+        long incomeCents = incomeSourceStore.getTotalCents();
+        long expenseCents = expenseStore.getTotalCents();
+
+        BudgetSummary summary = new BudgetSummary();
+        summary.setIncomeTotal(Money.toBigDecimal(incomeCents));
+        summary.setIncomeCount(incomeSourceStore.size());
+        summary.setExpenseTotal(Money.toBigDecimal(expenseCents));
+        summary.setExpenseCount(expenseStore.size());
+        summary.setNetIncome(Money.toBigDecimal(Money.subtract(incomeCents, expenseCents)));
+
+        return summary;
+    }
+}
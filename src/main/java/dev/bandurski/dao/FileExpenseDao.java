@@ -0,0 +1,140 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.exception.MissingRowsException;
+import dev.bandurski.model.Expense;
+import dev.bandurski.model.Money;
+import dev.bandurski.storage.LogRecord;
+import dev.bandurski.storage.LogStore;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keeps expenses in a local {@link LogStore} instead of the database, so reads never leave
+ * the process. Listings and pages come back in the same order as {@link JdbcExpenseDao}.
+ */
+public class FileExpenseDao implements ExpenseDao {
+
+    private final LogStore store;
+
+    public FileExpenseDao(LogStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public List<Expense> getExpenses() {
+        return toExpenses(store.list());
+    }
+
+    @Override
+    public List<Expense> getExpensesPage(BigDecimal afterAmount, int afterId, int limit) {
+        return toExpenses(store.page(afterAmount == null ? null : Money.toCents(afterAmount), afterId, limit));
+    }
+
+    @Override
+    public Expense getExpenseById(int expenseId) {
+        LogRecord record = store.get(expenseId);
+        return record == null ? null : toExpense(record);
+    }
+
+    @Override
+    public Expense createExpense(Expense expense) {
+        return toExpense(store.insert(List.of(toRecord(expense))).get(0));
+    }
+
+    @Override
+    public Expense updateExpense(Expense expense) {
+        List<LogRecord> updated = store.update(List.of(toRecord(expense)));
+
+        if (updated.isEmpty()) {
+            throw new DaoException("Zero rows affected, expected at least one");
+        }
+
+        return toExpense(updated.get(0));
+    }
+
+    @Override
+    public int deleteExpenseById(int expenseId) {
+        return store.delete(new int[]{expenseId}).length;
+    }
+
+    @Override
+    public List<Expense> createExpenses(List<Expense> expenses) {
+        if (expenses.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        return toExpenses(store.insert(toRecords(expenses)));
+    }
+
+    @Override
+    public List<Expense> updateExpenses(List<Expense> expenses) {
+        if (expenses.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<LogRecord> updated = store.update(toRecords(expenses));
+
+        if (updated.size() < expenses.size()) {
+            int[] missingIds = expenses.stream().mapToInt(Expense::getExpenseId)
+                    .filter(id -> store.get(id) == null).toArray();
+            if (missingIds.length > 0) {
+                throw new MissingRowsException("Expenses not found: " + Arrays.toString(missingIds), missingIds);
+            }
+            throw new DaoException("Expected " + expenses.size() + " rows to be affected, " +
+                    "but " + updated.size() + " were found");
+        }
+
+        return toExpenses(updated);
+    }
+
+    @Override
+    public int[] deleteExpensesByIds(int[] expenseIds) {
+        if (expenseIds.length == 0) {
+            return new int[0];
+        }
+
+        return store.delete(expenseIds);
+    }
+
+    @Override
+    public void forEachExpense(Consumer<Expense> action) {
+        for (LogRecord record : store.list()) {
+            action.accept(toExpense(record));
+        }
+    }
+
+    private static LogRecord toRecord(Expense expense) {
+        return new LogRecord(expense.getExpenseId(), expense.getName(), expense.getAmountCents(),
+                expense.getVersion());
+    }
+
+    private static List<LogRecord> toRecords(List<Expense> expenses) {
+        List<LogRecord> records = new ArrayList<>(expenses.size());
+        for (Expense expense : expenses) {
+            records.add(toRecord(expense));
+        }
+        return records;
+    }
+
+    private static Expense toExpense(LogRecord record) {
+        Expense expense = new Expense();
+        expense.setExpenseId(record.getId());
+        expense.setName(record.getName());
+        expense.setAmountCents(record.getAmountCents());
+        expense.setVersion(record.getVersion());
+        return expense;
+    }
+
+    private static List<Expense> toExpenses(List<LogRecord> records) {
+        List<Expense> expenses = new ArrayList<>(records.size());
+        for (LogRecord record : records) {
+            expenses.add(toExpense(record));
+        }
+        return expenses;
+    }
+}
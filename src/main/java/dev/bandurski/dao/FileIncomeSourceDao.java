@@ -0,0 +1,140 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.exception.MissingRowsException;
+import dev.bandurski.model.IncomeSource;
+import dev.bandurski.model.Money;
+import dev.bandurski.storage.LogRecord;
+import dev.bandurski.storage.LogStore;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keeps income sources in a local {@link LogStore} instead of the database, so reads never leave
+ * the process. Listings and pages come back in the same order as {@link JdbcIncomeSourceDao}.
+ */
+public class FileIncomeSourceDao implements IncomeSourceDao {
+
+    private final LogStore store;
+
+    public FileIncomeSourceDao(LogStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public List<IncomeSource> getIncomeSources() {
+        return toIncomeSources(store.list());
+    }
+
+    @Override
+    public List<IncomeSource> getIncomeSourcesPage(BigDecimal afterAmount, int afterId, int limit) {
+        return toIncomeSources(store.page(afterAmount == null ? null : Money.toCents(afterAmount), afterId, limit));
+    }
+
+    @Override
+    public IncomeSource getIncomeSourceById(int incomeSourceId) {
+        LogRecord record = store.get(incomeSourceId);
+        return record == null ? null : toIncomeSource(record);
+    }
+
+    @Override
+    public IncomeSource createIncomeSource(IncomeSource incomeSource) {
+        return toIncomeSource(store.insert(List.of(toRecord(incomeSource))).get(0));
+    }
+
+    @Override
+    public IncomeSource updateIncomeSource(IncomeSource incomeSource) {
+        List<LogRecord> updated = store.update(List.of(toRecord(incomeSource)));
+
+        if (updated.isEmpty()) {
+            throw new DaoException("Zero rows affected, expected at least one");
+        }
+
+        return toIncomeSource(updated.get(0));
+    }
+
+    @Override
+    public int deleteIncomeSourceById(int incomeSourceId) {
+        return store.delete(new int[]{incomeSourceId}).length;
+    }
+
+    @Override
+    public List<IncomeSource> createIncomeSources(List<IncomeSource> incomeSources) {
+        if (incomeSources.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        return toIncomeSources(store.insert(toRecords(incomeSources)));
+    }
+
+    @Override
+    public List<IncomeSource> updateIncomeSources(List<IncomeSource> incomeSources) {
+        if (incomeSources.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<LogRecord> updated = store.update(toRecords(incomeSources));
+
+        if (updated.size() < incomeSources.size()) {
+            int[] missingIds = incomeSources.stream().mapToInt(IncomeSource::getIncomeSourceId)
+                    .filter(id -> store.get(id) == null).toArray();
+            if (missingIds.length > 0) {
+                throw new MissingRowsException("Income sources not found: " + Arrays.toString(missingIds), missingIds);
+            }
+            throw new DaoException("Expected " + incomeSources.size() + " rows to be affected, " +
+                    "but " + updated.size() + " were found");
+        }
+
+        return toIncomeSources(updated);
+    }
+
+    @Override
+    public int[] deleteIncomeSourcesByIds(int[] incomeSourceIds) {
+        if (incomeSourceIds.length == 0) {
+            return new int[0];
+        }
+
+        return store.delete(incomeSourceIds);
+    }
+
+    @Override
+    public void forEachIncomeSource(Consumer<IncomeSource> action) {
+        for (LogRecord record : store.list()) {
+            action.accept(toIncomeSource(record));
+        }
+    }
+
+    private static LogRecord toRecord(IncomeSource incomeSource) {
+        return new LogRecord(incomeSource.getIncomeSourceId(), incomeSource.getName(), incomeSource.getAmountCents(),
+                incomeSource.getVersion());
+    }
+
+    private static List<LogRecord> toRecords(List<IncomeSource> incomeSources) {
+        List<LogRecord> records = new ArrayList<>(incomeSources.size());
+        for (IncomeSource incomeSource : incomeSources) {
+            records.add(toRecord(incomeSource));
+        }
+        return records;
+    }
+
+    private static IncomeSource toIncomeSource(LogRecord record) {
+        IncomeSource incomeSource = new IncomeSource();
+        incomeSource.setIncomeSourceId(record.getId());
+        incomeSource.setName(record.getName());
+        incomeSource.setAmountCents(record.getAmountCents());
+        incomeSource.setVersion(record.getVersion());
+        return incomeSource;
+    }
+
+    private static List<IncomeSource> toIncomeSources(List<LogRecord> records) {
+        List<IncomeSource> incomeSources = new ArrayList<>(records.size());
+        for (LogRecord record : records) {
+            incomeSources.add(toIncomeSource(record));
+        }
+        return incomeSources;
+    }
+}
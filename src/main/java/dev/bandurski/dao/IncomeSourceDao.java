@@ -2,12 +2,29 @@ package dev.bandurski.dao;
 
 import dev.bandurski.model.IncomeSource;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IncomeSourceDao {
     List<IncomeSource> getIncomeSources();
+    List<IncomeSource> getIncomeSourcesPage(BigDecimal afterAmount, int afterId, int limit);
     IncomeSource getIncomeSourceById(int incomeSourceId);
     IncomeSource createIncomeSource(IncomeSource incomeSource);
     IncomeSource updateIncomeSource(IncomeSource incomeSource);
     int deleteIncomeSourceById(int incomeSourceId);
+    List<IncomeSource> createIncomeSources(List<IncomeSource> incomeSources);
+    /**
+     * Updates every row or, when any of them is missing or has moved on to another version,
+     * none of them.
+     *
+     * @throws dev.bandurski.exception.MissingRowsException when some ids do not exist
+     * @throws dev.bandurski.exception.UpdateConflictException when a row has moved on
+     */
+    List<IncomeSource> updateIncomeSources(List<IncomeSource> incomeSources);
+    /**
+     * @return the ids of the rows deleted; ids that did not exist are left out
+     */
+    int[] deleteIncomeSourcesByIds(int[] incomeSourceIds);
+    void forEachIncomeSource(Consumer<IncomeSource> action);
 }
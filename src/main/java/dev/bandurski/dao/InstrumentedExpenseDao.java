@@ -0,0 +1,98 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.metrics.DaoMetrics;
+import dev.bandurski.metrics.MethodMetrics;
+import dev.bandurski.model.Expense;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Records the call count, failures and latency of every call to another {@link ExpenseDao}.
+ */
+public class InstrumentedExpenseDao implements ExpenseDao {
+
+    private final ExpenseDao delegate;
+    private final DaoMetrics metrics;
+
+    private final MethodMetrics getExpenses;
+    private final MethodMetrics getExpensesPage;
+    private final MethodMetrics getExpenseById;
+    private final MethodMetrics createExpense;
+    private final MethodMetrics updateExpense;
+    private final MethodMetrics deleteExpenseById;
+    private final MethodMetrics createExpenses;
+    private final MethodMetrics updateExpenses;
+    private final MethodMetrics deleteExpensesByIds;
+    private final MethodMetrics forEachExpense;
+
+    public InstrumentedExpenseDao(ExpenseDao delegate) {
+        this.delegate = delegate;
+        this.metrics = new DaoMetrics("ExpenseDao");
+        getExpenses = metrics.method("getExpenses");
+        getExpensesPage = metrics.method("getExpensesPage");
+        getExpenseById = metrics.method("getExpenseById");
+        createExpense = metrics.method("createExpense");
+        updateExpense = metrics.method("updateExpense");
+        deleteExpenseById = metrics.method("deleteExpenseById");
+        createExpenses = metrics.method("createExpenses");
+        updateExpenses = metrics.method("updateExpenses");
+        deleteExpensesByIds = metrics.method("deleteExpensesByIds");
+        forEachExpense = metrics.method("forEachExpense");
+    }
+
+    public DaoMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public List<Expense> getExpenses() {
+        return DaoTimer.time(getExpenses, () -> delegate.getExpenses());
+    }
+
+    @Override
+    public List<Expense> getExpensesPage(BigDecimal afterAmount, int afterId, int limit) {
+        return DaoTimer.time(getExpensesPage, () -> delegate.getExpensesPage(afterAmount, afterId, limit));
+    }
+
+    @Override
+    public Expense getExpenseById(int expenseId) {
+        return DaoTimer.time(getExpenseById, () -> delegate.getExpenseById(expenseId));
+    }
+
+    @Override
+    public Expense createExpense(Expense expense) {
+        return DaoTimer.time(createExpense, () -> delegate.createExpense(expense));
+    }
+
+    @Override
+    public Expense updateExpense(Expense expense) {
+        return DaoTimer.time(updateExpense, () -> delegate.updateExpense(expense));
+    }
+
+    @Override
+    public int deleteExpenseById(int expenseId) {
+        return DaoTimer.time(deleteExpenseById, () -> delegate.deleteExpenseById(expenseId));
+    }
+
+    @Override
+    public List<Expense> createExpenses(List<Expense> expenses) {
+        return DaoTimer.time(createExpenses, () -> delegate.createExpenses(expenses));
+    }
+
+    @Override
+    public List<Expense> updateExpenses(List<Expense> expenses) {
+        return DaoTimer.time(updateExpenses, () -> delegate.updateExpenses(expenses));
+    }
+
+    @Override
+    public int[] deleteExpensesByIds(int[] expenseIds) {
+        return DaoTimer.time(deleteExpensesByIds, () -> delegate.deleteExpensesByIds(expenseIds));
+    }
+
+    @Override
+    public void forEachExpense(Consumer<Expense> action) {
+        DaoTimer.run(forEachExpense, () -> delegate.forEachExpense(action));
+    }
+}
@@ -0,0 +1,98 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.metrics.DaoMetrics;
+import dev.bandurski.metrics.MethodMetrics;
+import dev.bandurski.model.IncomeSource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Records the call count, failures and latency of every call to another {@link IncomeSourceDao}.
+ */
+public class InstrumentedIncomeSourceDao implements IncomeSourceDao {
+
+    private final IncomeSourceDao delegate;
+    private final DaoMetrics metrics;
+
+    private final MethodMetrics getIncomeSources;
+    private final MethodMetrics getIncomeSourcesPage;
+    private final MethodMetrics getIncomeSourceById;
+    private final MethodMetrics createIncomeSource;
+    private final MethodMetrics updateIncomeSource;
+    private final MethodMetrics deleteIncomeSourceById;
+    private final MethodMetrics createIncomeSources;
+    private final MethodMetrics updateIncomeSources;
+    private final MethodMetrics deleteIncomeSourcesByIds;
+    private final MethodMetrics forEachIncomeSource;
+
+    public InstrumentedIncomeSourceDao(IncomeSourceDao delegate) {
+        this.delegate = delegate;
+        this.metrics = new DaoMetrics("IncomeSourceDao");
+        getIncomeSources = metrics.method("getIncomeSources");
+        getIncomeSourcesPage = metrics.method("getIncomeSourcesPage");
+        getIncomeSourceById = metrics.method("getIncomeSourceById");
+        createIncomeSource = metrics.method("createIncomeSource");
+        updateIncomeSource = metrics.method("updateIncomeSource");
+        deleteIncomeSourceById = metrics.method("deleteIncomeSourceById");
+        createIncomeSources = metrics.method("createIncomeSources");
+        updateIncomeSources = metrics.method("updateIncomeSources");
+        deleteIncomeSourcesByIds = metrics.method("deleteIncomeSourcesByIds");
+        forEachIncomeSource = metrics.method("forEachIncomeSource");
+    }
+
+    public DaoMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public List<IncomeSource> getIncomeSources() {
+        return DaoTimer.time(getIncomeSources, () -> delegate.getIncomeSources());
+    }
+
+    @Override
+    public List<IncomeSource> getIncomeSourcesPage(BigDecimal afterAmount, int afterId, int limit) {
+        return DaoTimer.time(getIncomeSourcesPage, () -> delegate.getIncomeSourcesPage(afterAmount, afterId, limit));
+    }
+
+    @Override
+    public IncomeSource getIncomeSourceById(int incomeSourceId) {
+        return DaoTimer.time(getIncomeSourceById, () -> delegate.getIncomeSourceById(incomeSourceId));
+    }
+
+    @Override
+    public IncomeSource createIncomeSource(IncomeSource incomeSource) {
+        return DaoTimer.time(createIncomeSource, () -> delegate.createIncomeSource(incomeSource));
+    }
+
+    @Override
+    public IncomeSource updateIncomeSource(IncomeSource incomeSource) {
+        return DaoTimer.time(updateIncomeSource, () -> delegate.updateIncomeSource(incomeSource));
+    }
+
+    @Override
+    public int deleteIncomeSourceById(int incomeSourceId) {
+        return DaoTimer.time(deleteIncomeSourceById, () -> delegate.deleteIncomeSourceById(incomeSourceId));
+    }
+
+    @Override
+    public List<IncomeSource> createIncomeSources(List<IncomeSource> incomeSources) {
+        return DaoTimer.time(createIncomeSources, () -> delegate.createIncomeSources(incomeSources));
+    }
+
+    @Override
+    public List<IncomeSource> updateIncomeSources(List<IncomeSource> incomeSources) {
+        return DaoTimer.time(updateIncomeSources, () -> delegate.updateIncomeSources(incomeSources));
+    }
+
+    @Override
+    public int[] deleteIncomeSourcesByIds(int[] incomeSourceIds) {
+        return DaoTimer.time(deleteIncomeSourcesByIds, () -> delegate.deleteIncomeSourcesByIds(incomeSourceIds));
+    }
+
+    @Override
+    public void forEachIncomeSource(Consumer<IncomeSource> action) {
+        DaoTimer.run(forEachIncomeSource, () -> delegate.forEachIncomeSource(action));
+    }
+}
@@ -0,0 +1,72 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.model.BudgetSummary;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+
+/**
+ * Reads the totals that the income_source and expense triggers keep in budget_totals,
+ * so the cost of a summary does not grow with the number of rows.
+ */
+public class JdbcBudgetSummaryDao implements BudgetSummaryDao {
+
+    private JdbcTemplate jdbcTemplate;
+    private final int budgetId;
+
+    public JdbcBudgetSummaryDao(DataSource dataSource) {
+        this(dataSource, DEFAULT_BUDGET_ID);
+    }
+
+    public JdbcBudgetSummaryDao(DataSource dataSource, int budgetId) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.budgetId = budgetId;
+    }
+
+    /**
+     * @return the budget's totals, all zero when it has no income sources or expenses yet
+     */
+    @Override
+    public BudgetSummary getBudgetSummary() {
+        BudgetSummary summary = null;
+
+        String sql = "SELECT income_total, income_count, expense_total, expense_count, " +
+                "income_total - expense_total AS net_income FROM budget_totals WHERE budget_id = ?";
+
+        try {
+            SqlRowSet results = jdbcTemplate.queryForRowSet(sql, budgetId);
+
+            if (results.next()) {
+                summary = mapRowToBudgetSummary(results);
+            }
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        }
+
+        return summary == null ? emptySummary() : summary;
+    }
+
+    private BudgetSummary emptySummary() {
+        BudgetSummary summary = new BudgetSummary();
+        summary.setIncomeTotal(BigDecimal.ZERO.setScale(2));
+        summary.setExpenseTotal(BigDecimal.ZERO.setScale(2));
+        summary.setNetIncome(BigDecimal.ZERO.setScale(2));
+
+        return summary;
+    }
+
+    private BudgetSummary mapRowToBudgetSummary(SqlRowSet results) {
+        BudgetSummary summary = new BudgetSummary();
+        summary.setIncomeTotal(results.getBigDecimal("income_total"));
+        summary.setIncomeCount(results.getInt("income_count"));
+        summary.setExpenseTotal(results.getBigDecimal("expense_total"));
+        summary.setExpenseCount(results.getInt("expense_count"));
+        summary.setNetIncome(results.getBigDecimal("net_income"));
+
+        return summary;
+    }
+}
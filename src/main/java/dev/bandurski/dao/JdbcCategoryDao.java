@@ -0,0 +1,210 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.model.Category;
+import dev.bandurski.model.CategoryTotal;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JdbcCategoryDao implements CategoryDao {
+
+    // Walks one budget's hierarchy from its top-level categories down, carrying each category's
+    // depth and the names on its path so that ordering by path lists every parent before its
+    // children. The budget id is its one parameter.
+    private static final String TREE_CTE = "tree AS (" +
+            "SELECT budget_id, category_id, parent_id, name, 0 AS depth, ARRAY[name]::varchar[] AS path " +
+            "FROM category WHERE budget_id = ? AND parent_id IS NULL " +
+            "UNION ALL " +
+            "SELECT c.budget_id, c.category_id, c.parent_id, c.name, t.depth + 1, t.path || c.name " +
+            "FROM category c JOIN tree t ON c.budget_id = t.budget_id AND c.parent_id = t.category_id)";
+
+    private JdbcTemplate jdbcTemplate;
+    private final int budgetId;
+
+    /**
+     * Reads and writes the {@link BudgetSummaryDao#DEFAULT_BUDGET_ID default budget}'s categories.
+     */
+    public JdbcCategoryDao(DataSource dataSource) {
+        this(dataSource, BudgetSummaryDao.DEFAULT_BUDGET_ID);
+    }
+
+    /**
+     * @param budgetId the budget whose categories are read and written and whose items are
+     *                 filed and totalled
+     */
+    public JdbcCategoryDao(DataSource dataSource, int budgetId) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.budgetId = budgetId;
+    }
+
+    /**
+     * @return every category of the budget, each parent before its children and siblings
+     *         ordered by name
+     */
+    @Override
+    public List<Category> getCategories() {
+        List<Category> categories = new ArrayList<>();
+
+        String sql = "WITH RECURSIVE " + TREE_CTE + " " +
+                "SELECT category_id, parent_id, name FROM tree ORDER BY path";
+
+        try {
+            SqlRowSet results = jdbcTemplate.queryForRowSet(sql, budgetId);
+
+            while (results.next()) {
+                categories.add(mapRowToCategory(results));
+            }
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        }
+
+        return categories;
+    }
+
+    @Override
+    public Category createCategory(Category category) {
+        Category newCategory = null;
+
+        String sql = "INSERT INTO category (budget_id, parent_id, name) " +
+                "VALUES (?, ?, ?) RETURNING category_id, parent_id, name";
+
+        try {
+            SqlRowSet results = jdbcTemplate.queryForRowSet(
+                    sql,
+                    budgetId,
+                    category.getParentId(),
+                    category.getName()
+            );
+            if (results.next()) {
+                newCategory = mapRowToCategory(results);
+            }
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        } catch (DataIntegrityViolationException e) {
+            throw new DaoException("Data integrity violation", e);
+        }
+
+        return newCategory;
+    }
+
+    /**
+     * @param categoryId null to make the income source uncategorized
+     * @return the number of income sources updated, 0 when the id belongs to another budget
+     * @throws DaoException when the category belongs to another budget
+     */
+    @Override
+    public int setIncomeSourceCategory(int incomeSourceId, Integer categoryId) {
+        String sql = "UPDATE income_source SET category_id = ? WHERE income_source_id = ? AND budget_id = ?";
+
+        try {
+            return jdbcTemplate.update(sql, categoryId, incomeSourceId, budgetId);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        } catch (DataIntegrityViolationException e) {
+            throw new DaoException("Data integrity violation", e);
+        }
+    }
+
+    /**
+     * @param categoryId null to make the expense uncategorized
+     * @return the number of expenses updated, 0 when the id belongs to another budget
+     * @throws DaoException when the category belongs to another budget
+     */
+    @Override
+    public int setExpenseCategory(int expenseId, Integer categoryId) {
+        String sql = "UPDATE expense SET category_id = ? WHERE expense_id = ? AND budget_id = ?";
+
+        try {
+            return jdbcTemplate.update(sql, categoryId, expenseId, budgetId);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        } catch (DataIntegrityViolationException e) {
+            throw new DaoException("Data integrity violation", e);
+        }
+    }
+
+    /**
+     * Totals every category in one round trip: the items filed directly under it and, through
+     * the ancestor closure, everything beneath it. Uncategorized items come back last as a row
+     * with a null category id, when there are any. Only this DAO's budget's categories and
+     * items are counted.
+     *
+     * @return each parent before its children, siblings ordered by name
+     */
+    @Override
+    public List<CategoryTotal> getCategoryTotals() {
+        List<CategoryTotal> totals = new ArrayList<>();
+
+        String sql = "WITH RECURSIVE " + TREE_CTE + ", " +
+                // Pairs every category with itself and each of its descendants.
+                "ancestry AS (" +
+                "SELECT category_id AS ancestor_id, category_id FROM category WHERE budget_id = ? " +
+                "UNION ALL " +
+                "SELECT a.ancestor_id, c.category_id FROM ancestry a " +
+                "JOIN category c ON c.budget_id = ? AND c.parent_id = a.category_id), " +
+                "own AS (" +
+                "SELECT category_id, sum(income) AS income_total, sum(expense) AS expense_total, count(*) AS item_count " +
+                "FROM (SELECT budget_id, category_id, amount AS income, 0 AS expense FROM income_source " +
+                "UNION ALL SELECT budget_id, category_id, 0, amount FROM expense) AS item " +
+                "WHERE budget_id = ? " +
+                "GROUP BY category_id) " +
+                "SELECT t.category_id, t.parent_id, t.name, t.depth, t.path, " +
+                "coalesce(o.item_count, 0) AS item_count, " +
+                "coalesce(o.income_total, 0) AS income_total, " +
+                "coalesce(o.expense_total, 0) AS expense_total, " +
+                "coalesce(sum(d.income_total), 0) AS subtree_income_total, " +
+                "coalesce(sum(d.expense_total), 0) AS subtree_expense_total " +
+                "FROM tree t " +
+                "JOIN ancestry a ON a.ancestor_id = t.category_id " +
+                "LEFT JOIN own d ON d.category_id = a.category_id " +
+                "LEFT JOIN own o ON o.category_id = t.category_id " +
+                "GROUP BY t.category_id, t.parent_id, t.name, t.depth, t.path, " +
+                "o.item_count, o.income_total, o.expense_total " +
+                "UNION ALL " +
+                "SELECT NULL, NULL, NULL, 0, NULL, item_count, income_total, expense_total, income_total, expense_total " +
+                "FROM own WHERE category_id IS NULL " +
+                "ORDER BY path NULLS LAST";
+
+        try {
+            SqlRowSet results = jdbcTemplate.queryForRowSet(sql, budgetId, budgetId, budgetId, budgetId);
+
+            while (results.next()) {
+                totals.add(mapRowToCategoryTotal(results));
+            }
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        }
+
+        return totals;
+    }
+
+    private Category mapRowToCategory(SqlRowSet results) {
+        Category category = new Category();
+        category.setCategoryId(results.getInt("category_id"));
+        category.setParentId((Integer) results.getObject("parent_id"));
+        category.setName(results.getString("name"));
+
+        return category;
+    }
+
+    private CategoryTotal mapRowToCategoryTotal(SqlRowSet results) {
+        CategoryTotal total = new CategoryTotal();
+        total.setCategoryId((Integer) results.getObject("category_id"));
+        total.setParentId((Integer) results.getObject("parent_id"));
+        total.setName(results.getString("name"));
+        total.setDepth(results.getInt("depth"));
+        total.setItemCount(results.getInt("item_count"));
+        total.setIncomeTotal(results.getBigDecimal("income_total"));
+        total.setExpenseTotal(results.getBigDecimal("expense_total"));
+        total.setSubtreeIncomeTotal(results.getBigDecimal("subtree_income_total"));
+        total.setSubtreeExpenseTotal(results.getBigDecimal("subtree_expense_total"));
+
+        return total;
+    }
+}
@@ -1,123 +1,298 @@
 package dev.bandurski.dao;
 
 import dev.bandurski.exception.DaoException;
+import dev.bandurski.exception.MissingRowsException;
+import dev.bandurski.exception.UpdateConflictException;
 import dev.bandurski.model.Expense;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 
 import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static dev.bandurski.dao.SqlStatements.EXPENSE_DELETE;
+import static dev.bandurski.dao.SqlStatements.EXPENSE_DELETE_ALL;
+import static dev.bandurski.dao.SqlStatements.EXPENSE_INSERT;
+import static dev.bandurski.dao.SqlStatements.EXPENSE_INSERT_ALL;
+import static dev.bandurski.dao.SqlStatements.EXPENSE_SELECT_ALL;
+import static dev.bandurski.dao.SqlStatements.EXPENSE_SELECT_BY_ID;
+import static dev.bandurski.dao.SqlStatements.EXPENSE_SELECT_BY_IDS;
+import static dev.bandurski.dao.SqlStatements.EXPENSE_SELECT_FIRST_PAGE;
+import static dev.bandurski.dao.SqlStatements.EXPENSE_SELECT_PAGE_AFTER;
+import static dev.bandurski.dao.SqlStatements.EXPENSE_UPDATE;
+import static dev.bandurski.dao.SqlStatements.EXPENSE_UPDATE_ALL;
 
 public class JdbcExpenseDao implements ExpenseDao {
 
+    private static final int DEFAULT_FETCH_SIZE = 500;
+
+    static final TransactionMapper<Expense> EXPENSE_MAPPER =
+            new TransactionMapper<>("expense_id", JdbcExpenseDao::newExpense);
+
     private JdbcTemplate jdbcTemplate;
+    private final int budgetId;
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+    // Sizes the next full listing's list, since the row count is not known until it is read.
+    private volatile int lastListingSize = 16;
 
+    /**
+     * Reads and writes the {@link BudgetSummaryDao#DEFAULT_BUDGET_ID default budget}.
+     */
     public JdbcExpenseDao(DataSource dataSource) {
+        this(dataSource, BudgetSummaryDao.DEFAULT_BUDGET_ID);
+    }
+
+    /**
+     * @param budgetId the budget every read and write is scoped to; rows of other budgets
+     *                 are never returned or changed, even by id
+     */
+    public JdbcExpenseDao(DataSource dataSource, int budgetId) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.budgetId = budgetId;
+    }
+
+    public int getBudgetId() {
+        return budgetId;
+    }
+
+    /**
+     * Sets how many rows {@link #forEachExpense(Consumer)} pulls from the server per round trip.
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
     }
 
     @Override
     public List<Expense> getExpenses() {
-        List<Expense> expenses = new ArrayList<>();
-
-        String sql = "SELECT expense_id, name, amount FROM expense ORDER BY amount DESC";
+        List<Expense> expenses;
 
         try {
-            SqlRowSet results = jdbcTemplate.queryForRowSet(sql);
-
-            while (results.next()) {
-                expenses.add(mapRowToExpense(results));
-            }
+            expenses = EXPENSE_SELECT_ALL.query(jdbcTemplate, EXPENSE_MAPPER.toList(lastListingSize),
+                    budgetId);
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Could not connect to database", e);
         }
 
+        lastListingSize = expenses.size();
         return expenses;
     }
 
+    /**
+     * Returns up to {@code limit} rows in the same order as the full listing, starting after
+     * the row identified by {@code afterAmount} and {@code afterId}, or from the top when
+     * {@code afterAmount} is null. Seeking on the (budget_id, amount, expense_id) index
+     * keeps every page equally cheap no matter how deep it is or how many other budgets
+     * share the table.
+     */
     @Override
-    public Expense getExpenseById(int expenseId) {
-        Expense expense = null;
-
-        String sql = "SELECT expense_id, name, amount FROM expense WHERE expense_id = ?";
+    public List<Expense> getExpensesPage(BigDecimal afterAmount, int afterId, int limit) {
+        try {
+            return afterAmount == null
+                    ? EXPENSE_SELECT_FIRST_PAGE.query(jdbcTemplate, EXPENSE_MAPPER.toList(limit),
+                            budgetId, limit)
+                    : EXPENSE_SELECT_PAGE_AFTER.query(jdbcTemplate, EXPENSE_MAPPER.toList(limit),
+                            budgetId, afterAmount, afterId, limit);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        }
+    }
 
+    @Override
+    public void forEachExpense(Consumer<Expense> action) {
         try {
-            SqlRowSet results = jdbcTemplate.queryForRowSet(sql, expenseId);
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                // PostgreSQL only reads through a cursor, honouring the fetch size,
+                // when the query runs inside a transaction.
+                boolean autoCommit = connection.getAutoCommit();
+                if (autoCommit) {
+                    connection.setAutoCommit(false);
+                }
 
-            if (results.next()) {
-                expense = mapRowToExpense(results);
-            }
+                try (PreparedStatement statement = EXPENSE_SELECT_ALL.prepare(connection)) {
+                    statement.setInt(1, budgetId);
+                    statement.setFetchSize(fetchSize);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        EXPENSE_MAPPER.forEach(resultSet, action);
+                    }
+                } finally {
+                    if (autoCommit) {
+                        connection.rollback();
+                        connection.setAutoCommit(true);
+                    }
+                }
+                return null;
+            });
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Could not connect to database", e);
         }
+    }
 
-        return expense;
+    @Override
+    public Expense getExpenseById(int expenseId) {
+        List<Expense> expenses;
+
+        try {
+            expenses = EXPENSE_SELECT_BY_ID.query(jdbcTemplate, EXPENSE_MAPPER.toList(1),
+                    budgetId, expenseId);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        }
+
+        return expenses.isEmpty() ? null : expenses.get(0);
     }
 
     @Override
     public Expense createExpense(Expense expense) {
-        Expense newExpense = null;
-
-        String sql = "INSERT INTO expense (name, amount) " +
-                "VALUES (?, ?) RETURNING expense_id";
+        List<Expense> newExpenses;
 
         try {
-            Integer newId = jdbcTemplate.queryForObject(
-                    sql,
-                    Integer.class,
+            newExpenses = EXPENSE_INSERT.query(
+                    jdbcTemplate,
+                    EXPENSE_MAPPER.toList(1),
+                    budgetId,
                     expense.getName(),
                     expense.getAmount()
             );
-            if (newId != null) {
-                newExpense = getExpenseById(newId);
-            }
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Could not connect to database.", e);
         } catch (DataIntegrityViolationException e) {
             throw new DaoException("Data integrity violation", e);
         }
 
-        return newExpense;
+        return newExpenses.isEmpty() ? null : newExpenses.get(0);
     }
 
     @Override
     public Expense updateExpense(Expense expense) {
-        Expense updatedExpense = null;
-
-        String sql = "UPDATE expense SET name = ?, amount = ? " +
-                "WHERE expense_id = ?";
+        List<Expense> updatedExpenses;
 
         try {
-            int rowsAffected = jdbcTemplate.update(
-                    sql,
+            updatedExpenses = EXPENSE_UPDATE.query(
+                    jdbcTemplate,
+                    EXPENSE_MAPPER.toList(1),
                     expense.getName(),
                     expense.getAmount(),
-                    expense.getExpenseId()
+                    budgetId,
+                    expense.getExpenseId(),
+                    expense.getVersion()
             );
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database.", e);
+        } catch (DataIntegrityViolationException e) {
+            throw new DaoException("Data integrity violation", e);
+        }
 
-            if (rowsAffected == 0) {
+        if (updatedExpenses.isEmpty()) {
+            Expense current = getExpenseById(expense.getExpenseId());
+            if (current == null) {
                 throw new DaoException("Zero rows affected, expected at least one");
-            } else {
-                updatedExpense = getExpenseById(expense.getExpenseId());
             }
+            throw conflict(expense, current);
+        }
+
+        return updatedExpenses.get(0);
+    }
+
+    @Override
+    public int deleteExpenseById(int expenseId) {
+        try {
+            return EXPENSE_DELETE.update(jdbcTemplate, budgetId, expenseId);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        } catch (DataIntegrityViolationException e) {
+            throw new DaoException("Data integrity violation", e);
+        }
+    }
+
+    @Override
+    public List<Expense> createExpenses(List<Expense> expenses) {
+        if (expenses.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Expense> newExpenses;
+
+        try {
+            newExpenses = EXPENSE_INSERT_ALL.query(
+                    jdbcTemplate,
+                    EXPENSE_MAPPER.toList(expenses.size()),
+                    budgetId,
+                    mapNames(expenses),
+                    mapAmounts(expenses)
+            );
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Could not connect to database.", e);
         } catch (DataIntegrityViolationException e) {
             throw new DaoException("Data integrity violation", e);
         }
 
-        return updatedExpense;
+        return newExpenses;
     }
 
     @Override
-    public int deleteExpenseById(int expenseId) {
-        String sql = "DELETE FROM expense WHERE expense_id = ?";
+    public List<Expense> updateExpenses(List<Expense> expenses) {
+        if (expenses.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        int[] ids = new int[expenses.size()];
+        // One statement updates every row, so a repeated id would apply only one of its values.
+        Set<Integer> seenIds = new HashSet<>();
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = expenses.get(i).getExpenseId();
+            if (!seenIds.add(ids[i])) {
+                throw new DaoException("Expense " + ids[i] + " appears more than once in one update");
+            }
+        }
+
+        List<Expense> updatedExpenses;
 
         try {
-            return jdbcTemplate.update(sql, expenseId);
+            updatedExpenses = EXPENSE_UPDATE_ALL.query(
+                    jdbcTemplate,
+                    EXPENSE_MAPPER.toList(expenses.size()),
+                    budgetId,
+                    ids,
+                    mapNames(expenses),
+                    mapAmounts(expenses),
+                    mapVersions(expenses)
+            );
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database.", e);
+        } catch (DataIntegrityViolationException e) {
+            throw new DaoException("Data integrity violation", e);
+        }
+
+        if (updatedExpenses.size() < expenses.size()) {
+            throwUpdateFailure(expenses, ids);
+            throw new DaoException("Expected " + expenses.size() + " rows to be affected, " +
+                    "but " + updatedExpenses.size() + " were found");
+        }
+
+        return updatedExpenses;
+    }
+
+    @Override
+    public int[] deleteExpensesByIds(int[] expenseIds) {
+        if (expenseIds.length == 0) {
+            return new int[0];
+        }
+
+        try {
+            return EXPENSE_DELETE_ALL.query(jdbcTemplate, EXPENSE_MAPPER.toIds(expenseIds.length),
+                    budgetId, expenseIds);
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Unable to connect to server or database", e);
         } catch (DataIntegrityViolationException e) {
@@ -125,12 +300,73 @@ public class JdbcExpenseDao implements ExpenseDao {
         }
     }
 
-    private Expense mapRowToExpense(SqlRowSet results) {
+    private static Expense newExpense(int expenseId, String name, long amountCents, int version) {
         Expense expense = new Expense();
-        expense.setExpenseId(results.getInt("expense_id"));
-        expense.setName(results.getString("name"));
-        expense.setAmount(results.getBigDecimal("amount"));
+        expense.setExpenseId(expenseId);
+        expense.setName(name);
+        expense.setAmountCents(amountCents);
+        expense.setVersion(version);
 
         return expense;
     }
+
+    /**
+     * Throws a conflict for the first row whose stored version differs from the one given, or
+     * else a {@link MissingRowsException} naming the rows that do not exist.
+     */
+    private void throwUpdateFailure(List<Expense> expenses, int[] ids) {
+        List<Expense> current;
+        try {
+            current = EXPENSE_SELECT_BY_IDS.query(jdbcTemplate, EXPENSE_MAPPER.toList(ids.length), budgetId, ids);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        }
+
+        Map<Integer, Expense> currentById = new HashMap<>();
+        for (Expense expense : current) {
+            currentById.put(expense.getExpenseId(), expense);
+        }
+        for (Expense expense : expenses) {
+            Expense stored = currentById.get(expense.getExpenseId());
+            if (stored != null && expense.getVersion() != 0 && expense.getVersion() != stored.getVersion()) {
+                throw conflict(expense, stored);
+            }
+        }
+
+        int[] missingIds = Arrays.stream(ids).filter(id -> !currentById.containsKey(id)).toArray();
+        if (missingIds.length > 0) {
+            throw new MissingRowsException("Expenses not found: " + Arrays.toString(missingIds),
+                    missingIds);
+        }
+    }
+
+    private static UpdateConflictException conflict(Expense expense, Expense current) {
+        return new UpdateConflictException("Expense " + expense.getExpenseId() + " was changed by someone else: " +
+                "it is at version " + current.getVersion() + ", not " + expense.getVersion(), current);
+    }
+
+    private String[] mapNames(List<Expense> expenses) {
+        String[] names = new String[expenses.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = expenses.get(i).getName();
+        }
+        return names;
+    }
+
+    private String[] mapAmounts(List<Expense> expenses) {
+        // Sent as text and cast server side, the driver has no BigDecimal[] binding.
+        String[] amounts = new String[expenses.size()];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = expenses.get(i).getAmount().toPlainString();
+        }
+        return amounts;
+    }
+
+    private int[] mapVersions(List<Expense> expenses) {
+        int[] versions = new int[expenses.size()];
+        for (int i = 0; i < versions.length; i++) {
+            versions[i] = expenses.get(i).getVersion();
+        }
+        return versions;
+    }
 }
@@ -1,124 +1,298 @@
 package dev.bandurski.dao;
 
 import dev.bandurski.exception.DaoException;
+import dev.bandurski.exception.MissingRowsException;
+import dev.bandurski.exception.UpdateConflictException;
 import dev.bandurski.model.IncomeSource;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 
 import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static dev.bandurski.dao.SqlStatements.INCOME_SOURCE_DELETE;
+import static dev.bandurski.dao.SqlStatements.INCOME_SOURCE_DELETE_ALL;
+import static dev.bandurski.dao.SqlStatements.INCOME_SOURCE_INSERT;
+import static dev.bandurski.dao.SqlStatements.INCOME_SOURCE_INSERT_ALL;
+import static dev.bandurski.dao.SqlStatements.INCOME_SOURCE_SELECT_ALL;
+import static dev.bandurski.dao.SqlStatements.INCOME_SOURCE_SELECT_BY_ID;
+import static dev.bandurski.dao.SqlStatements.INCOME_SOURCE_SELECT_BY_IDS;
+import static dev.bandurski.dao.SqlStatements.INCOME_SOURCE_SELECT_FIRST_PAGE;
+import static dev.bandurski.dao.SqlStatements.INCOME_SOURCE_SELECT_PAGE_AFTER;
+import static dev.bandurski.dao.SqlStatements.INCOME_SOURCE_UPDATE;
+import static dev.bandurski.dao.SqlStatements.INCOME_SOURCE_UPDATE_ALL;
 
 public class JdbcIncomeSourceDao implements IncomeSourceDao {
 
+    private static final int DEFAULT_FETCH_SIZE = 500;
+
+    static final TransactionMapper<IncomeSource> INCOME_SOURCE_MAPPER =
+            new TransactionMapper<>("income_source_id", JdbcIncomeSourceDao::newIncomeSource);
+
     private JdbcTemplate jdbcTemplate;
+    private final int budgetId;
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+    // Sizes the next full listing's list, since the row count is not known until it is read.
+    private volatile int lastListingSize = 16;
 
+    /**
+     * Reads and writes the {@link BudgetSummaryDao#DEFAULT_BUDGET_ID default budget}.
+     */
     public JdbcIncomeSourceDao(DataSource dataSource) {
+        this(dataSource, BudgetSummaryDao.DEFAULT_BUDGET_ID);
+    }
+
+    /**
+     * @param budgetId the budget every read and write is scoped to; rows of other budgets
+     *                 are never returned or changed, even by id
+     */
+    public JdbcIncomeSourceDao(DataSource dataSource, int budgetId) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.budgetId = budgetId;
+    }
+
+    public int getBudgetId() {
+        return budgetId;
+    }
+
+    /**
+     * Sets how many rows {@link #forEachIncomeSource(Consumer)} pulls from the server per round trip.
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
     }
 
     @Override
     public List<IncomeSource> getIncomeSources() {
-        List<IncomeSource> incomeSources = new ArrayList<>();
-
-        String sql = "SELECT income_source_id, name, amount FROM income_source ORDER BY amount DESC";
+        List<IncomeSource> incomeSources;
 
         try {
-            SqlRowSet results = jdbcTemplate.queryForRowSet(sql);
-
-            while (results.next()) {
-                incomeSources.add(mapRowToIncomeSource(results));
-            }
+            incomeSources = INCOME_SOURCE_SELECT_ALL.query(jdbcTemplate, INCOME_SOURCE_MAPPER.toList(lastListingSize),
+                    budgetId);
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Could not connect to database", e);
         }
 
+        lastListingSize = incomeSources.size();
         return incomeSources;
     }
 
+    /**
+     * Returns up to {@code limit} rows in the same order as the full listing, starting after
+     * the row identified by {@code afterAmount} and {@code afterId}, or from the top when
+     * {@code afterAmount} is null. Seeking on the (budget_id, amount, income_source_id) index
+     * keeps every page equally cheap no matter how deep it is or how many other budgets
+     * share the table.
+     */
     @Override
-    public IncomeSource getIncomeSourceById(int incomeSourceId) {
-        IncomeSource incomeSource = null;
-
-        String sql = "SELECT income_source_id, name, amount FROM income_source " +
-                "WHERE income_source_id = ?";
+    public List<IncomeSource> getIncomeSourcesPage(BigDecimal afterAmount, int afterId, int limit) {
+        try {
+            return afterAmount == null
+                    ? INCOME_SOURCE_SELECT_FIRST_PAGE.query(jdbcTemplate, INCOME_SOURCE_MAPPER.toList(limit),
+                            budgetId, limit)
+                    : INCOME_SOURCE_SELECT_PAGE_AFTER.query(jdbcTemplate, INCOME_SOURCE_MAPPER.toList(limit),
+                            budgetId, afterAmount, afterId, limit);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        }
+    }
 
+    @Override
+    public void forEachIncomeSource(Consumer<IncomeSource> action) {
         try {
-            SqlRowSet results = jdbcTemplate.queryForRowSet(sql, incomeSourceId);
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                // PostgreSQL only reads through a cursor, honouring the fetch size,
+                // when the query runs inside a transaction.
+                boolean autoCommit = connection.getAutoCommit();
+                if (autoCommit) {
+                    connection.setAutoCommit(false);
+                }
 
-            if (results.next()) {
-                incomeSource = mapRowToIncomeSource(results);
-            }
+                try (PreparedStatement statement = INCOME_SOURCE_SELECT_ALL.prepare(connection)) {
+                    statement.setInt(1, budgetId);
+                    statement.setFetchSize(fetchSize);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        INCOME_SOURCE_MAPPER.forEach(resultSet, action);
+                    }
+                } finally {
+                    if (autoCommit) {
+                        connection.rollback();
+                        connection.setAutoCommit(true);
+                    }
+                }
+                return null;
+            });
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Could not connect to database", e);
         }
+    }
 
-        return incomeSource;
+    @Override
+    public IncomeSource getIncomeSourceById(int incomeSourceId) {
+        List<IncomeSource> incomeSources;
+
+        try {
+            incomeSources = INCOME_SOURCE_SELECT_BY_ID.query(jdbcTemplate, INCOME_SOURCE_MAPPER.toList(1),
+                    budgetId, incomeSourceId);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        }
+
+        return incomeSources.isEmpty() ? null : incomeSources.get(0);
     }
 
     @Override
     public IncomeSource createIncomeSource(IncomeSource incomeSource) {
-        IncomeSource newIncomeSource = null;
-
-        String sql = "INSERT INTO income_source (name, amount) " +
-                "VALUES (?, ?) RETURNING income_source_id";
+        List<IncomeSource> newIncomeSources;
 
         try {
-            Integer newId = jdbcTemplate.queryForObject(
-                    sql,
-                    Integer.class,
+            newIncomeSources = INCOME_SOURCE_INSERT.query(
+                    jdbcTemplate,
+                    INCOME_SOURCE_MAPPER.toList(1),
+                    budgetId,
                     incomeSource.getName(),
                     incomeSource.getAmount()
             );
-            if (newId != null) {
-                newIncomeSource = getIncomeSourceById(newId);
-            }
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Could not connect to database.", e);
         } catch (DataIntegrityViolationException e) {
             throw new DaoException("Data integrity violation", e);
         }
 
-        return newIncomeSource;
+        return newIncomeSources.isEmpty() ? null : newIncomeSources.get(0);
     }
 
     @Override
     public IncomeSource updateIncomeSource(IncomeSource incomeSource) {
-        IncomeSource updatedIncomeSource = null;
-
-        String sql = "UPDATE income_source SET name = ?, amount = ? " +
-                "WHERE income_source_id = ?";
+        List<IncomeSource> updatedIncomeSources;
 
         try {
-            int rowsAffected = jdbcTemplate.update(
-                    sql,
+            updatedIncomeSources = INCOME_SOURCE_UPDATE.query(
+                    jdbcTemplate,
+                    INCOME_SOURCE_MAPPER.toList(1),
                     incomeSource.getName(),
                     incomeSource.getAmount(),
-                    incomeSource.getIncomeSourceId()
+                    budgetId,
+                    incomeSource.getIncomeSourceId(),
+                    incomeSource.getVersion()
             );
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database.", e);
+        } catch (DataIntegrityViolationException e) {
+            throw new DaoException("Data integrity violation", e);
+        }
 
-            if (rowsAffected == 0) {
+        if (updatedIncomeSources.isEmpty()) {
+            IncomeSource current = getIncomeSourceById(incomeSource.getIncomeSourceId());
+            if (current == null) {
                 throw new DaoException("Zero rows affected, expected at least one");
-            } else {
-                updatedIncomeSource = getIncomeSourceById(incomeSource.getIncomeSourceId());
             }
+            throw conflict(incomeSource, current);
+        }
+
+        return updatedIncomeSources.get(0);
+    }
+
+    @Override
+    public int deleteIncomeSourceById(int incomeSourceId) {
+        try {
+            return INCOME_SOURCE_DELETE.update(jdbcTemplate, budgetId, incomeSourceId);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        } catch (DataIntegrityViolationException e) {
+            throw new DaoException("Data integrity violation", e);
+        }
+    }
+
+    @Override
+    public List<IncomeSource> createIncomeSources(List<IncomeSource> incomeSources) {
+        if (incomeSources.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<IncomeSource> newIncomeSources;
+
+        try {
+            newIncomeSources = INCOME_SOURCE_INSERT_ALL.query(
+                    jdbcTemplate,
+                    INCOME_SOURCE_MAPPER.toList(incomeSources.size()),
+                    budgetId,
+                    mapNames(incomeSources),
+                    mapAmounts(incomeSources)
+            );
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Could not connect to database.", e);
         } catch (DataIntegrityViolationException e) {
             throw new DaoException("Data integrity violation", e);
         }
 
-        return updatedIncomeSource;
+        return newIncomeSources;
     }
 
     @Override
-    public int deleteIncomeSourceById(int incomeSourceId) {
-        String sql = "DELETE FROM income_source WHERE income_source_id = ?";
+    public List<IncomeSource> updateIncomeSources(List<IncomeSource> incomeSources) {
+        if (incomeSources.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        int[] ids = new int[incomeSources.size()];
+        // One statement updates every row, so a repeated id would apply only one of its values.
+        Set<Integer> seenIds = new HashSet<>();
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = incomeSources.get(i).getIncomeSourceId();
+            if (!seenIds.add(ids[i])) {
+                throw new DaoException("Income source " + ids[i] + " appears more than once in one update");
+            }
+        }
+
+        List<IncomeSource> updatedIncomeSources;
 
         try {
-            return jdbcTemplate.update(sql, incomeSourceId);
+            updatedIncomeSources = INCOME_SOURCE_UPDATE_ALL.query(
+                    jdbcTemplate,
+                    INCOME_SOURCE_MAPPER.toList(incomeSources.size()),
+                    budgetId,
+                    ids,
+                    mapNames(incomeSources),
+                    mapAmounts(incomeSources),
+                    mapVersions(incomeSources)
+            );
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database.", e);
+        } catch (DataIntegrityViolationException e) {
+            throw new DaoException("Data integrity violation", e);
+        }
+
+        if (updatedIncomeSources.size() < incomeSources.size()) {
+            throwUpdateFailure(incomeSources, ids);
+            throw new DaoException("Expected " + incomeSources.size() + " rows to be affected, " +
+                    "but " + updatedIncomeSources.size() + " were found");
+        }
+
+        return updatedIncomeSources;
+    }
+
+    @Override
+    public int[] deleteIncomeSourcesByIds(int[] incomeSourceIds) {
+        if (incomeSourceIds.length == 0) {
+            return new int[0];
+        }
+
+        try {
+            return INCOME_SOURCE_DELETE_ALL.query(jdbcTemplate,
+                    INCOME_SOURCE_MAPPER.toIds(incomeSourceIds.length), budgetId, incomeSourceIds);
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Unable to connect to server or database", e);
         } catch (DataIntegrityViolationException e) {
@@ -126,12 +300,76 @@ public class JdbcIncomeSourceDao implements IncomeSourceDao {
         }
     }
 
-    private IncomeSource mapRowToIncomeSource(SqlRowSet results) {
+    private static IncomeSource newIncomeSource(int incomeSourceId, String name, long amountCents, int version) {
         IncomeSource incomeSource = new IncomeSource();
-        incomeSource.setIncomeSourceId(results.getInt("income_source_id"));
-        incomeSource.setName(results.getString("name"));
-        incomeSource.setAmount(results.getBigDecimal("amount"));
+        incomeSource.setIncomeSourceId(incomeSourceId);
+        incomeSource.setName(name);
+        incomeSource.setAmountCents(amountCents);
+        incomeSource.setVersion(version);
 
         return incomeSource;
     }
+
+    /**
+     * Throws a conflict for the first row whose stored version differs from the one given, or
+     * else a {@link MissingRowsException} naming the rows that do not exist.
+     */
+    private void throwUpdateFailure(List<IncomeSource> incomeSources, int[] ids) {
+        List<IncomeSource> current;
+        try {
+            current = INCOME_SOURCE_SELECT_BY_IDS.query(jdbcTemplate, INCOME_SOURCE_MAPPER.toList(ids.length),
+                    budgetId, ids);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        }
+
+        Map<Integer, IncomeSource> currentById = new HashMap<>();
+        for (IncomeSource incomeSource : current) {
+            currentById.put(incomeSource.getIncomeSourceId(), incomeSource);
+        }
+        for (IncomeSource incomeSource : incomeSources) {
+            IncomeSource stored = currentById.get(incomeSource.getIncomeSourceId());
+            if (stored != null && incomeSource.getVersion() != 0
+                    && incomeSource.getVersion() != stored.getVersion()) {
+                throw conflict(incomeSource, stored);
+            }
+        }
+
+        int[] missingIds = Arrays.stream(ids).filter(id -> !currentById.containsKey(id)).toArray();
+        if (missingIds.length > 0) {
+            throw new MissingRowsException("Income sources not found: " + Arrays.toString(missingIds),
+                    missingIds);
+        }
+    }
+
+    private static UpdateConflictException conflict(IncomeSource incomeSource, IncomeSource current) {
+        return new UpdateConflictException("Income source " + incomeSource.getIncomeSourceId() +
+                " was changed by someone else: it is at version " + current.getVersion() +
+                ", not " + incomeSource.getVersion(), current);
+    }
+
+    private String[] mapNames(List<IncomeSource> incomeSources) {
+        String[] names = new String[incomeSources.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = incomeSources.get(i).getName();
+        }
+        return names;
+    }
+
+    private String[] mapAmounts(List<IncomeSource> incomeSources) {
+        // Sent as text and cast server side, the driver has no BigDecimal[] binding.
+        String[] amounts = new String[incomeSources.size()];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = incomeSources.get(i).getAmount().toPlainString();
+        }
+        return amounts;
+    }
+
+    private int[] mapVersions(List<IncomeSource> incomeSources) {
+        int[] versions = new int[incomeSources.size()];
+        for (int i = 0; i < versions.length; i++) {
+            versions[i] = incomeSources.get(i).getVersion();
+        }
+        return versions;
+    }
 }
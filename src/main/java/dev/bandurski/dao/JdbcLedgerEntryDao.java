@@ -0,0 +1,179 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.model.LedgerEntry;
+import dev.bandurski.model.Money;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads and writes one budget's rows of the month-partitioned ledger_entry table.
+ * <p>
+ * Every query filters on entry_date with plain parameters, so PostgreSQL prunes the
+ * partitions outside the requested range when the statement runs, and on budget_id, which
+ * leads the key of each partition. Rows are mapped by column index straight from the
+ * driver's result set.
+ */
+public class JdbcLedgerEntryDao implements LedgerEntryDao {
+
+    private static final int DEFAULT_FETCH_SIZE = 500;
+
+    // Every query selects these columns in this order.
+    private static final String COLUMNS = "ledger_entry_id, entry_date, entry_type, name, amount";
+
+    private static final RowMapper<LedgerEntry> LEDGER_ENTRY_MAPPER = (resultSet, rowNumber) -> {
+        LedgerEntry ledgerEntry = new LedgerEntry();
+        ledgerEntry.setLedgerEntryId(resultSet.getLong(1));
+        ledgerEntry.setEntryDate(resultSet.getObject(2, LocalDate.class));
+        ledgerEntry.setType(LedgerEntry.Type.valueOf(resultSet.getString(3).toUpperCase()));
+        ledgerEntry.setName(resultSet.getString(4));
+        ledgerEntry.setAmountCents(Money.toCents(resultSet.getBigDecimal(5)));
+
+        return ledgerEntry;
+    };
+
+    private JdbcTemplate jdbcTemplate;
+    private final int budgetId;
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+
+    /**
+     * Reads and writes the {@link BudgetSummaryDao#DEFAULT_BUDGET_ID default budget}.
+     */
+    public JdbcLedgerEntryDao(DataSource dataSource) {
+        this(dataSource, BudgetSummaryDao.DEFAULT_BUDGET_ID);
+    }
+
+    /**
+     * @param budgetId the budget every read and write is scoped to; entries of other budgets
+     *                 are never returned or deleted, even by id
+     */
+    public JdbcLedgerEntryDao(DataSource dataSource, int budgetId) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.budgetId = budgetId;
+    }
+
+    /**
+     * Sets how many rows {@link #forEachLedgerEntry} pulls from the server per round trip.
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Returns up to {@code limit} entries dated from {@code fromDate} to {@code toDate}, both
+     * inclusive, oldest first, starting after the entry identified by {@code afterDate} and
+     * {@code afterId}, or from the start of the range when {@code afterDate} is null. Seeking
+     * on the (budget_id, entry_date, ledger_entry_id) key keeps every page equally cheap.
+     */
+    @Override
+    public List<LedgerEntry> getLedgerEntriesPage(LocalDate fromDate, LocalDate toDate, LocalDate afterDate,
+                                                  long afterId, int limit) {
+        try {
+            if (afterDate == null) {
+                return jdbcTemplate.query("SELECT " + COLUMNS + " FROM ledger_entry " +
+                                "WHERE budget_id = ? AND entry_date >= ? AND entry_date <= ? " +
+                                "ORDER BY entry_date, ledger_entry_id LIMIT ?",
+                        LEDGER_ENTRY_MAPPER, budgetId, fromDate, toDate, limit);
+            }
+            return jdbcTemplate.query("SELECT " + COLUMNS + " FROM ledger_entry " +
+                            "WHERE budget_id = ? AND entry_date >= ? AND entry_date <= ? " +
+                            "AND (entry_date, ledger_entry_id) > (?, ?) " +
+                            "ORDER BY entry_date, ledger_entry_id LIMIT ?",
+                    LEDGER_ENTRY_MAPPER, budgetId, fromDate, toDate, afterDate, afterId, limit);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        }
+    }
+
+    /**
+     * Streams the entries dated from {@code fromDate} to {@code toDate}, both inclusive, oldest
+     * first, through a cursor, so the range is never held in memory at once.
+     */
+    @Override
+    public void forEachLedgerEntry(LocalDate fromDate, LocalDate toDate, Consumer<LedgerEntry> action) {
+        String sql = "SELECT " + COLUMNS + " FROM ledger_entry " +
+                "WHERE budget_id = ? AND entry_date >= ? AND entry_date <= ? " +
+                "ORDER BY entry_date, ledger_entry_id";
+
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                // PostgreSQL only reads through a cursor, honouring the fetch size,
+                // when the query runs inside a transaction.
+                boolean autoCommit = connection.getAutoCommit();
+                if (autoCommit) {
+                    connection.setAutoCommit(false);
+                }
+
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setInt(1, budgetId);
+                    statement.setObject(2, fromDate);
+                    statement.setObject(3, toDate);
+                    statement.setFetchSize(fetchSize);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        int rowNumber = 0;
+                        while (resultSet.next()) {
+                            action.accept(LEDGER_ENTRY_MAPPER.mapRow(resultSet, rowNumber++));
+                        }
+                    }
+                } finally {
+                    if (autoCommit) {
+                        connection.rollback();
+                        connection.setAutoCommit(true);
+                    }
+                }
+                return null;
+            });
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        }
+    }
+
+    @Override
+    public LedgerEntry createLedgerEntry(LedgerEntry ledgerEntry) {
+        List<LedgerEntry> newLedgerEntries;
+
+        String sql = "SELECT " + COLUMNS + " FROM add_ledger_entry(?, ?, ?, ?, ?)";
+
+        try {
+            newLedgerEntries = jdbcTemplate.query(
+                    sql,
+                    LEDGER_ENTRY_MAPPER,
+                    budgetId,
+                    ledgerEntry.getEntryDate(),
+                    ledgerEntry.getType().name().toLowerCase(),
+                    ledgerEntry.getName(),
+                    ledgerEntry.getAmount()
+            );
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        } catch (DataIntegrityViolationException e) {
+            throw new DaoException("Data integrity violation", e);
+        }
+
+        return newLedgerEntries.isEmpty() ? null : newLedgerEntries.get(0);
+    }
+
+    /**
+     * Takes the entry's date as well as its id so only that month's partition is searched.
+     */
+    @Override
+    public int deleteLedgerEntry(LocalDate entryDate, long ledgerEntryId) {
+        String sql = "DELETE FROM ledger_entry WHERE budget_id = ? AND entry_date = ? AND ledger_entry_id = ?";
+
+        try {
+            return jdbcTemplate.update(sql, budgetId, entryDate, ledgerEntryId);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        }
+    }
+}
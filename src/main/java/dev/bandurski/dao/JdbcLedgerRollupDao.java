@@ -0,0 +1,131 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.model.BudgetVariance;
+import dev.bandurski.model.LedgerEntry;
+import dev.bandurski.model.Money;
+import dev.bandurski.model.MonthlySummary;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Reads one budget's per-month ledger aggregates that triggers on ledger_entry keep current,
+ * so trend and variance screens cost one row per month rather than one per entry.
+ */
+public class JdbcLedgerRollupDao implements LedgerRollupDao {
+
+    // Map by column index, in the order the queries below select the columns.
+    private static final RowMapper<MonthlySummary> MONTHLY_SUMMARY_MAPPER = (resultSet, rowNumber) -> {
+        MonthlySummary summary = new MonthlySummary();
+        summary.setMonth(YearMonth.from(resultSet.getObject(1, LocalDate.class)));
+        summary.setIncomeTotal(resultSet.getBigDecimal(2));
+        summary.setExpenseTotal(resultSet.getBigDecimal(3));
+        summary.setEntryCount(resultSet.getInt(4));
+        summary.setNetIncome(Money.toBigDecimal(Money.subtract(Money.toCents(summary.getIncomeTotal()),
+                Money.toCents(summary.getExpenseTotal()))));
+
+        return summary;
+    };
+
+    private static final RowMapper<BudgetVariance> BUDGET_VARIANCE_MAPPER = (resultSet, rowNumber) -> {
+        BudgetVariance variance = new BudgetVariance();
+        variance.setType(LedgerEntry.Type.valueOf(resultSet.getString(1).toUpperCase()));
+        variance.setName(resultSet.getString(2));
+        variance.setBudgeted(resultSet.getBigDecimal(3));
+        variance.setActual(resultSet.getBigDecimal(4));
+        variance.setEntryCount(resultSet.getInt(5));
+
+        return variance;
+    };
+
+    private JdbcTemplate jdbcTemplate;
+    private final int budgetId;
+
+    /**
+     * Reads the {@link BudgetSummaryDao#DEFAULT_BUDGET_ID default budget}.
+     */
+    public JdbcLedgerRollupDao(DataSource dataSource) {
+        this(dataSource, BudgetSummaryDao.DEFAULT_BUDGET_ID);
+    }
+
+    /**
+     * @param budgetId the budget every summary, variance and refresh is scoped to
+     */
+    public JdbcLedgerRollupDao(DataSource dataSource, int budgetId) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.budgetId = budgetId;
+    }
+
+    /**
+     * @return one summary per month from {@code fromMonth} to {@code toMonth} inclusive that
+     *         has entries, oldest first
+     */
+    @Override
+    public List<MonthlySummary> getMonthlySummaries(YearMonth fromMonth, YearMonth toMonth) {
+        String sql = "SELECT entry_month, income_total, expense_total, " +
+                "income_count + expense_count AS entry_count " +
+                "FROM ledger_month_totals " +
+                "WHERE budget_id = ? AND entry_month >= ? AND entry_month <= ? " +
+                "ORDER BY entry_month";
+
+        try {
+            return jdbcTemplate.query(sql, MONTHLY_SUMMARY_MAPPER, budgetId, fromMonth.atDay(1), toMonth.atDay(1));
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        }
+    }
+
+    /**
+     * Pairs each income source and expense of this DAO's budget, taken as the monthly budget,
+     * with the budget's ledger totals recorded under the same name in {@code month}.
+     *
+     * @return income lines then expense lines, each ordered by name
+     */
+    @Override
+    public List<BudgetVariance> getBudgetVariances(YearMonth month) {
+        String sql = "WITH budget AS (" +
+                "SELECT 'income' AS entry_type, name, sum(amount) AS amount FROM income_source " +
+                "WHERE budget_id = ? GROUP BY name " +
+                "UNION ALL " +
+                "SELECT 'expense', name, sum(amount) FROM expense " +
+                "WHERE budget_id = ? GROUP BY name), " +
+                "actual AS (" +
+                "SELECT entry_type, name, total, entry_count FROM ledger_name_totals " +
+                "WHERE budget_id = ? AND entry_month = ?) " +
+                "SELECT coalesce(b.entry_type, a.entry_type) AS entry_type, " +
+                "coalesce(b.name, a.name) AS name, " +
+                "coalesce(b.amount, 0) AS budgeted, " +
+                "coalesce(a.total, 0) AS actual, " +
+                "coalesce(a.entry_count, 0) AS entry_count " +
+                "FROM budget b FULL JOIN actual a ON a.entry_type = b.entry_type AND a.name = b.name " +
+                "ORDER BY 1 DESC, 2";
+
+        try {
+            return jdbcTemplate.query(sql, BUDGET_VARIANCE_MAPPER, budgetId, budgetId, budgetId, month.atDay(1));
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        }
+    }
+
+    /**
+     * Rebuilds this DAO's budget's rollups for the months from {@code fromMonth} to
+     * {@code toMonth} inclusive from the ledger, for loads that bypassed the triggers.
+     */
+    @Override
+    public void refreshRollups(YearMonth fromMonth, YearMonth toMonth) {
+        String sql = "SELECT refresh_ledger_rollups(?, ?, ?)";
+
+        try {
+            // The function returns void, so there is no row worth copying out of the result.
+            jdbcTemplate.queryForObject(sql, Object.class, budgetId, fromMonth.atDay(1), toMonth.atDay(1));
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        }
+    }
+}
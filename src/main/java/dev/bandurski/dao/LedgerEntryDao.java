@@ -0,0 +1,15 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.LedgerEntry;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface LedgerEntryDao {
+    List<LedgerEntry> getLedgerEntriesPage(LocalDate fromDate, LocalDate toDate, LocalDate afterDate,
+                                           long afterId, int limit);
+    void forEachLedgerEntry(LocalDate fromDate, LocalDate toDate, Consumer<LedgerEntry> action);
+    LedgerEntry createLedgerEntry(LedgerEntry ledgerEntry);
+    int deleteLedgerEntry(LocalDate entryDate, long ledgerEntryId);
+}
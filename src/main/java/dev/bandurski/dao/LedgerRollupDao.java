@@ -0,0 +1,13 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.BudgetVariance;
+import dev.bandurski.model.MonthlySummary;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface LedgerRollupDao {
+    List<MonthlySummary> getMonthlySummaries(YearMonth fromMonth, YearMonth toMonth);
+    List<BudgetVariance> getBudgetVariances(YearMonth month);
+    void refreshRollups(YearMonth fromMonth, YearMonth toMonth);
+}
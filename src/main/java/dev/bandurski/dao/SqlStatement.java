@@ -0,0 +1,121 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.metrics.StatementStats;
+import org.postgresql.PGConnection;
+import org.postgresql.PGStatement;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.SqlProvider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A SQL statement defined once in {@link SqlStatements} and shared by every call that runs it.
+ * <p>
+ * The driver keeps prepared queries per connection keyed by their SQL text. Since the text
+ * here never varies, once a statement has run {@code prepareThreshold} times on a connection
+ * the driver parses it into a named server-side statement, and from then on that connection
+ * only binds and executes it. Executions and parses are counted so diagnostics can show how
+ * often the parse was skipped.
+ */
+public class SqlStatement {
+
+    private final String name;
+    private final String sql;
+    private final int prepareThreshold;
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder parses = new LongAdder();
+    // Physical connections that already hold this statement server side. Weak, so connections
+    // the pool retires are forgotten.
+    private final Set<PGConnection> preparedOn = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+
+    SqlStatement(String name, String sql, int prepareThreshold) {
+        this.name = name;
+        this.sql = sql;
+        this.prepareThreshold = prepareThreshold;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public <R> R query(JdbcTemplate jdbcTemplate, ResultSetExtractor<R> extractor, Object... args) {
+        return jdbcTemplate.query(new Creator(args), extractor);
+    }
+
+    public int update(JdbcTemplate jdbcTemplate, Object... args) {
+        return jdbcTemplate.update(new Creator(args));
+    }
+
+    /**
+     * Prepares the statement on a connection the caller manages, counting it as one execution.
+     */
+    public PreparedStatement prepare(Connection connection) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        try {
+            PGStatement pgStatement = statement.unwrap(PGStatement.class);
+            pgStatement.setPrepareThreshold(prepareThreshold);
+            record(connection.unwrap(PGConnection.class), pgStatement.isUseServerPrepare());
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+        return statement;
+    }
+
+    public StatementStats getStats() {
+        return new StatementStats(name, executions.sum(), parses.sum());
+    }
+
+    public void reset() {
+        executions.reset();
+        parses.reset();
+    }
+
+    private void record(PGConnection connection, boolean useServerPrepare) {
+        executions.increment();
+        // An unnamed statement is parsed every time; a named one only the first time it is
+        // used on each connection.
+        if (!useServerPrepare || preparedOn.add(connection)) {
+            parses.increment();
+        }
+    }
+
+    private class Creator implements PreparedStatementCreator, SqlProvider {
+        private final Object[] args;
+
+        Creator(Object[] args) {
+            this.args = args;
+        }
+
+        @Override
+        public PreparedStatement createPreparedStatement(Connection connection) throws SQLException {
+            PreparedStatement statement = prepare(connection);
+            try {
+                new ArgumentPreparedStatementSetter(args).setValues(statement);
+            } catch (SQLException e) {
+                statement.close();
+                throw e;
+            }
+            return statement;
+        }
+
+        @Override
+        public String getSql() {
+            return sql;
+        }
+    }
+}
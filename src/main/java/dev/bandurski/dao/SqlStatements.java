@@ -0,0 +1,128 @@
+package dev.bandurski.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Every statement the expense and income source DAOs run, each defined once so its SQL text,
+ * and with it the driver's per-connection prepared statement, is shared by all callers.
+ * Each one only sees the rows of the budget passed as its budget_id parameter.
+ */
+public final class SqlStatements {
+
+    // -Dbudget.jdbc.prepareThreshold sets how many runs on a connection it takes before a
+    // statement is prepared server side; 0 never prepares. These statements repeat for the life
+    // of the application, so by default they are prepared on first use.
+    private static final int PREPARE_THRESHOLD = Integer.getInteger("budget.jdbc.prepareThreshold", 1);
+
+    private static final List<SqlStatement> STATEMENTS = new ArrayList<>();
+
+    public static final SqlStatement EXPENSE_SELECT_ALL = register("expense.selectAll",
+            "SELECT expense_id, name, amount, version FROM expense WHERE budget_id = ? ORDER BY amount DESC");
+    public static final SqlStatement EXPENSE_SELECT_FIRST_PAGE = register("expense.selectFirstPage",
+            "SELECT expense_id, name, amount, version FROM expense WHERE budget_id = ? " +
+                    "ORDER BY amount DESC, expense_id DESC LIMIT ?");
+    public static final SqlStatement EXPENSE_SELECT_PAGE_AFTER = register("expense.selectPageAfter",
+            "SELECT expense_id, name, amount, version FROM expense " +
+                    "WHERE budget_id = ? AND (amount, expense_id) < (?, ?) " +
+                    "ORDER BY amount DESC, expense_id DESC LIMIT ?");
+    public static final SqlStatement EXPENSE_SELECT_BY_ID = register("expense.selectById",
+            "SELECT expense_id, name, amount, version FROM expense WHERE budget_id = ? AND expense_id = ?");
+    public static final SqlStatement EXPENSE_SELECT_BY_IDS = register("expense.selectByIds",
+            "SELECT expense_id, name, amount, version FROM expense " +
+                    "WHERE budget_id = ? AND expense_id = ANY(?::int[])");
+    public static final SqlStatement EXPENSE_INSERT = register("expense.insert",
+            "INSERT INTO expense (budget_id, name, amount) " +
+                    "VALUES (?, ?, ?) RETURNING expense_id, name, amount, version");
+    // Compare-and-set on the version the caller read; version 0 matches any.
+    public static final SqlStatement EXPENSE_UPDATE = register("expense.update",
+            "UPDATE expense SET name = ?, amount = ?, version = version + 1 " +
+                    "WHERE budget_id = ? AND expense_id = ? AND ? IN (0, version) " +
+                    "RETURNING expense_id, name, amount, version");
+    public static final SqlStatement EXPENSE_DELETE = register("expense.delete",
+            "DELETE FROM expense WHERE budget_id = ? AND expense_id = ?");
+    public static final SqlStatement EXPENSE_INSERT_ALL = register("expense.insertAll",
+            "INSERT INTO expense (budget_id, name, amount) " +
+                    "SELECT ?::int, name, amount FROM unnest(?::varchar[], ?::numeric[]) " +
+                    "WITH ORDINALITY AS new_expense(name, amount, position) ORDER BY position " +
+                    "RETURNING expense_id, name, amount, version");
+    // The NOT EXISTS guard makes the whole statement a no-op when any id is missing from the
+    // budget or any version has moved on, so a partial update is never left behind.
+    public static final SqlStatement EXPENSE_UPDATE_ALL = register("expense.updateAll",
+            "WITH changed AS (" +
+                    "SELECT ?::int AS budget_id, * FROM unnest(?::int[], ?::varchar[], ?::numeric[], ?::int[]) " +
+                    "AS c(expense_id, name, amount, version)) " +
+                    "UPDATE expense SET name = changed.name, amount = changed.amount, " +
+                    "version = expense.version + 1 FROM changed " +
+                    "WHERE expense.budget_id = changed.budget_id AND expense.expense_id = changed.expense_id " +
+                    "AND NOT EXISTS (SELECT 1 FROM changed " +
+                    "LEFT JOIN expense existing USING (budget_id, expense_id) " +
+                    "WHERE existing.expense_id IS NULL OR changed.version NOT IN (0, existing.version)) " +
+                    "RETURNING expense.expense_id, expense.name, expense.amount, expense.version");
+    public static final SqlStatement EXPENSE_DELETE_ALL = register("expense.deleteAll",
+            "DELETE FROM expense WHERE budget_id = ? AND expense_id = ANY(?::int[]) RETURNING expense_id");
+
+    public static final SqlStatement INCOME_SOURCE_SELECT_ALL = register("incomeSource.selectAll",
+            "SELECT income_source_id, name, amount, version FROM income_source WHERE budget_id = ? " +
+                    "ORDER BY amount DESC");
+    public static final SqlStatement INCOME_SOURCE_SELECT_FIRST_PAGE = register("incomeSource.selectFirstPage",
+            "SELECT income_source_id, name, amount, version FROM income_source WHERE budget_id = ? " +
+                    "ORDER BY amount DESC, income_source_id DESC LIMIT ?");
+    public static final SqlStatement INCOME_SOURCE_SELECT_PAGE_AFTER = register("incomeSource.selectPageAfter",
+            "SELECT income_source_id, name, amount, version FROM income_source " +
+                    "WHERE budget_id = ? AND (amount, income_source_id) < (?, ?) " +
+                    "ORDER BY amount DESC, income_source_id DESC LIMIT ?");
+    public static final SqlStatement INCOME_SOURCE_SELECT_BY_ID = register("incomeSource.selectById",
+            "SELECT income_source_id, name, amount, version FROM income_source " +
+                    "WHERE budget_id = ? AND income_source_id = ?");
+    public static final SqlStatement INCOME_SOURCE_SELECT_BY_IDS = register("incomeSource.selectByIds",
+            "SELECT income_source_id, name, amount, version FROM income_source " +
+                    "WHERE budget_id = ? AND income_source_id = ANY(?::int[])");
+    public static final SqlStatement INCOME_SOURCE_INSERT = register("incomeSource.insert",
+            "INSERT INTO income_source (budget_id, name, amount) " +
+                    "VALUES (?, ?, ?) RETURNING income_source_id, name, amount, version");
+    public static final SqlStatement INCOME_SOURCE_UPDATE = register("incomeSource.update",
+            "UPDATE income_source SET name = ?, amount = ?, version = version + 1 " +
+                    "WHERE budget_id = ? AND income_source_id = ? AND ? IN (0, version) " +
+                    "RETURNING income_source_id, name, amount, version");
+    public static final SqlStatement INCOME_SOURCE_DELETE = register("incomeSource.delete",
+            "DELETE FROM income_source WHERE budget_id = ? AND income_source_id = ?");
+    public static final SqlStatement INCOME_SOURCE_INSERT_ALL = register("incomeSource.insertAll",
+            "INSERT INTO income_source (budget_id, name, amount) " +
+                    "SELECT ?::int, name, amount FROM unnest(?::varchar[], ?::numeric[]) " +
+                    "WITH ORDINALITY AS new_income_source(name, amount, position) ORDER BY position " +
+                    "RETURNING income_source_id, name, amount, version");
+    public static final SqlStatement INCOME_SOURCE_UPDATE_ALL = register("incomeSource.updateAll",
+            "WITH changed AS (" +
+                    "SELECT ?::int AS budget_id, * FROM unnest(?::int[], ?::varchar[], ?::numeric[], ?::int[]) " +
+                    "AS c(income_source_id, name, amount, version)) " +
+                    "UPDATE income_source SET name = changed.name, amount = changed.amount, " +
+                    "version = income_source.version + 1 FROM changed " +
+                    "WHERE income_source.budget_id = changed.budget_id " +
+                    "AND income_source.income_source_id = changed.income_source_id " +
+                    "AND NOT EXISTS (SELECT 1 FROM changed " +
+                    "LEFT JOIN income_source existing USING (budget_id, income_source_id) " +
+                    "WHERE existing.income_source_id IS NULL OR changed.version NOT IN (0, existing.version)) " +
+                    "RETURNING income_source.income_source_id, income_source.name, income_source.amount, " +
+                    "income_source.version");
+    public static final SqlStatement INCOME_SOURCE_DELETE_ALL = register("incomeSource.deleteAll",
+            "DELETE FROM income_source WHERE budget_id = ? AND income_source_id = ANY(?::int[]) " +
+                    "RETURNING income_source_id");
+
+    private SqlStatements() {
+    }
+
+    /**
+     * @return every registered statement, in definition order
+     */
+    public static List<SqlStatement> all() {
+        return Collections.unmodifiableList(STATEMENTS);
+    }
+
+    private static SqlStatement register(String name, String sql) {
+        SqlStatement statement = new SqlStatement(name, sql, PREPARE_THRESHOLD);
+        STATEMENTS.add(statement);
+        return statement;
+    }
+}
@@ -0,0 +1,98 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.Money;
+import dev.bandurski.model.Transaction;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Maps id, name, amount and version rows to a {@link Transaction} type straight from the driver's
+ * {@link ResultSet}.
+ * <p>
+ * Column positions are looked up by label once per result set and every cell after that is
+ * read by index, so there is no per-cell name lookup and no copy of the rows into a row set.
+ */
+public class TransactionMapper<T extends Transaction> {
+
+    /**
+     * Builds one transaction from a row's values; expected to be a constructor-like lambda.
+     */
+    @FunctionalInterface
+    public interface Factory<T> {
+        T create(int id, String name, long amountCents, int version);
+    }
+
+    private final String idColumn;
+    private final Factory<T> factory;
+
+    public TransactionMapper(String idColumn, Factory<T> factory) {
+        this.idColumn = idColumn;
+        this.factory = factory;
+    }
+
+    /**
+     * @param expectedRows initial capacity of the list, the number of rows the caller expects
+     */
+    public ResultSetExtractor<List<T>> toList(int expectedRows) {
+        return resultSet -> mapAll(resultSet, expectedRows);
+    }
+
+    /**
+     * Reads only the id column, for statements that return the ids of the rows they touched.
+     *
+     * @param expectedRows the number of rows the caller expects
+     */
+    public ResultSetExtractor<int[]> toIds(int expectedRows) {
+        return resultSet -> {
+            int id = resultSet.findColumn(idColumn);
+            int[] ids = new int[expectedRows];
+            int count = 0;
+            while (resultSet.next()) {
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, Math.max(1, count * 2));
+                }
+                ids[count++] = resultSet.getInt(id);
+            }
+            return count == ids.length ? ids : Arrays.copyOf(ids, count);
+        };
+    }
+
+    public List<T> mapAll(ResultSet resultSet, int expectedRows) throws SQLException {
+        int id = resultSet.findColumn(idColumn);
+        int name = resultSet.findColumn("name");
+        int amount = resultSet.findColumn("amount");
+        int version = resultSet.findColumn("version");
+
+        List<T> transactions = new ArrayList<>(expectedRows);
+        while (resultSet.next()) {
+            transactions.add(mapRow(resultSet, id, name, amount, version));
+        }
+        return transactions;
+    }
+
+    public void forEach(ResultSet resultSet, Consumer<T> action) throws SQLException {
+        int id = resultSet.findColumn(idColumn);
+        int name = resultSet.findColumn("name");
+        int amount = resultSet.findColumn("amount");
+        int version = resultSet.findColumn("version");
+
+        while (resultSet.next()) {
+            action.accept(mapRow(resultSet, id, name, amount, version));
+        }
+    }
+
+    private T mapRow(ResultSet resultSet, int id, int name, int amount, int version) throws SQLException {
+        return factory.create(
+                resultSet.getInt(id),
+                resultSet.getString(name),
+                Money.toCents(resultSet.getBigDecimal(amount)),
+                resultSet.getInt(version)
+        );
+    }
+}
@@ -0,0 +1,117 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.Expense;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Buffers writes in front of another {@link ExpenseDao} and saves them in batches, so that
+ * editing the same expense several times costs one write.
+ * <p>
+ * Reads merge the pending writes over the DAO underneath. New expenses have negative ids
+ * until they are flushed. Writes are flushed once {@code maxPending} rows have pending
+ * changes, whenever {@link #flush()} is called, and before {@link #forEachExpense(Consumer)}
+ * streams the stored rows. Errors the database would raise, such as a duplicate name, only
+ * surface when the write is flushed.
+ */
+public class WriteBehindExpenseDao implements ExpenseDao {
+
+    private final ExpenseDao delegate;
+    private final WriteBuffer<Expense> buffer;
+
+    /**
+     * @param transactions  runs each flush in a transaction
+     * @param afterRollback called when a flush is rolled back, to drop anything cached below
+     */
+    public WriteBehindExpenseDao(ExpenseDao delegate, TransactionOperations transactions,
+                                 Runnable afterRollback, int maxPending) {
+        this.delegate = delegate;
+        this.buffer = new WriteBuffer<>(Expense::getExpenseId, Expense::getVersion,
+                WriteBehindExpenseDao::newExpense,
+                delegate::createExpenses, delegate::updateExpenses, delegate::deleteExpensesByIds,
+                transactions, afterRollback, maxPending);
+    }
+
+    @Override
+    public List<Expense> getExpenses() {
+        return buffer.getAll(delegate::getExpenses);
+    }
+
+    @Override
+    public List<Expense> getExpensesPage(BigDecimal afterAmount, int afterId, int limit) {
+        return buffer.getPage(afterAmount, afterId, limit, delegate::getExpensesPage);
+    }
+
+    @Override
+    public void forEachExpense(Consumer<Expense> action) {
+        buffer.flush();
+        delegate.forEachExpense(action);
+    }
+
+    @Override
+    public Expense getExpenseById(int expenseId) {
+        return buffer.get(expenseId, delegate::getExpenseById);
+    }
+
+    @Override
+    public Expense createExpense(Expense expense) {
+        return buffer.create(expense);
+    }
+
+    @Override
+    public Expense updateExpense(Expense expense) {
+        return buffer.update(expense, delegate::getExpenseById);
+    }
+
+    @Override
+    public int deleteExpenseById(int expenseId) {
+        return buffer.delete(new int[]{expenseId}, delegate::getExpenseById).length;
+    }
+
+    @Override
+    public List<Expense> createExpenses(List<Expense> expenses) {
+        return buffer.createAll(expenses);
+    }
+
+    @Override
+    public List<Expense> updateExpenses(List<Expense> expenses) {
+        return buffer.updateAll(expenses, delegate::getExpenseById);
+    }
+
+    @Override
+    public int[] deleteExpensesByIds(int[] expenseIds) {
+        return buffer.delete(expenseIds, delegate::getExpenseById);
+    }
+
+    /**
+     * Saves every pending write and reports any failure kept by a background flush.
+     *
+     * @throws dev.bandurski.exception.DaoException when some writes could not be saved; the others are saved
+     */
+    public void flush() {
+        buffer.flush();
+    }
+
+    /**
+     * Saves every pending write, keeping any failure for the next {@link #flush()} to report.
+     */
+    public void flushInBackground() {
+        buffer.flushInBackground();
+    }
+
+    public int getPendingCount() {
+        return buffer.getPendingCount();
+    }
+
+    private static Expense newExpense(int expenseId, String name, long amountCents, int version) {
+        Expense expense = new Expense();
+        expense.setExpenseId(expenseId);
+        expense.setName(name);
+        expense.setAmountCents(amountCents);
+        expense.setVersion(version);
+        return expense;
+    }
+}
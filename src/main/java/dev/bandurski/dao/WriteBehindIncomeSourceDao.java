@@ -0,0 +1,117 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.IncomeSource;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Buffers writes in front of another {@link IncomeSourceDao} and saves them in batches, so that
+ * editing the same income source several times costs one write.
+ * <p>
+ * Reads merge the pending writes over the DAO underneath. New income sources have negative ids
+ * until they are flushed. Writes are flushed once {@code maxPending} rows have pending
+ * changes, whenever {@link #flush()} is called, and before {@link #forEachIncomeSource(Consumer)}
+ * streams the stored rows. Errors the database would raise, such as a duplicate name, only
+ * surface when the write is flushed.
+ */
+public class WriteBehindIncomeSourceDao implements IncomeSourceDao {
+
+    private final IncomeSourceDao delegate;
+    private final WriteBuffer<IncomeSource> buffer;
+
+    /**
+     * @param transactions  runs each flush in a transaction
+     * @param afterRollback called when a flush is rolled back, to drop anything cached below
+     */
+    public WriteBehindIncomeSourceDao(IncomeSourceDao delegate, TransactionOperations transactions,
+                                      Runnable afterRollback, int maxPending) {
+        this.delegate = delegate;
+        this.buffer = new WriteBuffer<>(IncomeSource::getIncomeSourceId, IncomeSource::getVersion,
+                WriteBehindIncomeSourceDao::newIncomeSource,
+                delegate::createIncomeSources, delegate::updateIncomeSources, delegate::deleteIncomeSourcesByIds,
+                transactions, afterRollback, maxPending);
+    }
+
+    @Override
+    public List<IncomeSource> getIncomeSources() {
+        return buffer.getAll(delegate::getIncomeSources);
+    }
+
+    @Override
+    public List<IncomeSource> getIncomeSourcesPage(BigDecimal afterAmount, int afterId, int limit) {
+        return buffer.getPage(afterAmount, afterId, limit, delegate::getIncomeSourcesPage);
+    }
+
+    @Override
+    public void forEachIncomeSource(Consumer<IncomeSource> action) {
+        buffer.flush();
+        delegate.forEachIncomeSource(action);
+    }
+
+    @Override
+    public IncomeSource getIncomeSourceById(int incomeSourceId) {
+        return buffer.get(incomeSourceId, delegate::getIncomeSourceById);
+    }
+
+    @Override
+    public IncomeSource createIncomeSource(IncomeSource incomeSource) {
+        return buffer.create(incomeSource);
+    }
+
+    @Override
+    public IncomeSource updateIncomeSource(IncomeSource incomeSource) {
+        return buffer.update(incomeSource, delegate::getIncomeSourceById);
+    }
+
+    @Override
+    public int deleteIncomeSourceById(int incomeSourceId) {
+        return buffer.delete(new int[]{incomeSourceId}, delegate::getIncomeSourceById).length;
+    }
+
+    @Override
+    public List<IncomeSource> createIncomeSources(List<IncomeSource> incomeSources) {
+        return buffer.createAll(incomeSources);
+    }
+
+    @Override
+    public List<IncomeSource> updateIncomeSources(List<IncomeSource> incomeSources) {
+        return buffer.updateAll(incomeSources, delegate::getIncomeSourceById);
+    }
+
+    @Override
+    public int[] deleteIncomeSourcesByIds(int[] incomeSourceIds) {
+        return buffer.delete(incomeSourceIds, delegate::getIncomeSourceById);
+    }
+
+    /**
+     * Saves every pending write and reports any failure kept by a background flush.
+     *
+     * @throws dev.bandurski.exception.DaoException when some writes could not be saved; the others are saved
+     */
+    public void flush() {
+        buffer.flush();
+    }
+
+    /**
+     * Saves every pending write, keeping any failure for the next {@link #flush()} to report.
+     */
+    public void flushInBackground() {
+        buffer.flushInBackground();
+    }
+
+    public int getPendingCount() {
+        return buffer.getPendingCount();
+    }
+
+    private static IncomeSource newIncomeSource(int incomeSourceId, String name, long amountCents, int version) {
+        IncomeSource incomeSource = new IncomeSource();
+        incomeSource.setIncomeSourceId(incomeSourceId);
+        incomeSource.setName(name);
+        incomeSource.setAmountCents(amountCents);
+        incomeSource.setVersion(version);
+        return incomeSource;
+    }
+}
@@ -0,0 +1,443 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.exception.MissingRowsException;
+import dev.bandurski.exception.UpdateConflictException;
+import dev.bandurski.model.Money;
+import dev.bandurski.model.Transaction;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Pending writes shared by the write-behind DAOs, and the logic that merges them into reads
+ * and flushes them to the DAO underneath.
+ * <p>
+ * Repeated writes to the same row collapse into one: an update of a pending create stays a
+ * create, and deleting a pending create drops it. New rows get negative temporary ids until
+ * they are flushed; callers may keep using those ids afterwards, as they resolve to the
+ * rows' real ids.
+ * <p>
+ * A pending update shows the version the row will have once it is saved, and is saved as a
+ * compare-and-set on the version the first of the merged updates was based on. The version
+ * is checked against the DAO underneath when the update is made, but that may be a cache,
+ * so a change by another client can first be noticed when the update is flushed; the flush
+ * then throws an {@link UpdateConflictException} carrying the row as it is now.
+ * <p>
+ * A flush applies deletes, then updates, then creates in one transaction. If that fails,
+ * each write is retried in its own transaction so one bad write cannot hold back the rest;
+ * the writes that still fail are dropped and reported. A background flush keeps its failure
+ * for the next {@link #flush()} to report, so it is never lost and never blamed on a later,
+ * unrelated write.
+ * <p>
+ * Reads load from the DAO underneath while holding the buffer's lock, so a flush can never
+ * empty the pending writes between the load and the merge.
+ */
+class WriteBuffer<T extends Transaction> {
+
+    /**
+     * Loads a page of the underlying listing, as {@code getExpensesPage} does.
+     */
+    interface PageLoader<T> {
+        List<T> load(BigDecimal afterAmount, int afterId, int limit);
+    }
+
+    private final ToIntFunction<T> idOf;
+    private final ToIntFunction<T> versionOf;
+    private final TransactionMapper.Factory<T> factory;
+    private final Function<List<T>, List<T>> createAll;
+    private final Function<List<T>, List<T>> updateAll;
+    private final Consumer<int[]> deleteAll;
+    private final TransactionOperations transactions;
+    private final Runnable afterRollback;
+    private final int maxPending;
+    // Same order as the listings: largest amount first, then newest first. Rows that have
+    // not been flushed yet are newer than every stored row.
+    private final Comparator<T> listingOrder;
+
+    private final Map<Integer, T> created = new LinkedHashMap<>();
+    private final Map<Integer, T> updated = new LinkedHashMap<>();
+    // The version each pending update must still find when it is saved.
+    private final Map<Integer, Integer> expectedVersions = new HashMap<>();
+    private final Set<Integer> deleted = new LinkedHashSet<>();
+    private final Map<Integer, Integer> flushedIds = new HashMap<>();
+    private int nextTemporaryId = -1;
+    // A background flush failure, reported by the next foreground flush.
+    private DaoException failure;
+
+    WriteBuffer(ToIntFunction<T> idOf, ToIntFunction<T> versionOf, TransactionMapper.Factory<T> factory,
+                Function<List<T>, List<T>> createAll, Function<List<T>, List<T>> updateAll,
+                Consumer<int[]> deleteAll, TransactionOperations transactions,
+                Runnable afterRollback, int maxPending) {
+        this.idOf = idOf;
+        this.versionOf = versionOf;
+        this.factory = factory;
+        this.createAll = createAll;
+        this.updateAll = updateAll;
+        this.deleteAll = deleteAll;
+        this.transactions = transactions;
+        this.afterRollback = afterRollback;
+        this.maxPending = maxPending;
+        this.listingOrder = Comparator.comparingLong((T value) -> value.getAmountCents())
+                .thenComparingLong(value -> sortKey(idOf.applyAsInt(value)))
+                .reversed();
+    }
+
+    synchronized int getPendingCount() {
+        return created.size() + updated.size() + deleted.size();
+    }
+
+    synchronized T get(int id, IntFunction<T> loader) {
+        id = resolve(id);
+        if (created.containsKey(id)) {
+            return created.get(id);
+        }
+        if (deleted.contains(id)) {
+            return null;
+        }
+        T value = updated.get(id);
+        return value != null ? value : loader.apply(id);
+    }
+
+    synchronized List<T> getAll(Supplier<List<T>> loader) {
+        List<T> stored = loader.get();
+        if (getPendingCount() == 0) {
+            return stored;
+        }
+
+        List<T> merged = new ArrayList<>(stored.size() + created.size());
+        for (T value : stored) {
+            int id = idOf.applyAsInt(value);
+            if (!updated.containsKey(id) && !deleted.contains(id)) {
+                merged.add(value);
+            }
+        }
+        merged.addAll(updated.values());
+        merged.addAll(created.values());
+        merged.sort(listingOrder);
+        return merged;
+    }
+
+    synchronized List<T> getPage(BigDecimal afterAmount, int afterId, int limit, PageLoader<T> loader) {
+        if (getPendingCount() == 0) {
+            return loader.load(afterAmount, afterId, limit);
+        }
+
+        // Every stored row that a pending write changes may be filtered out of the page, so
+        // read that many more. Stored rows with the cursor's amount all follow a new row.
+        int storedAfterId = afterId < 0 ? Integer.MAX_VALUE : afterId;
+        List<T> stored = loader.load(afterAmount, storedAfterId, limit + updated.size() + deleted.size());
+
+        List<T> page = new ArrayList<>(stored.size() + created.size());
+        for (T value : stored) {
+            int id = idOf.applyAsInt(value);
+            if (!updated.containsKey(id) && !deleted.contains(id)) {
+                page.add(value);
+            }
+        }
+        T cursor = afterAmount == null ? null : factory.create(afterId, null, Money.toCents(afterAmount), 0);
+        for (T value : updated.values()) {
+            if (cursor == null || listingOrder.compare(value, cursor) > 0) {
+                page.add(value);
+            }
+        }
+        for (T value : created.values()) {
+            if (cursor == null || listingOrder.compare(value, cursor) > 0) {
+                page.add(value);
+            }
+        }
+        page.sort(listingOrder);
+        return page.size() > limit ? new ArrayList<>(page.subList(0, limit)) : page;
+    }
+
+    synchronized T create(T value) {
+        T pending = factory.create(nextTemporaryId--, value.getName(), value.getAmountCents(), 1);
+        created.put(idOf.applyAsInt(pending), pending);
+        flushIfFull();
+        return pending;
+    }
+
+    synchronized List<T> createAll(List<T> values) {
+        List<T> pending = new ArrayList<>(values.size());
+        for (T value : values) {
+            T newValue = factory.create(nextTemporaryId--, value.getName(), value.getAmountCents(), 1);
+            created.put(idOf.applyAsInt(newValue), newValue);
+            pending.add(newValue);
+        }
+        flushIfFull();
+        return pending;
+    }
+
+    /**
+     * @param loader reads a row with no pending writes, to check that it exists and that the
+     *               update is based on its current version
+     */
+    synchronized T update(T value, IntFunction<T> loader) {
+        int id = resolve(idOf.applyAsInt(value));
+        T current = current(id, loader);
+        if (current == null) {
+            throw new DaoException("Zero rows affected, expected at least one");
+        }
+        checkVersion(id, value, current);
+
+        T pending = put(id, value, current);
+        flushIfFull();
+        return pending;
+    }
+
+    synchronized List<T> updateAll(List<T> values, IntFunction<T> loader) {
+        // Like the single statement the database runs, either every row is updated or none.
+        List<T> current = new ArrayList<>(values.size());
+        List<Integer> missingIds = new ArrayList<>();
+        for (T value : values) {
+            int id = resolve(idOf.applyAsInt(value));
+            T row = current(id, loader);
+            if (row == null) {
+                missingIds.add(idOf.applyAsInt(value));
+                continue;
+            }
+            checkVersion(id, value, row);
+            current.add(row);
+        }
+        if (!missingIds.isEmpty()) {
+            throw new MissingRowsException("Rows not found: " + missingIds,
+                    missingIds.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        List<T> pending = new ArrayList<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            T value = values.get(i);
+            pending.add(put(resolve(idOf.applyAsInt(value)), value, current.get(i)));
+        }
+        flushIfFull();
+        return pending;
+    }
+
+    /**
+     * @return the ids, as given, of the rows deleted
+     */
+    synchronized int[] delete(int[] ids, IntFunction<T> loader) {
+        int[] deletedIds = new int[ids.length];
+        int count = 0;
+        for (int givenId : ids) {
+            int id = resolve(givenId);
+            if (created.remove(id) != null) {
+                deletedIds[count++] = givenId;
+            } else if (current(id, loader) != null) {
+                updated.remove(id);
+                expectedVersions.remove(id);
+                deleted.add(id);
+                deletedIds[count++] = givenId;
+            }
+        }
+        flushIfFull();
+        return Arrays.copyOf(deletedIds, count);
+    }
+
+    /**
+     * Writes every pending change to the DAO underneath, and reports any failure kept by an
+     * earlier background flush.
+     *
+     * @throws DaoException when some writes could not be saved; the others are saved
+     */
+    synchronized void flush() {
+        DaoException earlier = failure;
+        failure = null;
+        try {
+            flushPending();
+        } catch (DaoException e) {
+            throw earlier == null ? e : combine(earlier, e);
+        }
+        if (earlier != null) {
+            throw earlier;
+        }
+    }
+
+    /**
+     * Flushes from a background thread, keeping any failure for the next {@link #flush()} to report.
+     */
+    synchronized void flushInBackground() {
+        try {
+            flushPending();
+        } catch (DaoException e) {
+            failure = failure == null ? e : combine(failure, e);
+        }
+    }
+
+    private void flushPending() {
+        if (getPendingCount() == 0) {
+            return;
+        }
+
+        List<Integer> temporaryIds = new ArrayList<>(created.keySet());
+        List<T> creates = new ArrayList<>(created.values());
+        List<T> updates = new ArrayList<>(updated.size());
+        for (T value : updated.values()) {
+            int id = idOf.applyAsInt(value);
+            updates.add(factory.create(id, value.getName(), value.getAmountCents(), expectedVersions.get(id)));
+        }
+        int[] deletes = deleted.stream().mapToInt(Integer::intValue).toArray();
+        created.clear();
+        updated.clear();
+        expectedVersions.clear();
+        deleted.clear();
+
+        try {
+            List<T> newValues = transactions.execute(status -> apply(creates, updates, deletes));
+            recordIds(temporaryIds, newValues);
+        } catch (RuntimeException e) {
+            afterRollback.run();
+            flushEach(temporaryIds, creates, updates, deletes);
+        }
+    }
+
+    private List<T> apply(List<T> creates, List<T> updates, int[] deletes) {
+        // Deletes and renames first, so a new row may reuse a name they free.
+        if (deletes.length > 0) {
+            deleteAll.accept(deletes);
+        }
+        if (!updates.isEmpty()) {
+            updateAll.apply(updates);
+        }
+        return creates.isEmpty() ? new ArrayList<>() : createAll.apply(creates);
+    }
+
+    private void flushEach(List<Integer> temporaryIds, List<T> creates, List<T> updates, int[] deletes) {
+        int total = creates.size() + updates.size() + deletes.length;
+        int failed = 0;
+        RuntimeException firstFailure = null;
+        UpdateConflictException firstConflict = null;
+
+        for (int id : deletes) {
+            try {
+                transactions.executeWithoutResult(status -> deleteAll.accept(new int[]{id}));
+            } catch (RuntimeException e) {
+                afterRollback.run();
+                failed++;
+                firstFailure = firstFailure == null ? e : firstFailure;
+            }
+        }
+        for (T value : updates) {
+            try {
+                transactions.execute(status -> updateAll.apply(List.of(value)));
+            } catch (UpdateConflictException e) {
+                afterRollback.run();
+                failed++;
+                firstConflict = firstConflict == null ? e : firstConflict;
+            } catch (RuntimeException e) {
+                afterRollback.run();
+                failed++;
+                firstFailure = firstFailure == null ? e : firstFailure;
+            }
+        }
+        for (int i = 0; i < creates.size(); i++) {
+            T value = creates.get(i);
+            try {
+                List<T> newValues = transactions.execute(status -> createAll.apply(List.of(value)));
+                recordIds(temporaryIds.subList(i, i + 1), newValues);
+            } catch (RuntimeException e) {
+                afterRollback.run();
+                failed++;
+                firstFailure = firstFailure == null ? e : firstFailure;
+            }
+        }
+
+        // A conflict keeps its type and the row as it is now, so the user can be shown what
+        // changed and try again.
+        String message = "Could not save " + failed + " of " + total + " pending changes: ";
+        if (firstConflict != null) {
+            throw new UpdateConflictException(message + firstConflict.getMessage(), firstConflict.getCurrent(),
+                    firstConflict);
+        }
+        if (firstFailure != null) {
+            throw new DaoException(message + firstFailure.getMessage(), firstFailure);
+        }
+    }
+
+    private void recordIds(List<Integer> temporaryIds, List<T> newValues) {
+        for (int i = 0; i < temporaryIds.size(); i++) {
+            flushedIds.put(temporaryIds.get(i), idOf.applyAsInt(newValues.get(i)));
+        }
+    }
+
+    /**
+     * @param current the row as this buffer currently shows it
+     */
+    private T put(int id, T value, T current) {
+        if (created.containsKey(id)) {
+            T pending = factory.create(id, value.getName(), value.getAmountCents(), versionOf.applyAsInt(current));
+            created.put(id, pending);
+            return pending;
+        }
+
+        // The first update decides the version the saved update is based on; merged updates
+        // after it keep showing the version the row will have once saved.
+        int version = versionOf.applyAsInt(current);
+        if (!updated.containsKey(id)) {
+            expectedVersions.put(id, versionOf.applyAsInt(value));
+            version++;
+        }
+        T pending = factory.create(id, value.getName(), value.getAmountCents(), version);
+        updated.put(id, pending);
+        return pending;
+    }
+
+    /**
+     * @return the row as this buffer shows it, or null when it does not exist
+     */
+    private T current(int id, IntFunction<T> loader) {
+        if (created.containsKey(id)) {
+            return created.get(id);
+        }
+        if (updated.containsKey(id)) {
+            return updated.get(id);
+        }
+        return deleted.contains(id) || id <= 0 ? null : loader.apply(id);
+    }
+
+    private void checkVersion(int id, T value, T current) {
+        int version = versionOf.applyAsInt(value);
+        if (version != 0 && version != versionOf.applyAsInt(current)) {
+            throw new UpdateConflictException("Row " + id + " was changed by someone else: it is at version " +
+                    versionOf.applyAsInt(current) + ", not " + version, current);
+        }
+    }
+
+    private int resolve(int id) {
+        return id < 0 ? flushedIds.getOrDefault(id, id) : id;
+    }
+
+    private void flushIfFull() {
+        if (getPendingCount() >= maxPending) {
+            flushPending();
+        }
+    }
+
+    private static DaoException combine(DaoException first, DaoException second) {
+        String message = first.getMessage() + "; " + second.getMessage();
+        DaoException conflict = first instanceof UpdateConflictException ? first : second;
+        DaoException combined = conflict instanceof UpdateConflictException
+                ? new UpdateConflictException(message, ((UpdateConflictException) conflict).getCurrent(), first)
+                : new DaoException(message, first);
+        combined.addSuppressed(second);
+        return combined;
+    }
+
+    private static long sortKey(int id) {
+        return id < 0 ? (long) Integer.MAX_VALUE - id : id;
+    }
+}
@@ -0,0 +1,126 @@
+package dev.bandurski.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import dev.bandurski.exception.DaoException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded JDBC connection pool shared by the DAOs.
+ * <p>
+ * Hikari validates a connection when it is borrowed unless it was used within the last
+ * half second, and pings idle connections every minute so that ones the
+ * server or network dropped are replaced before they are handed out. The time callers spend
+ * waiting for a connection is recorded so it can be reported through {@link #getStats()}.
+ * <p>
+ * Hikari only lets the half-second window be changed through the process-wide
+ * {@code com.zaxxer.hikari.aliveBypassWindowMs} system property, read once when the pool
+ * class loads, so it is left alone here.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private static final long KEEPALIVE_MILLIS = 60_000;
+    private static final long VALIDATION_TIMEOUT_MILLIS = 2_000;
+
+    private final HikariDataSource dataSource;
+    private final int minSize;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAccumulator maxAcquireNanos = new LongAccumulator(Long::max, 0);
+    private final LongAdder timeouts = new LongAdder();
+
+    public ConnectionPool(String url, String username, String password, int minSize, int maxSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size, min=" + minSize + " max=" + maxSize);
+        }
+        this.minSize = minSize;
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("monthly-budget");
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMinimumIdle(minSize);
+        config.setMaximumPoolSize(maxSize);
+        config.setKeepaliveTime(KEEPALIVE_MILLIS);
+        config.setValidationTimeout(VALIDATION_TIMEOUT_MILLIS);
+        // Let warmUp() report connection problems instead of failing in the constructor.
+        config.setInitializationFailTimeout(-1);
+        config.setMetricsTrackerFactory((poolName, poolStats) -> new WaitTimeTracker());
+
+        dataSource = new HikariDataSource(config);
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Opens the configured minimum number of connections up front so the first
+     * menu actions do not pay for connection setup.
+     */
+    public void warmUp() {
+        List<Connection> connections = new ArrayList<>(minSize);
+        try {
+            for (int i = 0; i < minSize; i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } catch (SQLException e) {
+            throw new DaoException("Could not connect to database", e);
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // Returning a connection to the pool does not fail in practice.
+                }
+            }
+        }
+    }
+
+    public ConnectionPoolStats getStats() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        long count = acquisitions.sum();
+        double averageWaitMillis = count == 0 ? 0 : acquireNanos.sum() / (double) count / 1_000_000;
+
+        return new ConnectionPoolStats(
+                pool == null ? 0 : pool.getActiveConnections(),
+                pool == null ? 0 : pool.getIdleConnections(),
+                pool == null ? 0 : pool.getTotalConnections(),
+                pool == null ? 0 : pool.getThreadsAwaitingConnection(),
+                count,
+                timeouts.sum(),
+                averageWaitMillis,
+                maxAcquireNanos.get() / 1_000_000.0
+        );
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+
+    private class WaitTimeTracker implements IMetricsTracker {
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquisitions.increment();
+            acquireNanos.add(elapsedAcquiredNanos);
+            maxAcquireNanos.accumulate(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+    }
+}
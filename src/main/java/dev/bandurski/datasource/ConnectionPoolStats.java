@@ -0,0 +1,74 @@
+package dev.bandurski.datasource;
+
+/**
+ * Point-in-time snapshot of a {@link ConnectionPool}.
+ */
+public class ConnectionPoolStats {
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int totalConnections;
+    private final int pendingThreads;
+    private final long acquisitions;
+    private final long timeouts;
+    private final double averageWaitMillis;
+    private final double maxWaitMillis;
+
+    public ConnectionPoolStats(int activeConnections, int idleConnections, int totalConnections,
+                               int pendingThreads, long acquisitions, long timeouts,
+                               double averageWaitMillis, double maxWaitMillis) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.totalConnections = totalConnections;
+        this.pendingThreads = pendingThreads;
+        this.acquisitions = acquisitions;
+        this.timeouts = timeouts;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getPendingThreads() {
+        return pendingThreads;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public double getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolStats{" +
+                "active=" + activeConnections +
+                ", idle=" + idleConnections +
+                ", total=" + totalConnections +
+                ", pending=" + pendingThreads +
+                ", acquisitions=" + acquisitions +
+                ", timeouts=" + timeouts +
+                ", averageWaitMillis=" + String.format("%.3f", averageWaitMillis) +
+                ", maxWaitMillis=" + String.format("%.3f", maxWaitMillis) +
+                '}';
+    }
+}
@@ -0,0 +1,59 @@
+package dev.bandurski.datasource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Places each budget on one of a fixed list of PostgreSQL databases and hands out the data
+ * source for it, so budgets can be spread over several databases while all of one budget's
+ * rows stay together.
+ * <p>
+ * Budgets are placed round-robin by id: budget 1 on the first database, budget 2 on the
+ * second and so on. The placement depends on how many databases there are, so adding one
+ * moves budgets and their rows have to be copied over first.
+ * <p>
+ * A data source is created the first time a budget on its database asks for it and is then
+ * shared by every budget placed there.
+ */
+public class ShardRouter {
+
+    private final List<String> databaseNames;
+    private final Function<String, DataSource> connect;
+    private final Map<String, DataSource> dataSources = new HashMap<>();
+
+    /**
+     * @param databaseNames the databases to spread budgets over, in placement order
+     * @param connect       creates the data source for a database name
+     */
+    public ShardRouter(List<String> databaseNames, Function<String, DataSource> connect) {
+        if (databaseNames.isEmpty()) {
+            throw new IllegalArgumentException("At least one database is required");
+        }
+        this.databaseNames = List.copyOf(databaseNames);
+        this.connect = connect;
+    }
+
+    public List<String> getDatabaseNames() {
+        return databaseNames;
+    }
+
+    /**
+     * @return the database that holds the budget
+     */
+    public String getDatabaseName(int budgetId) {
+        if (budgetId < 1) {
+            throw new IllegalArgumentException("Invalid budget id " + budgetId);
+        }
+        return databaseNames.get((budgetId - 1) % databaseNames.size());
+    }
+
+    /**
+     * @return the data source for the budget's database, connecting to it on first use
+     */
+    public synchronized DataSource getDataSource(int budgetId) {
+        return dataSources.computeIfAbsent(getDatabaseName(budgetId), connect);
+    }
+}
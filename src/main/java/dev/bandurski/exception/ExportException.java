@@ -0,0 +1,10 @@
+package dev.bandurski.exception;
+
+public class ExportException extends RuntimeException {
+    public ExportException(String message) {
+        super(message);
+    }
+    public ExportException(String message, Exception cause) {
+        super(message, cause);
+    }
+}
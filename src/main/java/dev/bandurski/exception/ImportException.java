@@ -0,0 +1,10 @@
+package dev.bandurski.exception;
+
+public class ImportException extends RuntimeException {
+    public ImportException(String message) {
+        super(message);
+    }
+    public ImportException(String message, Exception cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,19 @@
+package dev.bandurski.exception;
+
+/**
+ * Thrown when a bulk update names rows that do not exist, in which case none of its rows are
+ * changed. Carries the missing ids, so the caller can report them and retry the rest.
+ */
+public class MissingRowsException extends DaoException {
+
+    private final int[] missingIds;
+
+    public MissingRowsException(String message, int[] missingIds) {
+        super(message);
+        this.missingIds = missingIds;
+    }
+
+    public int[] getMissingIds() {
+        return missingIds.clone();
+    }
+}
@@ -0,0 +1,26 @@
+package dev.bandurski.exception;
+
+import dev.bandurski.model.Transaction;
+
+/**
+ * Thrown when an update names a version of a row that has since been changed by someone else.
+ * Carries the row as it is now, so the caller can show it and let the user try again.
+ */
+public class UpdateConflictException extends DaoException {
+
+    private final Transaction current;
+
+    public UpdateConflictException(String message, Transaction current) {
+        super(message);
+        this.current = current;
+    }
+
+    public UpdateConflictException(String message, Transaction current, Exception cause) {
+        super(message, cause);
+        this.current = current;
+    }
+
+    public Transaction getCurrent() {
+        return current;
+    }
+}
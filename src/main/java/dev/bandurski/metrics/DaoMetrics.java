@@ -0,0 +1,49 @@
+package dev.bandurski.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link MethodMetrics} of one DAO, by method name.
+ */
+public class DaoMetrics {
+
+    private final String daoName;
+    private final Map<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    public DaoMetrics(String daoName) {
+        this.daoName = daoName;
+    }
+
+    public String getDaoName() {
+        return daoName;
+    }
+
+    /**
+     * Look the recorder up once and keep it, rather than on every call.
+     */
+    public MethodMetrics method(String name) {
+        return methods.computeIfAbsent(name, MethodMetrics::new);
+    }
+
+    /**
+     * @return stats for every method that has been called, in name order
+     */
+    public List<MethodStats> getStats() {
+        List<MethodStats> stats = new ArrayList<>();
+        for (MethodMetrics metrics : methods.values()) {
+            MethodStats methodStats = metrics.getStats();
+            if (methodStats.getCalls() > 0) {
+                stats.add(methodStats);
+            }
+        }
+        stats.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return stats;
+    }
+
+    public void reset() {
+        methods.values().forEach(MethodMetrics::reset);
+    }
+}
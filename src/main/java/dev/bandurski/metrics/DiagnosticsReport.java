@@ -0,0 +1,142 @@
+package dev.bandurski.metrics;
+
+import dev.bandurski.dao.CacheStats;
+import dev.bandurski.datasource.ConnectionPoolStats;
+import dev.bandurski.exception.ExportException;
+import dev.bandurski.util.Json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Point-in-time view of DAO call metrics, statement, connection pool and cache stats.
+ */
+public class DiagnosticsReport {
+    private final Instant createdAt;
+    private final Map<String, List<MethodStats>> daoStats;
+    private final List<StatementStats> statementStats;
+    private final ConnectionPoolStats poolStats;
+    private final Map<String, CacheStats> cacheStats;
+
+    /**
+     * @param daoStats       method stats by DAO name
+     * @param statementStats stats for the registered statements that have run
+     * @param poolStats      null when pooling is disabled
+     * @param cacheStats     cache stats by DAO name
+     */
+    public DiagnosticsReport(Map<String, List<MethodStats>> daoStats, List<StatementStats> statementStats,
+                             ConnectionPoolStats poolStats, Map<String, CacheStats> cacheStats) {
+        this.createdAt = Instant.now();
+        this.daoStats = daoStats;
+        this.statementStats = statementStats;
+        this.poolStats = poolStats;
+        this.cacheStats = cacheStats;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Map<String, List<MethodStats>> getDaoStats() {
+        return daoStats;
+    }
+
+    public List<StatementStats> getStatementStats() {
+        return statementStats;
+    }
+
+    public ConnectionPoolStats getPoolStats() {
+        return poolStats;
+    }
+
+    public Map<String, CacheStats> getCacheStats() {
+        return cacheStats;
+    }
+
+    /**
+     * Writes the report as a single JSON document.
+     */
+    public void writeTo(Path file) {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("{\"createdAt\":" + Json.quote(createdAt.toString()));
+
+            writer.write(",\"daos\":{");
+            String daoSeparator = "";
+            for (Map.Entry<String, List<MethodStats>> dao : daoStats.entrySet()) {
+                writer.write(daoSeparator + Json.quote(dao.getKey()) + ":[");
+                String methodSeparator = "";
+                for (MethodStats method : dao.getValue()) {
+                    writer.write(methodSeparator + "{\"method\":" + Json.quote(method.getName()) +
+                            ",\"calls\":" + method.getCalls() +
+                            ",\"errors\":" + errorsJson(method.getErrors()) +
+                            ",\"p50Millis\":" + millis(method.getP50Millis()) +
+                            ",\"p99Millis\":" + millis(method.getP99Millis()) +
+                            ",\"maxMillis\":" + millis(method.getMaxMillis()) + "}");
+                    methodSeparator = ",";
+                }
+                writer.write("]");
+                daoSeparator = ",";
+            }
+            writer.write("}");
+
+            writer.write(",\"statements\":[");
+            String statementSeparator = "";
+            for (StatementStats statement : statementStats) {
+                writer.write(statementSeparator + "{\"name\":" + Json.quote(statement.getName()) +
+                        ",\"executions\":" + statement.getExecutions() +
+                        ",\"parses\":" + statement.getParses() +
+                        ",\"reuses\":" + statement.getReuses() + "}");
+                statementSeparator = ",";
+            }
+            writer.write("]");
+
+            if (poolStats != null) {
+                writer.write(",\"pool\":{\"active\":" + poolStats.getActiveConnections() +
+                        ",\"idle\":" + poolStats.getIdleConnections() +
+                        ",\"total\":" + poolStats.getTotalConnections() +
+                        ",\"pending\":" + poolStats.getPendingThreads() +
+                        ",\"acquisitions\":" + poolStats.getAcquisitions() +
+                        ",\"timeouts\":" + poolStats.getTimeouts() +
+                        ",\"averageWaitMillis\":" + millis(poolStats.getAverageWaitMillis()) +
+                        ",\"maxWaitMillis\":" + millis(poolStats.getMaxWaitMillis()) + "}");
+            }
+
+            writer.write(",\"caches\":{");
+            String cacheSeparator = "";
+            for (Map.Entry<String, CacheStats> cache : cacheStats.entrySet()) {
+                CacheStats stats = cache.getValue();
+                writer.write(cacheSeparator + Json.quote(cache.getKey()) +
+                        ":{\"hits\":" + stats.getHits() +
+                        ",\"misses\":" + stats.getMisses() +
+                        ",\"evictions\":" + stats.getEvictions() +
+                        ",\"size\":" + stats.getSize() + "}");
+                cacheSeparator = ",";
+            }
+            writer.write("}}\n");
+        } catch (IOException e) {
+            throw new ExportException("Could not write " + file, e);
+        }
+    }
+
+    private static String errorsJson(Map<String, Long> errors) {
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, Long> error : errors.entrySet()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(Json.quote(error.getKey())).append(':').append(error.getValue());
+        }
+        return json.append('}').toString();
+    }
+
+    private static String millis(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
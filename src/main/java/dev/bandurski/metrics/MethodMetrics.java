@@ -0,0 +1,54 @@
+package dev.bandurski.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, errors and latency for one DAO method.
+ */
+public class MethodMetrics {
+
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    MethodMetrics(String name) {
+        this.name = name;
+    }
+
+    public void record(long nanos) {
+        calls.increment();
+        latency.record(nanos);
+    }
+
+    /**
+     * Counts a failed call under the kind of failure: the cause of a {@code DaoException},
+     * such as a lost connection or an integrity violation, or the exception itself.
+     */
+    public void recordError(RuntimeException e) {
+        Throwable reason = e.getCause() != null ? e.getCause() : e;
+        errors.computeIfAbsent(reason.getClass().getSimpleName(), key -> new LongAdder()).increment();
+    }
+
+    public MethodStats getStats() {
+        Map<String, Long> errorCounts = new TreeMap<>();
+        errors.forEach((reason, count) -> errorCounts.put(reason, count.sum()));
+        return new MethodStats(
+                name,
+                calls.sum(),
+                errorCounts,
+                latency.getPercentileNanos(50) / 1_000_000.0,
+                latency.getPercentileNanos(99) / 1_000_000.0,
+                latency.getMaxNanos() / 1_000_000.0
+        );
+    }
+
+    public void reset() {
+        calls.reset();
+        errors.clear();
+        latency.reset();
+    }
+}
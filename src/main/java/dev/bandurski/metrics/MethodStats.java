@@ -0,0 +1,72 @@
+package dev.bandurski.metrics;
+
+import java.util.Map;
+
+/**
+ * Point-in-time snapshot of a {@link MethodMetrics}.
+ */
+public class MethodStats {
+    private final String name;
+    private final long calls;
+    private final Map<String, Long> errors;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    public MethodStats(String name, long calls, Map<String, Long> errors,
+                       double p50Millis, double p99Millis, double maxMillis) {
+        this.name = name;
+        this.calls = calls;
+        this.errors = errors;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * @return error counts keyed by the kind of failure, in name order
+     */
+    public Map<String, Long> getErrors() {
+        return errors;
+    }
+
+    public long getErrorCount() {
+        long count = 0;
+        for (long errorCount : errors.values()) {
+            count += errorCount;
+        }
+        return count;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "MethodStats{" +
+                "name='" + name + '\'' +
+                ", calls=" + calls +
+                ", errors=" + errors +
+                ", p50Millis=" + p50Millis +
+                ", p99Millis=" + p99Millis +
+                ", maxMillis=" + maxMillis +
+                '}';
+    }
+}
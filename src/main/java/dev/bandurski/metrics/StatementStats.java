@@ -0,0 +1,38 @@
+package dev.bandurski.metrics;
+
+/**
+ * Point-in-time execution counts for one registered SQL statement.
+ */
+public class StatementStats {
+    private final String name;
+    private final long executions;
+    private final long parses;
+
+    public StatementStats(String name, long executions, long parses) {
+        this.name = name;
+        this.executions = executions;
+        this.parses = parses;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getExecutions() {
+        return executions;
+    }
+
+    /**
+     * @return executions that sent the SQL text to the server to be parsed and planned
+     */
+    public long getParses() {
+        return parses;
+    }
+
+    /**
+     * @return executions that ran an already prepared server-side statement by name
+     */
+    public long getReuses() {
+        return executions - parses;
+    }
+}
@@ -0,0 +1,62 @@
+package dev.bandurski.model;
+
+import java.math.BigDecimal;
+
+public class BudgetSummary {
+    private BigDecimal incomeTotal;
+    private int incomeCount;
+    private BigDecimal expenseTotal;
+    private int expenseCount;
+    private BigDecimal netIncome;
+
+    public BigDecimal getIncomeTotal() {
+        return incomeTotal;
+    }
+
+    public void setIncomeTotal(BigDecimal incomeTotal) {
+        this.incomeTotal = incomeTotal;
+    }
+
+    public int getIncomeCount() {
+        return incomeCount;
+    }
+
+    public void setIncomeCount(int incomeCount) {
+        this.incomeCount = incomeCount;
+    }
+
+    public BigDecimal getExpenseTotal() {
+        return expenseTotal;
+    }
+
+    public void setExpenseTotal(BigDecimal expenseTotal) {
+        this.expenseTotal = expenseTotal;
+    }
+
+    public int getExpenseCount() {
+        return expenseCount;
+    }
+
+    public void setExpenseCount(int expenseCount) {
+        this.expenseCount = expenseCount;
+    }
+
+    public BigDecimal getNetIncome() {
+        return netIncome;
+    }
+
+    public void setNetIncome(BigDecimal netIncome) {
+        this.netIncome = netIncome;
+    }
+
+    @Override
+    public String toString() {
+        return "BudgetSummary{" +
+                "incomeTotal=" + incomeTotal +
+                ", incomeCount=" + incomeCount +
+                ", expenseTotal=" + expenseTotal +
+                ", expenseCount=" + expenseCount +
+                ", netIncome=" + netIncome +
+                '}';
+    }
+}
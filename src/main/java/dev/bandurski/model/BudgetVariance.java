@@ -0,0 +1,73 @@
+package dev.bandurski.model;
+
+import java.math.BigDecimal;
+
+/**
+ * One budgeted income source or expense compared with what was recorded in the ledger for
+ * a month. Ledger names with no matching budget line have a budgeted amount of zero.
+ */
+public class BudgetVariance {
+    private LedgerEntry.Type type;
+    private String name;
+    private BigDecimal budgeted;
+    private BigDecimal actual;
+    private int entryCount;
+
+    public LedgerEntry.Type getType() {
+        return type;
+    }
+
+    public void setType(LedgerEntry.Type type) {
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public BigDecimal getBudgeted() {
+        return budgeted;
+    }
+
+    public void setBudgeted(BigDecimal budgeted) {
+        this.budgeted = budgeted;
+    }
+
+    public BigDecimal getActual() {
+        return actual;
+    }
+
+    public void setActual(BigDecimal actual) {
+        this.actual = actual;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(int entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * @return actual minus budgeted, so overspending and extra income are both positive
+     */
+    public BigDecimal getVariance() {
+        return Money.toBigDecimal(Money.subtract(Money.toCents(actual), Money.toCents(budgeted)));
+    }
+
+    @Override
+    public String toString() {
+        return "BudgetVariance{" +
+                "type=" + type +
+                ", name='" + name + '\'' +
+                ", budgeted=" + budgeted +
+                ", actual=" + actual +
+                ", entryCount=" + entryCount +
+                '}';
+    }
+}
@@ -0,0 +1,43 @@
+package dev.bandurski.model;
+
+public class Category {
+    private int categoryId;
+    private Integer parentId;
+    private String name;
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(int categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    /**
+     * @return the parent category's id, or null for a top-level category
+     */
+    public Integer getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Integer parentId) {
+        this.parentId = parentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return "Category{" +
+                "categoryId=" + categoryId +
+                ", parentId=" + parentId +
+                ", name='" + name + '\'' +
+                '}';
+    }
+}
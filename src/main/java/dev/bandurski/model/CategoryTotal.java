@@ -0,0 +1,106 @@
+package dev.bandurski.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Budgeted income and expenses for one category, both for the items filed directly under it
+ * and for its whole subtree. The row for uncategorized items has a null category id.
+ */
+public class CategoryTotal {
+    private Integer categoryId;
+    private Integer parentId;
+    private String name;
+    private int depth;
+    private int itemCount;
+    private BigDecimal incomeTotal;
+    private BigDecimal expenseTotal;
+    private BigDecimal subtreeIncomeTotal;
+    private BigDecimal subtreeExpenseTotal;
+
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Integer categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Integer getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Integer parentId) {
+        this.parentId = parentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public BigDecimal getIncomeTotal() {
+        return incomeTotal;
+    }
+
+    public void setIncomeTotal(BigDecimal incomeTotal) {
+        this.incomeTotal = incomeTotal;
+    }
+
+    public BigDecimal getExpenseTotal() {
+        return expenseTotal;
+    }
+
+    public void setExpenseTotal(BigDecimal expenseTotal) {
+        this.expenseTotal = expenseTotal;
+    }
+
+    public BigDecimal getSubtreeIncomeTotal() {
+        return subtreeIncomeTotal;
+    }
+
+    public void setSubtreeIncomeTotal(BigDecimal subtreeIncomeTotal) {
+        this.subtreeIncomeTotal = subtreeIncomeTotal;
+    }
+
+    public BigDecimal getSubtreeExpenseTotal() {
+        return subtreeExpenseTotal;
+    }
+
+    public void setSubtreeExpenseTotal(BigDecimal subtreeExpenseTotal) {
+        this.subtreeExpenseTotal = subtreeExpenseTotal;
+    }
+
+    @Override
+    public String toString() {
+        return "CategoryTotal{" +
+                "categoryId=" + categoryId +
+                ", parentId=" + parentId +
+                ", name='" + name + '\'' +
+                ", depth=" + depth +
+                ", itemCount=" + itemCount +
+                ", incomeTotal=" + incomeTotal +
+                ", expenseTotal=" + expenseTotal +
+                ", subtreeIncomeTotal=" + subtreeIncomeTotal +
+                ", subtreeExpenseTotal=" + subtreeExpenseTotal +
+                '}';
+    }
+}
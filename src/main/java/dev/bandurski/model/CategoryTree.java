@@ -0,0 +1,165 @@
+package dev.bandurski.model;
+
+import dev.bandurski.util.IntIndex;
+
+import java.util.List;
+
+/**
+ * Category hierarchy held in parallel arrays, in depth-first order, with amounts in cents.
+ * <p>
+ * Subtree totals are kept current as amounts are added, by walking from the category up
+ * through its ancestors, so a screen can re-aggregate after a local change without another
+ * query.
+ */
+public class CategoryTree {
+
+    private final int[] categoryIds;
+    private final int[] parentIndexes;
+    private final int[] depths;
+    private final String[] names;
+    private final long[] incomeCents;
+    private final long[] expenseCents;
+    private final long[] subtreeIncomeCents;
+    private final long[] subtreeExpenseCents;
+    private final IntIndex<Integer> indexById;
+    private long uncategorizedIncomeCents;
+    private long uncategorizedExpenseCents;
+
+    private CategoryTree(int size) {
+        categoryIds = new int[size];
+        parentIndexes = new int[size];
+        depths = new int[size];
+        names = new String[size];
+        incomeCents = new long[size];
+        expenseCents = new long[size];
+        subtreeIncomeCents = new long[size];
+        subtreeExpenseCents = new long[size];
+        indexById = new IntIndex<>(size);
+    }
+
+    /**
+     * Builds the tree from each category's own totals; subtree totals are recomputed here.
+     *
+     * @param totals every parent before its children, as returned by the category DAO
+     */
+    public static CategoryTree of(List<CategoryTotal> totals) {
+        int size = 0;
+        for (CategoryTotal total : totals) {
+            if (total.getCategoryId() != null) {
+                size++;
+            }
+        }
+
+        CategoryTree tree = new CategoryTree(size);
+        int index = 0;
+        for (CategoryTotal total : totals) {
+            if (total.getCategoryId() == null) {
+                tree.add(null, Money.toCents(total.getIncomeTotal()), Money.toCents(total.getExpenseTotal()));
+                continue;
+            }
+
+            Integer parentIndex = total.getParentId() == null ? null : tree.indexById.get(total.getParentId());
+            if (total.getParentId() != null && parentIndex == null) {
+                throw new IllegalArgumentException("Category " + total.getCategoryId() +
+                        " is listed before its parent " + total.getParentId());
+            }
+            tree.categoryIds[index] = total.getCategoryId();
+            tree.parentIndexes[index] = parentIndex == null ? -1 : parentIndex;
+            tree.depths[index] = parentIndex == null ? 0 : tree.depths[parentIndex] + 1;
+            tree.names[index] = total.getName();
+            tree.indexById.put(total.getCategoryId(), index);
+            index++;
+        }
+
+        index = 0;
+        for (CategoryTotal total : totals) {
+            if (total.getCategoryId() != null) {
+                tree.addAt(index++, Money.toCents(total.getIncomeTotal()), Money.toCents(total.getExpenseTotal()));
+            }
+        }
+        return tree;
+    }
+
+    public int size() {
+        return categoryIds.length;
+    }
+
+    public int getCategoryId(int index) {
+        return categoryIds[index];
+    }
+
+    /**
+     * @return the index of the parent category, or -1 for a top-level category
+     */
+    public int getParentIndex(int index) {
+        return parentIndexes[index];
+    }
+
+    public int getDepth(int index) {
+        return depths[index];
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public long getIncomeCents(int index) {
+        return incomeCents[index];
+    }
+
+    public long getExpenseCents(int index) {
+        return expenseCents[index];
+    }
+
+    public long getSubtreeIncomeCents(int index) {
+        return subtreeIncomeCents[index];
+    }
+
+    public long getSubtreeExpenseCents(int index) {
+        return subtreeExpenseCents[index];
+    }
+
+    public long getUncategorizedIncomeCents() {
+        return uncategorizedIncomeCents;
+    }
+
+    public long getUncategorizedExpenseCents() {
+        return uncategorizedExpenseCents;
+    }
+
+    /**
+     * @return the category's index, or -1 when it is not in the tree
+     */
+    public int indexOf(int categoryId) {
+        Integer index = indexById.get(categoryId);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Adds amounts, which may be negative, to a category and every category above it.
+     *
+     * @param categoryId null for uncategorized items
+     */
+    public void add(Integer categoryId, long incomeCents, long expenseCents) {
+        if (categoryId == null) {
+            uncategorizedIncomeCents = Money.add(uncategorizedIncomeCents, incomeCents);
+            uncategorizedExpenseCents = Money.add(uncategorizedExpenseCents, expenseCents);
+            return;
+        }
+
+        int index = indexOf(categoryId);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown category " + categoryId);
+        }
+        addAt(index, incomeCents, expenseCents);
+    }
+
+    private void addAt(int index, long income, long expense) {
+        incomeCents[index] = Money.add(incomeCents[index], income);
+        expenseCents[index] = Money.add(expenseCents[index], expense);
+        for (int node = index; node >= 0; node = parentIndexes[node]) {
+            subtreeIncomeCents[node] = Money.add(subtreeIncomeCents[node], income);
+            subtreeExpenseCents[node] = Money.add(subtreeExpenseCents[node], expense);
+        }
+    }
+}
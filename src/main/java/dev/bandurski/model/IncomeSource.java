@@ -1,11 +1,13 @@
 package dev.bandurski.model;
 
 import java.math.BigDecimal;
+import java.util.Objects;
 
 public class IncomeSource implements Transaction {
     private int incomeSourceId;
     private String name;
-    private BigDecimal amount;
+    private long amountCents;
+    private int version;
 
     public int getIncomeSourceId() {
         return incomeSourceId;
@@ -24,11 +26,36 @@ public class IncomeSource implements Transaction {
     }
 
     public BigDecimal getAmount() {
-        return amount;
+        return Money.toBigDecimal(amountCents);
     }
 
+    /**
+     * @throws NullPointerException when the amount is null, since the amount is held as whole cents
+     * @throws ArithmeticException  when the amount has a fraction of a cent
+     */
     public void setAmount(BigDecimal amount) {
-        this.amount = amount;
+        this.amountCents = Money.toCents(Objects.requireNonNull(amount, "amount must not be null"));
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public void setAmountCents(long amountCents) {
+        this.amountCents = amountCents;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @param version the version this was read at, which an update must still match;
+     *                0 updates whatever version is stored, skipping the concurrency check
+     *                entirely, as batch mode does
+     */
+    public void setVersion(int version) {
+        this.version = version;
     }
 
     @Override
@@ -36,7 +63,8 @@ public class IncomeSource implements Transaction {
         return "IncomeSource{" +
                 "incomeSourceId=" + incomeSourceId +
                 ", name='" + name + '\'' +
-                ", amount=" + amount +
+                ", amount=" + getAmount() +
+                ", version=" + version +
                 '}';
     }
 }
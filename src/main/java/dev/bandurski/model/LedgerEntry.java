@@ -0,0 +1,85 @@
+package dev.bandurski.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * A dated income or expense, kept as history rather than as a recurring amount.
+ */
+public class LedgerEntry implements Transaction {
+
+    public enum Type {
+        INCOME,
+        EXPENSE
+    }
+
+    private long ledgerEntryId;
+    private LocalDate entryDate;
+    private Type type;
+    private String name;
+    private long amountCents;
+
+    public long getLedgerEntryId() {
+        return ledgerEntryId;
+    }
+
+    public void setLedgerEntryId(long ledgerEntryId) {
+        this.ledgerEntryId = ledgerEntryId;
+    }
+
+    public LocalDate getEntryDate() {
+        return entryDate;
+    }
+
+    public void setEntryDate(LocalDate entryDate) {
+        this.entryDate = entryDate;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public BigDecimal getAmount() {
+        return Money.toBigDecimal(amountCents);
+    }
+
+    /**
+     * @throws NullPointerException when the amount is null, since the amount is held as whole cents
+     * @throws ArithmeticException  when the amount has a fraction of a cent
+     */
+    public void setAmount(BigDecimal amount) {
+        this.amountCents = Money.toCents(Objects.requireNonNull(amount, "amount must not be null"));
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public void setAmountCents(long amountCents) {
+        this.amountCents = amountCents;
+    }
+
+    @Override
+    public String toString() {
+        return "LedgerEntry{" +
+                "ledgerEntryId=" + ledgerEntryId +
+                ", entryDate=" + entryDate +
+                ", type=" + type +
+                ", name='" + name + '\'' +
+                ", amount=" + getAmount() +
+                '}';
+    }
+}
@@ -0,0 +1,56 @@
+package dev.bandurski.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Fixed-point money arithmetic on whole cents held in a {@code long}.
+ * <p>
+ * Amounts are stored in {@code decimal(10,2)} columns, so two decimal places are exact.
+ * {@link BigDecimal} is only used when converting at the JDBC and display edges;
+ * the add, subtract and sum kernels allocate nothing and throw
+ * {@link ArithmeticException} instead of silently overflowing.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * Converts an amount to cents. Trailing zeros past the cents are allowed, but any other
+     * fraction of a cent is rejected rather than rounded away.
+     *
+     * @throws ArithmeticException when the amount has a fraction of a cent or does not fit in a {@code long}
+     */
+    public static long toCents(BigDecimal amount) {
+        try {
+            return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Amount " + amount.toPlainString() + " is not a whole number of cents " +
+                    "or is out of range");
+        }
+    }
+
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    public static long add(long augendCents, long addendCents) {
+        return Math.addExact(augendCents, addendCents);
+    }
+
+    public static long subtract(long minuendCents, long subtrahendCents) {
+        return Math.subtractExact(minuendCents, subtrahendCents);
+    }
+
+    public static long sum(List<? extends Transaction> transactions) {
+        long total = 0;
+        for (int i = 0, size = transactions.size(); i < size; i++) {
+            total = Math.addExact(total, transactions.get(i).getAmountCents());
+        }
+        return total;
+    }
+}
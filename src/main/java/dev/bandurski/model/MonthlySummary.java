@@ -0,0 +1,63 @@
+package dev.bandurski.model;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+public class MonthlySummary {
+    private YearMonth month;
+    private BigDecimal incomeTotal;
+    private BigDecimal expenseTotal;
+    private int entryCount;
+    private BigDecimal netIncome;
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public void setMonth(YearMonth month) {
+        this.month = month;
+    }
+
+    public BigDecimal getIncomeTotal() {
+        return incomeTotal;
+    }
+
+    public void setIncomeTotal(BigDecimal incomeTotal) {
+        this.incomeTotal = incomeTotal;
+    }
+
+    public BigDecimal getExpenseTotal() {
+        return expenseTotal;
+    }
+
+    public void setExpenseTotal(BigDecimal expenseTotal) {
+        this.expenseTotal = expenseTotal;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(int entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    public BigDecimal getNetIncome() {
+        return netIncome;
+    }
+
+    public void setNetIncome(BigDecimal netIncome) {
+        this.netIncome = netIncome;
+    }
+
+    @Override
+    public String toString() {
+        return "MonthlySummary{" +
+                "month=" + month +
+                ", incomeTotal=" + incomeTotal +
+                ", expenseTotal=" + expenseTotal +
+                ", entryCount=" + entryCount +
+                ", netIncome=" + netIncome +
+                '}';
+    }
+}
@@ -5,4 +5,5 @@ import java.math.BigDecimal;
 public interface Transaction {
     public String getName();
     public BigDecimal getAmount();
+    public long getAmountCents();
 }
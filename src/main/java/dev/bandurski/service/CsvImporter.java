@@ -0,0 +1,244 @@
+package dev.bandurski.service;
+
+import dev.bandurski.dao.BudgetSummaryDao;
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.exception.ImportException;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.function.LongConsumer;
+
+/**
+ * Bulk loads expenses or income sources from a CSV file.
+ * <p>
+ * The file must start with a {@code name,amount} header. It is streamed through the
+ * PostgreSQL COPY protocol into a temporary staging table, validated there, and merged
+ * into the target table in a single transaction. Either every row is applied or none is.
+ */
+public class CsvImporter {
+
+    public enum DuplicatePolicy {
+        /** Keep the existing row when a name is already present. */
+        SKIP,
+        /** Overwrite the amount of the existing row when a name is already present. */
+        UPDATE
+    }
+
+    private static final int PROGRESS_INTERVAL = 10_000;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_NAME_LENGTH = 80;
+    // Amounts must fit decimal(10,2) exactly.
+    private static final String AMOUNT_PATTERN = "^-?[0-9]{1,8}(\\.[0-9]{1,2})?$";
+
+    private JdbcTemplate jdbcTemplate;
+    private final int budgetId;
+
+    public CsvImporter(DataSource dataSource) {
+        this(dataSource, BudgetSummaryDao.DEFAULT_BUDGET_ID);
+    }
+
+    /**
+     * @param budgetId the budget imported rows are added to; duplicates are only looked for within it
+     */
+    public CsvImporter(DataSource dataSource, int budgetId) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.budgetId = budgetId;
+    }
+
+    /**
+     * @param progress called with the number of lines read so far, every few thousand lines
+     */
+    public ImportResult importExpenses(Path file, DuplicatePolicy policy, LongConsumer progress) {
+        return importFile(file, "expense", policy, progress);
+    }
+
+    /**
+     * @param progress called with the number of lines read so far, every few thousand lines
+     */
+    public ImportResult importIncomeSources(Path file, DuplicatePolicy policy, LongConsumer progress) {
+        return importFile(file, "income_source", policy, progress);
+    }
+
+    private ImportResult importFile(Path file, String table, DuplicatePolicy policy,
+                                    LongConsumer progress) {
+        try (Reader reader = new ProgressReader(
+                Files.newBufferedReader(file, StandardCharsets.UTF_8), progress)) {
+            return jdbcTemplate.execute((ConnectionCallback<ImportResult>) connection -> {
+                // Run in our own transaction, or inside a savepoint when the caller already has one.
+                boolean autoCommit = connection.getAutoCommit();
+                Savepoint savepoint = null;
+                if (autoCommit) {
+                    connection.setAutoCommit(false);
+                } else {
+                    savepoint = connection.setSavepoint();
+                }
+
+                try {
+                    ImportResult result = stageAndMerge(connection, reader, table, policy);
+                    if (autoCommit) {
+                        connection.commit();
+                    } else {
+                        connection.releaseSavepoint(savepoint);
+                    }
+                    return result;
+                } catch (SQLException | RuntimeException e) {
+                    if (autoCommit) {
+                        connection.rollback();
+                    } else {
+                        connection.rollback(savepoint);
+                    }
+                    throw e;
+                } finally {
+                    if (autoCommit) {
+                        connection.setAutoCommit(true);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            throw new ImportException("Could not read " + file, e);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Could not connect to database", e);
+        }
+    }
+
+    private ImportResult stageAndMerge(Connection connection, Reader reader, String table,
+                                       DuplicatePolicy policy) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMP TABLE IF NOT EXISTS import_staging (" +
+                    "line_number bigserial, name text, amount text) ON COMMIT DROP");
+            statement.execute("TRUNCATE import_staging RESTART IDENTITY");
+        } catch (SQLException e) {
+            throw new ImportException("Could not prepare the staging table: " + e.getMessage(), e);
+        }
+
+        long rowsRead;
+        try {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            rowsRead = copyManager.copyIn(
+                    "COPY import_staging (name, amount) FROM STDIN WITH (FORMAT csv, HEADER true)",
+                    reader,
+                    COPY_BUFFER_SIZE
+            );
+        } catch (IOException e) {
+            throw new ImportException("Could not read import file", e);
+        } catch (SQLException e) {
+            throw new ImportException("Malformed CSV file: " + e.getMessage(), e);
+        }
+
+        validateStagedRows(connection);
+
+        // When a name appears more than once in the file its last occurrence wins. The table
+        // name is one of the two literals passed in by importExpenses and importIncomeSources.
+        String sql = "WITH merged AS (" +
+                "INSERT INTO " + table + " (budget_id, name, amount) " +
+                "SELECT DISTINCT ON (name) ?::int, name, amount::numeric FROM import_staging " +
+                "ORDER BY name, line_number DESC " +
+                (policy == DuplicatePolicy.UPDATE
+                        ? "ON CONFLICT (budget_id, name) DO UPDATE SET amount = EXCLUDED.amount, " +
+                                "version = " + table + ".version + 1 "
+                        : "ON CONFLICT (budget_id, name) DO NOTHING ") +
+                "RETURNING (xmax = 0) AS inserted) " +
+                "SELECT count(*) FILTER (WHERE inserted), count(*) FILTER (WHERE NOT inserted) " +
+                "FROM merged";
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, budgetId);
+            try (ResultSet results = statement.executeQuery()) {
+                results.next();
+                return new ImportResult(rowsRead, results.getLong(1), results.getLong(2));
+            }
+        } catch (SQLException e) {
+            // For example a constraint the staged rows were not checked against, or a serialization failure.
+            throw new ImportException("Could not merge imported rows: " + e.getMessage(), e);
+        }
+    }
+
+    private void validateStagedRows(Connection connection) {
+        // A quoted field can span lines, so a row starts on the line after the header plus every
+        // line taken by the rows before it, counting the line breaks kept inside their fields.
+        String sql = "WITH staged AS (" +
+                "SELECT line_number, name, amount, 2 + coalesce(sum(1 + " +
+                "length(concat(name, amount)) - length(replace(concat(name, amount), chr(10), ''))) " +
+                "OVER (ORDER BY line_number ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING), 0) AS line " +
+                "FROM import_staging) " +
+                "SELECT line, name, amount, count(*) OVER () AS invalid_rows " +
+                "FROM staged " +
+                "WHERE name IS NULL OR btrim(name) = '' OR length(name) > ? " +
+                "OR amount IS NULL OR amount !~ ? " +
+                "ORDER BY line_number LIMIT 1";
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, MAX_NAME_LENGTH);
+            statement.setString(2, AMOUNT_PATTERN);
+            try (ResultSet results = statement.executeQuery()) {
+                if (results.next()) {
+                    throw new ImportException(results.getLong("invalid_rows") + " invalid row(s), " +
+                            "first on line " + results.getLong("line") + ": name='" +
+                            results.getString("name") + "', amount='" + results.getString("amount") + "'");
+                }
+            }
+        } catch (SQLException e) {
+            // For example a statement timeout, which would otherwise escape as an unchecked DataAccessException.
+            throw new ImportException("Could not validate imported rows: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Counts lines as COPY pulls them from the file and reports them to the progress callback.
+     */
+    private static class ProgressReader extends FilterReader {
+        private final LongConsumer progress;
+        private long lines;
+
+        private ProgressReader(Reader in, LongConsumer progress) {
+            super(in);
+            this.progress = progress;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c == '\n') {
+                countLines(1);
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            int newLines = 0;
+            for (int i = offset; i < offset + count; i++) {
+                if (buffer[i] == '\n') {
+                    newLines++;
+                }
+            }
+            countLines(newLines);
+            return count;
+        }
+
+        private void countLines(int newLines) {
+            long before = lines;
+            lines += newLines;
+            if (lines / PROGRESS_INTERVAL != before / PROGRESS_INTERVAL) {
+                progress.accept(lines);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package dev.bandurski.service;
+
+public class ImportResult {
+    private final long rowsRead;
+    private final long rowsInserted;
+    private final long rowsUpdated;
+
+    public ImportResult(long rowsRead, long rowsInserted, long rowsUpdated) {
+        this.rowsRead = rowsRead;
+        this.rowsInserted = rowsInserted;
+        this.rowsUpdated = rowsUpdated;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsInserted() {
+        return rowsInserted;
+    }
+
+    public long getRowsUpdated() {
+        return rowsUpdated;
+    }
+
+    /**
+     * Rows that were neither inserted nor updated: names that already existed when
+     * duplicates are skipped, and earlier occurrences of a name repeated in the file.
+     */
+    public long getRowsSkipped() {
+        return rowsRead - rowsInserted - rowsUpdated;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportResult{" +
+                "rowsRead=" + rowsRead +
+                ", rowsInserted=" + rowsInserted +
+                ", rowsUpdated=" + rowsUpdated +
+                ", rowsSkipped=" + getRowsSkipped() +
+                '}';
+    }
+}
@@ -0,0 +1,121 @@
+package dev.bandurski.service;
+
+import dev.bandurski.dao.ExpenseDao;
+import dev.bandurski.dao.IncomeSourceDao;
+import dev.bandurski.exception.ExportException;
+import dev.bandurski.util.Json;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes expenses or income sources to a file while they are read from the DAO's cursor,
+ * so only one row is held in memory at a time.
+ * <p>
+ * CSV output uses the same {@code name,amount} layout that {@link CsvImporter} reads.
+ * Newline-delimited JSON writes one object per line and also carries the id.
+ */
+public class TransactionExporter {
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ExpenseDao expenseDao;
+    private final IncomeSourceDao incomeSourceDao;
+
+    public TransactionExporter(ExpenseDao expenseDao, IncomeSourceDao incomeSourceDao) {
+        this.expenseDao = expenseDao;
+        this.incomeSourceDao = incomeSourceDao;
+    }
+
+    /**
+     * @return the number of rows written
+     */
+    public long exportExpenses(Path file, Format format) {
+        return export(file, format, (writer, rows) ->
+                expenseDao.forEachExpense(expense -> {
+                    writeRow(writer, format, "expense_id", expense.getExpenseId(),
+                            expense.getName(), expense.getAmount().toPlainString());
+                    rows[0]++;
+                }));
+    }
+
+    /**
+     * @return the number of rows written
+     */
+    public long exportIncomeSources(Path file, Format format) {
+        return export(file, format, (writer, rows) ->
+                incomeSourceDao.forEachIncomeSource(incomeSource -> {
+                    writeRow(writer, format, "income_source_id", incomeSource.getIncomeSourceId(),
+                            incomeSource.getName(), incomeSource.getAmount().toPlainString());
+                    rows[0]++;
+                }));
+    }
+
+    private long export(Path file, Format format, RowSource source) {
+        long[] rows = new long[1];
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Writer writer = new BufferedWriter(
+                     Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            if (format == Format.CSV) {
+                writer.write("name,amount\n");
+            }
+            source.writeTo(writer, rows);
+        } catch (IOException e) {
+            throw new ExportException("Could not write " + file, e);
+        } catch (UncheckedIOException e) {
+            throw new ExportException("Could not write " + file, e.getCause());
+        }
+
+        return rows[0];
+    }
+
+    private static void writeRow(Writer writer, Format format, String idColumn, int id,
+                                 String name, String amount) {
+        try {
+            if (format == Format.CSV) {
+                writer.write(csvField(name));
+                writer.write(',');
+                writer.write(amount);
+                writer.write('\n');
+            } else {
+                writer.write("{\"");
+                writer.write(idColumn);
+                writer.write("\":");
+                writer.write(Integer.toString(id));
+                writer.write(",\"name\":");
+                writer.write(Json.quote(name));
+                writer.write(",\"amount\":");
+                writer.write(amount);
+                writer.write("}\n");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private interface RowSource {
+        void writeTo(Writer writer, long[] rows) throws IOException;
+    }
+}
@@ -0,0 +1,62 @@
+package dev.bandurski.storage;
+
+import dev.bandurski.model.Money;
+import dev.bandurski.model.Transaction;
+
+import java.math.BigDecimal;
+
+/**
+ * One live id, name, amount and version record held by a {@link LogStore}.
+ */
+public class LogRecord implements Transaction {
+    private final int id;
+    private final String name;
+    private final long amountCents;
+    private final int version;
+
+    /**
+     * A record with version 0, which an update applies over whatever version is stored.
+     *
+     * @param id 0 for a record that has not been stored yet
+     */
+    public LogRecord(int id, String name, long amountCents) {
+        this(id, name, amountCents, 0);
+    }
+
+    public LogRecord(int id, String name, long amountCents, int version) {
+        this.id = id;
+        this.name = name;
+        this.amountCents = amountCents;
+        this.version = version;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BigDecimal getAmount() {
+        return Money.toBigDecimal(amountCents);
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "LogRecord{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", amountCents=" + amountCents +
+                ", version=" + version +
+                '}';
+    }
+}
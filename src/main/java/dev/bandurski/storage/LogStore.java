@@ -0,0 +1,556 @@
+package dev.bandurski.storage;
+
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.exception.UpdateConflictException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of id, name, amount and version records in a memory-mapped file, with every live
+ * record held in memory and indexed by id, by name and in listing order.
+ * <p>
+ * Each change appends a put or delete record carrying a CRC-32, so recovery after a crash
+ * replays the log up to the first torn record and ignores whatever follows. A change to
+ * several records is atomic: every record but the last is flagged as continued, and recovery
+ * drops a trailing group that never finished. Replaced and deleted records stay in the file
+ * until {@link #compact()} rewrites it with only the live ones.
+ * <p>
+ * Enforces the same rules as the expense and income_source tables: unique names of at most
+ * 80 characters, amounts that fit decimal(10,2), and updates that are a compare-and-set on
+ * the version they were read at. All methods are synchronized; the store
+ * is meant for a single user.
+ */
+public class LogStore implements AutoCloseable {
+
+    public static final int MAX_NAME_LENGTH = 80;
+    public static final long MAX_AMOUNT_CENTS = 9_999_999_999L;
+
+    private static final int MAGIC = 0x4D424C47;
+    private static final int VERSION = 1;
+    // Magic, version and the next id to assign.
+    private static final int HEADER_SIZE = 12;
+    private static final int NEXT_ID_OFFSET = 8;
+    // Payload length and the payload's CRC-32.
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte CONTINUED = (byte) 0x80;
+    private static final int MIN_CAPACITY = 64 * 1024;
+    // Compact once dead records take this much space and outweigh the live ones.
+    private static final int MIN_COMPACTION_BYTES = 64 * 1024;
+    // Type, id, version and amount, then the name.
+    private static final int PUT_FIXED_SIZE = 17;
+    // Type and id.
+    private static final int DELETE_SIZE = 5;
+
+    private static final Comparator<Entry> LISTING_ORDER = Comparator
+            .comparingLong((Entry entry) -> entry.amountCents).reversed()
+            .thenComparing(Comparator.comparingInt((Entry entry) -> entry.id).reversed());
+
+    private final Path file;
+    private final Map<Integer, Entry> byId = new HashMap<>();
+    private final Map<String, Entry> byName = new HashMap<>();
+    private final NavigableSet<Entry> byAmount = new TreeSet<>(LISTING_ORDER);
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int writePosition;
+    private int nextId;
+    private int deadBytes;
+    private long totalCents;
+
+    private LogStore(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens the log, creating it when missing, and replays it into memory.
+     */
+    public static LogStore open(Path file) throws IOException {
+        // Left behind by a compaction that did not finish; the original log is still intact.
+        Files.deleteIfExists(compactionFile(file));
+
+        LogStore store = new LogStore(file);
+        store.load();
+        return store;
+    }
+
+    public synchronized LogRecord get(int id) {
+        Entry entry = byId.get(id);
+        return entry == null ? null : entry.toRecord();
+    }
+
+    /**
+     * @return every record, largest amount first and ties by descending id
+     */
+    public synchronized List<LogRecord> list() {
+        List<LogRecord> records = new ArrayList<>(byAmount.size());
+        for (Entry entry : byAmount) {
+            records.add(entry.toRecord());
+        }
+        return records;
+    }
+
+    /**
+     * @return up to {@code limit} records in listing order, starting after the record with
+     *         {@code afterAmountCents} and {@code afterId}, or from the top when
+     *         {@code afterAmountCents} is null
+     */
+    public synchronized List<LogRecord> page(Long afterAmountCents, int afterId, int limit) {
+        Iterable<Entry> entries = afterAmountCents == null
+                ? byAmount
+                : byAmount.tailSet(new Entry(afterId, null, afterAmountCents, 0, 0, 0), false);
+
+        List<LogRecord> records = new ArrayList<>(limit);
+        for (Entry entry : entries) {
+            if (records.size() == limit) {
+                break;
+            }
+            records.add(entry.toRecord());
+        }
+        return records;
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    public synchronized long getTotalCents() {
+        return totalCents;
+    }
+
+    /**
+     * Stores new records, assigning their ids, as one atomic change.
+     *
+     * @return the stored records in the order given
+     */
+    public synchronized List<LogRecord> insert(List<LogRecord> records) {
+        Set<String> names = new HashSet<>();
+        for (LogRecord record : records) {
+            validate(record);
+            if (byName.containsKey(record.getName()) || !names.add(record.getName())) {
+                throw duplicateName(record.getName());
+            }
+        }
+
+        List<LogRecord> stored = new ArrayList<>(records.size());
+        int id = nextId;
+        for (LogRecord record : records) {
+            stored.add(new LogRecord(id++, record.getName(), record.getAmountCents(), 1));
+        }
+        append(stored, PUT);
+        return stored;
+    }
+
+    /**
+     * Replaces existing records as one atomic change, each only if it is still at the version
+     * given, or whatever its version when that is 0.
+     *
+     * @return the updated records, or an empty list, with nothing written, when any id is missing
+     * @throws UpdateConflictException when a record has moved on to another version
+     */
+    public synchronized List<LogRecord> update(List<LogRecord> records) {
+        Set<Integer> ids = new HashSet<>();
+        for (LogRecord record : records) {
+            validate(record);
+            if (!byId.containsKey(record.getId())) {
+                return new ArrayList<>();
+            }
+            ids.add(record.getId());
+        }
+        for (LogRecord record : records) {
+            Entry current = byId.get(record.getId());
+            if (record.getVersion() != 0 && record.getVersion() != current.version) {
+                throw new UpdateConflictException("Record " + current.id + " was changed by someone else: " +
+                        "it is at version " + current.version + ", not " + record.getVersion(), current.toRecord());
+            }
+        }
+
+        // A name may move between records in the same change, but must end up unique.
+        Set<String> names = new HashSet<>();
+        for (LogRecord record : records) {
+            Entry owner = byName.get(record.getName());
+            if ((owner != null && !ids.contains(owner.id)) || !names.add(record.getName())) {
+                throw duplicateName(record.getName());
+            }
+        }
+
+        List<LogRecord> updated = new ArrayList<>(records.size());
+        for (LogRecord record : records) {
+            int version = byId.get(record.getId()).version + 1;
+            updated.add(new LogRecord(record.getId(), record.getName(), record.getAmountCents(), version));
+        }
+        append(updated, PUT);
+        return updated;
+    }
+
+    /**
+     * @return the ids of the records deleted, each once
+     */
+    public synchronized int[] delete(int[] ids) {
+        List<LogRecord> deleted = new ArrayList<>(ids.length);
+        Set<Integer> seen = new HashSet<>();
+        for (int id : ids) {
+            if (byId.containsKey(id) && seen.add(id)) {
+                deleted.add(new LogRecord(id, null, 0, 0));
+            }
+        }
+
+        if (!deleted.isEmpty()) {
+            append(deleted, DELETE);
+        }
+        return deleted.stream().mapToInt(LogRecord::getId).toArray();
+    }
+
+    /**
+     * Compacts the log when dead records take up more of it than live ones.
+     *
+     * @return true when the log was compacted
+     */
+    public synchronized boolean compactIfWorthwhile() {
+        int liveBytes = writePosition - HEADER_SIZE - deadBytes;
+        if (deadBytes < MIN_COMPACTION_BYTES || deadBytes <= liveBytes) {
+            return false;
+        }
+        compact();
+        return true;
+    }
+
+    /**
+     * Rewrites the log with only the live records. The new log is written beside the old one
+     * and moved over it, so a crash part way through leaves the old log in place.
+     */
+    public synchronized void compact() {
+        Path compacted = compactionFile(file);
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(nextId).flip();
+            writeFully(out, header);
+
+            ByteBuffer chunk = ByteBuffer.allocate(MIN_CAPACITY);
+            for (Entry entry : byId.values()) {
+                ByteBuffer record = encode(PUT, entry.id, entry.name, entry.amountCents, entry.version);
+                if (chunk.remaining() < record.remaining()) {
+                    chunk.flip();
+                    writeFully(out, chunk);
+                    chunk.clear();
+                }
+                if (chunk.remaining() < record.remaining()) {
+                    writeFully(out, record);
+                } else {
+                    chunk.put(record);
+                }
+            }
+            chunk.flip();
+            writeFully(out, chunk);
+            out.force(true);
+        } catch (IOException e) {
+            throw new DaoException("Could not compact " + file, e);
+        }
+
+        try {
+            channel.close();
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            load();
+        } catch (IOException e) {
+            throw new DaoException("Could not reopen " + file + " after compacting it", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new DaoException("Could not close " + file, e);
+        }
+    }
+
+    /**
+     * @return the end of the valid log, where the next change will be written
+     */
+    synchronized int getWritePosition() {
+        return writePosition;
+    }
+
+    private void load() throws IOException {
+        byId.clear();
+        byName.clear();
+        byAmount.clear();
+        deadBytes = 0;
+        totalCents = 0;
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException(file + " is too large to map");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, MIN_CAPACITY));
+
+        if (size < HEADER_SIZE) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(NEXT_ID_OFFSET, 1);
+            buffer.force();
+        } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException(file + " is not a budget log");
+        }
+
+        nextId = buffer.getInt(NEXT_ID_OFFSET);
+        recover();
+    }
+
+    private void recover() {
+        List<PendingRecord> group = new ArrayList<>();
+        int position = HEADER_SIZE;
+        int groupStart = position;
+
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            int payload = position + RECORD_HEADER_SIZE;
+            if (length <= 0 || length > buffer.capacity() - payload
+                    || buffer.getInt(position + 4) != crc(payload, length)) {
+                break;
+            }
+
+            PendingRecord record = decode(position, length);
+            group.add(record);
+            position = payload + length;
+            if (!record.continued) {
+                for (PendingRecord applied : group) {
+                    apply(applied);
+                }
+                group.clear();
+                groupStart = position;
+            }
+        }
+
+        // Clear everything after the last complete group, not just the torn record: intact
+        // records of an unfinished group can follow it, and one of them could otherwise line
+        // up with the end of the next records written and be replayed by a later recovery.
+        writePosition = groupStart;
+        boolean cleared = false;
+        for (int i = writePosition; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+                cleared = true;
+            }
+        }
+        if (cleared) {
+            buffer.force();
+        }
+    }
+
+    private void append(List<LogRecord> records, byte type) {
+        List<ByteBuffer> encoded = new ArrayList<>(records.size());
+        int bytes = 0;
+        for (int i = 0; i < records.size(); i++) {
+            LogRecord record = records.get(i);
+            byte flags = i < records.size() - 1 ? CONTINUED : 0;
+            ByteBuffer entry = encode((byte) (type | flags), record.getId(), record.getName(),
+                    record.getAmountCents(), record.getVersion());
+            encoded.add(entry);
+            bytes += entry.remaining();
+        }
+        ensureCapacity(bytes);
+
+        int start = writePosition;
+        int position = writePosition;
+        for (ByteBuffer entry : encoded) {
+            buffer.position(position);
+            buffer.put(entry);
+            position = buffer.position();
+        }
+        buffer.force();
+
+        // Only once the group is durable does it become visible.
+        position = start;
+        for (ByteBuffer entry : encoded) {
+            entry.rewind();
+            int length = entry.getInt(0);
+            apply(decode(position, length));
+            position += RECORD_HEADER_SIZE + length;
+        }
+        writePosition = position;
+    }
+
+    private void apply(PendingRecord record) {
+        Entry previous = byId.remove(record.id);
+        if (previous != null) {
+            byName.remove(previous.name);
+            byAmount.remove(previous);
+            totalCents -= previous.amountCents;
+            deadBytes += previous.size;
+        }
+
+        if (record.type == DELETE) {
+            // The delete record itself is dead as soon as it is applied.
+            deadBytes += record.size;
+        } else {
+            Entry entry = new Entry(record.id, record.name, record.amountCents, record.version,
+                    record.offset, record.size);
+            byId.put(entry.id, entry);
+            byName.put(entry.name, entry);
+            byAmount.add(entry);
+            totalCents += entry.amountCents;
+        }
+        nextId = Math.max(nextId, record.id + 1);
+    }
+
+    private void ensureCapacity(int bytes) {
+        long required = (long) writePosition + bytes;
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        long capacity = Math.max(required, (long) buffer.capacity() * 2);
+        if (capacity > Integer.MAX_VALUE) {
+            capacity = Integer.MAX_VALUE;
+        }
+        if (required > capacity) {
+            throw new DaoException("Log " + file + " is full");
+        }
+
+        try {
+            buffer.force();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            throw new DaoException("Could not grow " + file, e);
+        }
+    }
+
+    private static ByteBuffer encode(byte type, int id, String name, long amountCents, int version) {
+        byte[] nameBytes = name == null ? new byte[0] : name.getBytes(StandardCharsets.UTF_8);
+        boolean delete = (type & ~CONTINUED) == DELETE;
+        int length = delete ? DELETE_SIZE : PUT_FIXED_SIZE + nameBytes.length;
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + length);
+        record.putInt(length);
+        record.putInt(0);
+        record.put(type);
+        record.putInt(id);
+        if (!delete) {
+            record.putInt(version);
+            record.putLong(amountCents);
+            record.put(nameBytes);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER_SIZE, length);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+        return record;
+    }
+
+    private PendingRecord decode(int position, int length) {
+        int payload = position + RECORD_HEADER_SIZE;
+        byte type = buffer.get(payload);
+
+        PendingRecord record = new PendingRecord();
+        record.offset = position;
+        record.size = RECORD_HEADER_SIZE + length;
+        record.continued = (type & CONTINUED) != 0;
+        record.type = (byte) (type & ~CONTINUED);
+        record.id = buffer.getInt(payload + 1);
+        if (record.type == PUT) {
+            record.version = buffer.getInt(payload + 5);
+            record.amountCents = buffer.getLong(payload + 9);
+            byte[] nameBytes = new byte[length - PUT_FIXED_SIZE];
+            ByteBuffer view = buffer.duplicate();
+            view.position(payload + PUT_FIXED_SIZE);
+            view.get(nameBytes);
+            record.name = new String(nameBytes, StandardCharsets.UTF_8);
+        }
+        return record;
+    }
+
+    private int crc(int position, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.limit(position + length);
+        CRC32 crc = new CRC32();
+        crc.update(view);
+        return (int) crc.getValue();
+    }
+
+    private static void validate(LogRecord record) {
+        if (record.getName() == null || record.getName().length() > MAX_NAME_LENGTH) {
+            throw new DaoException("Data integrity violation",
+                    new IllegalArgumentException("Name must be present and at most " + MAX_NAME_LENGTH +
+                            " characters"));
+        }
+        if (Math.abs(record.getAmountCents()) > MAX_AMOUNT_CENTS) {
+            throw new DaoException("Data integrity violation",
+                    new IllegalArgumentException("Amount is out of range: " + record.getAmountCents() + " cents"));
+        }
+    }
+
+    private static DaoException duplicateName(String name) {
+        return new DaoException("Data integrity violation",
+                new IllegalArgumentException("Name '" + name + "' already exists"));
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    private static Path compactionFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".compact");
+    }
+
+    private static class PendingRecord {
+        int offset;
+        int size;
+        boolean continued;
+        byte type;
+        int id;
+        String name;
+        long amountCents;
+        int version;
+    }
+
+    private static class Entry {
+        final int id;
+        final String name;
+        final long amountCents;
+        final int version;
+        // Where the record sits in the log, and how many bytes it takes.
+        final int offset;
+        final int size;
+
+        Entry(int id, String name, long amountCents, int version, int offset, int size) {
+            this.id = id;
+            this.name = name;
+            this.amountCents = amountCents;
+            this.version = version;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        LogRecord toRecord() {
+            return new LogRecord(id, name, amountCents, version);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import java.time.LocalDate;
 
 public interface BasicConsole {
 
+    void flush();
+
     void pauseOutput();
 
     void printMessage(String message);
@@ -0,0 +1,125 @@
+package dev.bandurski.util;
+
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Console for unattended runs. Messages are written as plain log lines and any attempt
+ * to prompt for input fails instead of blocking on a terminal that nobody is watching.
+ */
+public class BatchConsole implements BasicConsole {
+
+    private final PrintStream out;
+
+    public BatchConsole(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+
+    @Override
+    public void pauseOutput() {
+        // Nobody to wait for.
+    }
+
+    @Override
+    public void printMessage(String message) {
+        printMessage(message, true);
+    }
+
+    @Override
+    public void printMessage(String message, boolean withLineFeed) {
+        if (withLineFeed) {
+            out.println(message);
+        } else {
+            out.print(message);
+        }
+    }
+
+    @Override
+    public void printErrorMessage(String message) {
+        out.println("ERROR: " + message);
+    }
+
+    @Override
+    public void printBlankLine() {
+        out.println();
+    }
+
+    @Override
+    public void printBlankLines(int numberOfLines) {
+        for (int i = 0; i < numberOfLines; i++) {
+            out.println();
+        }
+    }
+
+    @Override
+    public void printDivider() {
+        out.println("-----------------------------");
+    }
+
+    @Override
+    public void printBanner(String message) {
+        out.println(message);
+    }
+
+    @Override
+    public void printBulletedItems(String[] items) {
+        for (String item : items) {
+            out.println("* " + item);
+        }
+    }
+
+    @Override
+    public String getMenuSelection(String[] options) {
+        throw noInput("a menu selection");
+    }
+
+    @Override
+    public String getMenuSelection(String[] options, boolean allowNullResponse) {
+        throw noInput("a menu selection");
+    }
+
+    @Override
+    public Integer getMenuSelectionIndex(String[] options, boolean allowNullResponse) {
+        throw noInput("a menu selection");
+    }
+
+    @Override
+    public String promptForString(String prompt) {
+        throw noInput(prompt);
+    }
+
+    @Override
+    public boolean promptForYesNo(String prompt) {
+        throw noInput(prompt);
+    }
+
+    @Override
+    public Integer promptForInteger(String prompt) {
+        throw noInput(prompt);
+    }
+
+    @Override
+    public Double promptForDouble(String prompt) {
+        throw noInput(prompt);
+    }
+
+    @Override
+    public BigDecimal promptForBigDecimal(String prompt) {
+        throw noInput(prompt);
+    }
+
+    @Override
+    public LocalDate promptForLocalDate(String prompt) {
+        throw noInput(prompt);
+    }
+
+    private static IllegalStateException noInput(String prompt) {
+        return new IllegalStateException("Batch mode cannot prompt for input: " + prompt.trim());
+    }
+}
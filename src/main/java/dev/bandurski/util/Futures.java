@@ -0,0 +1,30 @@
+package dev.bandurski.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Waits for the future and returns its value. A failure is rethrown as the original
+     * exception, such as a {@code DaoException}, instead of wrapped in a
+     * {@link CompletionException}, so callers handle it as if the call were synchronous.
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package dev.bandurski.util;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Open-addressing hash index from a primitive {@code int} key to a value.
+ * <p>
+ * Keys are stored in an {@code int[]}, so lookups never box an {@link Integer}.
+ * The index is built once and then only read; null values are not supported.
+ */
+public class IntIndex<T> {
+
+    private final int[] keys;
+    private final Object[] values;
+    private final int mask;
+    private final int shift;
+    private int size;
+
+    public IntIndex(int expectedSize) {
+        // Keep the table at most half full so probe sequences stay short.
+        int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+    }
+
+    public static <T> IntIndex<T> of(List<T> items, ToIntFunction<T> keyOf) {
+        IntIndex<T> index = new IntIndex<>(items.size());
+        for (int i = 0, count = items.size(); i < count; i++) {
+            T item = items.get(i);
+            index.put(keyOf.applyAsInt(item), item);
+        }
+        return index;
+    }
+
+    public void put(int key, T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("IntIndex does not support null values");
+        }
+        if (size * 2 >= keys.length) {
+            throw new IllegalStateException("IntIndex is full, size=" + size);
+        }
+
+        int slot = slotOf(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int key) {
+        int slot = slotOf(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return (T) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    int slotOf(int key) {
+        // Fibonacci hashing spreads sequential ids across the table.
+        return (key * 0x9E3779B9) >>> shift;
+    }
+}
@@ -0,0 +1,30 @@
+package dev.bandurski.util;
+
+/**
+ * Minimal helpers for writing JSON by hand, for the flat objects the exporters produce.
+ */
+public final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * @return the value as a quoted JSON string, with quotes, backslashes and control
+     *         characters escaped
+     */
+    public static String quote(String value) {
+        StringBuilder json = new StringBuilder(value.length() + 2);
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+}
@@ -1,5 +1,9 @@
 package dev.bandurski.util;
 
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
@@ -7,11 +11,37 @@ import java.util.Scanner;
 
 public class SystemInOutConsole implements BasicConsole {
 
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
     private final Scanner input = new Scanner(System.in);
+    private final PrintStream out;
+
+    public SystemInOutConsole() {
+        this(false);
+    }
+
+    /**
+     * @param buffered collect output in memory and write it in one go when the console
+     *                 waits for input or {@link #flush()} is called, instead of once per line
+     */
+    public SystemInOutConsole(boolean buffered) {
+        if (buffered) {
+            out = new PrintStream(new BufferedOutputStream(
+                    new FileOutputStream(FileDescriptor.out), OUTPUT_BUFFER_SIZE), false);
+        } else {
+            out = System.out;
+        }
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
 
     @Override
     public void pauseOutput() {
-        System.out.print("(Press return to continue...)");
+        out.print("(Press return to continue...)");
+        out.flush();
         input.nextLine();
     }
 
@@ -23,47 +53,47 @@ public class SystemInOutConsole implements BasicConsole {
     @Override
     public void printMessage(String message, boolean withLineFeed) {
         if (withLineFeed) {
-            System.out.println(message); // Print with linefeed
+            out.println(message); // Print with linefeed
         }
         else {
-            System.out.print(message);  // Print without linefeed
+            out.print(message);  // Print without linefeed
         }
     }
 
     @Override
     public void printErrorMessage(String message) {
-        System.out.println("***" + message + "***");
+        out.println("***" + message + "***");
     }
 
     @Override
     public void printBlankLine() {
-        System.out.println();
+        out.println();
     }
 
     @Override
     public void printBlankLines(int numberOfLines) {
         for (int i = 0; i < numberOfLines; i++) {
-            System.out.println();
+            out.println();
         }
     }
 
     @Override
     public void printDivider() {
-        System.out.println("-----------------------------");
+        out.println("-----------------------------");
     }
 
     @Override
     public void printBanner(String message) {
         String dashes = "-".repeat(message.length());
-        System.out.println(dashes);
-        System.out.println(message);
-        System.out.println(dashes);
+        out.println(dashes);
+        out.println(message);
+        out.println(dashes);
     }
 
     @Override
     public void printBulletedItems(String[] items) {
         for (String item : items) {
-            System.out.println("* " + item);
+            out.println("* " + item);
         }
     }
 
@@ -84,7 +114,7 @@ public class SystemInOutConsole implements BasicConsole {
         boolean validInput = false;
         while (!validInput) {
             for (int i = 0; i < options.length; i++) {
-                System.out.format("%d: %s\n", i + 1, options[i]);
+                out.format("%d: %s\n", i + 1, options[i]);
             }
             Integer selection = promptForInteger("Please select: ");
             if (selection == null) {
@@ -105,7 +135,8 @@ public class SystemInOutConsole implements BasicConsole {
 
     @Override
     public String promptForString(String prompt) {
-        System.out.print(prompt);
+        out.print(prompt);
+        out.flush();
         return input.nextLine();
     }
 
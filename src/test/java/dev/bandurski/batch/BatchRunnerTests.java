@@ -0,0 +1,172 @@
+package dev.bandurski.batch;
+
+import dev.bandurski.dao.BaseDaoTests;
+import dev.bandurski.dao.ExpenseDao;
+import dev.bandurski.dao.JdbcBudgetSummaryDao;
+import dev.bandurski.dao.JdbcExpenseDao;
+import dev.bandurski.dao.JdbcIncomeSourceDao;
+import dev.bandurski.model.Expense;
+import dev.bandurski.util.BatchConsole;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class BatchRunnerTests extends BaseDaoTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private BatchRunner runner;
+    private ExpenseDao expenseDao;
+
+    @Before
+    public void setup() {
+        expenseDao = new JdbcExpenseDao(dataSource);
+        runner = new BatchRunner(new BatchConsole(new PrintStream(new ByteArrayOutputStream())),
+                new JdbcIncomeSourceDao(dataSource), expenseDao, new JdbcBudgetSummaryDao(dataSource));
+    }
+
+    @Test
+    public void run_groups_consecutive_writes_and_reports_each_command() throws IOException {
+        Path script = writeScript(
+                "# nightly adjustments",
+                "add expense Balloons 45.99",
+                "add expense \"Cake, \"\"chocolate\"\"\" 12.50",
+                "update expense 3 \"Car Payment\" 250.00",
+                "delete expense 2",
+                "",
+                "summary");
+        StringWriter results = new StringWriter();
+
+        BatchResult result = runner.run(script, results);
+
+        String[] lines = results.toString().split("\n");
+        Assert.assertEquals("incorrect number of commands", 5, result.getCommands());
+        Assert.assertEquals("incorrect number of failures", 0, result.getFailures());
+        Assert.assertEquals("adds were not grouped into one batch", 3, result.getBatches());
+        Assert.assertEquals("incorrect number of results", 5, lines.length);
+        Assert.assertTrue("add did not report its new id: " + lines[0],
+                lines[0].matches("\\{\"line\":2,\"command\":\"add\",\"type\":\"expense\",\"status\":\"ok\",\"id\":\\d+}"));
+        Assert.assertEquals("incorrect summary",
+                "{\"line\":7,\"command\":\"summary\",\"status\":\"ok\",\"incomeTotal\":6000.66," +
+                        "\"incomeCount\":2,\"expenseTotal\":1859.01,\"expenseCount\":4,\"netIncome\":4141.65}",
+                lines[4]);
+        Assert.assertEquals("expense was not updated", new BigDecimal("250.00"),
+                expenseDao.getExpenseById(3).getAmount());
+        Assert.assertNull("expense was not deleted", expenseDao.getExpenseById(2));
+    }
+
+    @Test
+    public void run_reports_invalid_lines_and_continues() throws IOException {
+        Path script = writeScript(
+                "add expense Balloons lots",
+                "transfer expense 1",
+                "add expense Streamers 3.50");
+        StringWriter results = new StringWriter();
+
+        BatchResult result = runner.run(script, results);
+
+        String[] lines = results.toString().split("\n");
+        Assert.assertEquals("incorrect number of failures", 2, result.getFailures());
+        Assert.assertEquals("incorrect error for invalid amount",
+                "{\"line\":1,\"status\":\"error\",\"message\":\"Invalid amount 'lots'\"}", lines[0]);
+        Assert.assertTrue("unknown command was not reported", lines[1].contains("\"line\":2,\"status\":\"error\""));
+        Assert.assertTrue("valid command after errors did not run", lines[2].contains("\"status\":\"ok\""));
+    }
+
+    @Test
+    public void run_reports_updates_of_missing_ids_as_not_found() throws IOException {
+        Path script = writeScript(
+                "update expense 1 Rent 1600.00",
+                "update expense 999 Missing 1.00",
+                "add expense Balloons 45.99");
+        StringWriter results = new StringWriter();
+
+        BatchResult result = runner.run(script, results);
+
+        String[] lines = results.toString().split("\n");
+        Assert.assertEquals("incorrect number of failures", 1, result.getFailures());
+        Assert.assertEquals("incorrect result for existing id",
+                "{\"line\":1,\"command\":\"update\",\"type\":\"expense\",\"status\":\"ok\",\"id\":1}",
+                lines[0]);
+        Assert.assertEquals("incorrect result for missing id",
+                "{\"line\":2,\"command\":\"update\",\"type\":\"expense\"," +
+                        "\"status\":\"not_found\",\"id\":999}",
+                lines[1]);
+        Assert.assertTrue("add after the updates did not run", lines[2].contains("\"status\":\"ok\""));
+        Assert.assertEquals("existing expense was not updated", new BigDecimal("1600.00"),
+                findExpense("Rent").getAmount());
+    }
+
+    @Test
+    public void run_reports_deletes_of_missing_ids_as_not_found() throws IOException {
+        Path script = writeScript(
+                "delete expense 2",
+                "delete expense 999");
+        StringWriter results = new StringWriter();
+
+        BatchResult result = runner.run(script, results);
+
+        String[] lines = results.toString().split("\n");
+        Assert.assertEquals("incorrect number of failures", 1, result.getFailures());
+        Assert.assertEquals("incorrect result for existing id",
+                "{\"line\":1,\"command\":\"delete\",\"type\":\"expense\",\"status\":\"ok\",\"id\":2}",
+                lines[0]);
+        Assert.assertEquals("incorrect result for missing id",
+                "{\"line\":2,\"command\":\"delete\",\"type\":\"expense\",\"status\":\"not_found\",\"id\":999}",
+                lines[1]);
+        Assert.assertNull("existing expense was not deleted", expenseDao.getExpenseById(2));
+    }
+
+    @Test
+    public void run_records_other_database_errors_and_continues() throws IOException {
+        ExpenseDao failingDao = new JdbcExpenseDao(dataSource) {
+            @Override
+            public List<Expense> createExpenses(List<Expense> expenses) {
+                throw new TransientDataAccessResourceException("connection reset");
+            }
+        };
+        runner = new BatchRunner(new BatchConsole(new PrintStream(new ByteArrayOutputStream())),
+                new JdbcIncomeSourceDao(dataSource), failingDao, new JdbcBudgetSummaryDao(dataSource));
+        Path script = writeScript(
+                "add expense Balloons 45.99",
+                "delete expense 2");
+        StringWriter results = new StringWriter();
+
+        BatchResult result = runner.run(script, results);
+
+        String[] lines = results.toString().split("\n");
+        Assert.assertEquals("incorrect number of failures", 1, result.getFailures());
+        Assert.assertEquals("incorrect error",
+                "{\"line\":1,\"status\":\"error\",\"message\":\"connection reset\"}", lines[0]);
+        Assert.assertTrue("command after the error did not run", lines[1].contains("\"status\":\"ok\""));
+    }
+
+    private Path writeScript(String... lines) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private Expense findExpense(String name) {
+        for (Expense expense : expenseDao.getExpenses()) {
+            if (expense.getName().equals(name)) {
+                return expense;
+            }
+        }
+        return null;
+    }
+}
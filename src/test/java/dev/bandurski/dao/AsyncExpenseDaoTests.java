@@ -0,0 +1,61 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.model.Expense;
+import dev.bandurski.util.Futures;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class AsyncExpenseDaoTests extends BaseDaoTests {
+
+    private ExecutorService executor;
+    private AsyncExpenseDao dao;
+
+    @Before
+    public void setup() {
+        // One thread, since the tests share a single connection.
+        executor = Executors.newSingleThreadExecutor();
+        dao = new AsyncExpenseDao(new JdbcExpenseDao(dataSource), executor);
+    }
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void queries_complete_with_the_same_results_as_the_delegate() {
+        CompletableFuture<List<Expense>> expenses = dao.getExpenses();
+        CompletableFuture<Expense> rent = dao.getExpenseById(1);
+        CompletableFuture<List<Expense>> page = dao.getExpensesPage(null, 0, 2);
+
+        Assert.assertEquals("incorrect number of expenses", 3, Futures.join(expenses).size());
+        Assert.assertEquals("incorrect expense", "Rent", Futures.join(rent).getName());
+        Assert.assertEquals("incorrect page size", 2, Futures.join(page).size());
+    }
+
+    @Test
+    public void join_rethrows_dao_exception_unwrapped() {
+        ExpenseDao failing = new JdbcExpenseDao(dataSource) {
+            @Override
+            public List<Expense> getExpenses() {
+                throw new DaoException("Could not connect to database");
+            }
+        };
+        CompletableFuture<List<Expense>> expenses = new AsyncExpenseDao(failing, executor).getExpenses();
+
+        try {
+            Futures.join(expenses);
+            Assert.fail("failure was not rethrown");
+        } catch (DaoException e) {
+            Assert.assertEquals("incorrect message", "Could not connect to database", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.Expense;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class CachingExpenseDaoTests extends BaseDaoTests {
+
+    private static final int RENT_ID = 1;
+    private static final int INTERNET_ID = 2;
+
+    private CachingExpenseDao dao;
+
+    @Before
+    public void setup() {
+        dao = new CachingExpenseDao(new JdbcExpenseDao(dataSource), 100, 60_000);
+    }
+
+    @Test
+    public void getExpenses_second_call_is_served_from_cache() {
+        List<Expense> first = dao.getExpenses();
+        List<Expense> second = dao.getExpenses();
+
+        Assert.assertSame("second getExpenses() call did not return cached list", first, second);
+        Assert.assertEquals("unexpected cache hits", 1, dao.getStats().getHits());
+        Assert.assertEquals("unexpected cache misses", 1, dao.getStats().getMisses());
+    }
+
+    @Test
+    public void getExpenseById_after_listing_is_a_hit() {
+        dao.getExpenses();
+        Expense expense = dao.getExpenseById(RENT_ID);
+
+        Assert.assertEquals("cached expense has wrong name", "Rent", expense.getName());
+        Assert.assertEquals("unexpected cache hits", 1, dao.getStats().getHits());
+    }
+
+    @Test
+    public void updateExpense_is_visible_to_later_reads() {
+        dao.getExpenses();
+
+        Expense changed = new Expense();
+        changed.setExpenseId(INTERNET_ID);
+        changed.setName("Fiber");
+        changed.setAmount(new BigDecimal("9999.99"));
+        dao.updateExpense(changed);
+
+        Assert.assertEquals("cached expense was not updated", "Fiber",
+                dao.getExpenseById(INTERNET_ID).getName());
+        Assert.assertEquals("cached listing was not invalidated", "Fiber",
+                dao.getExpenses().get(0).getName());
+    }
+
+    @Test
+    public void deleteExpenseById_removes_expense_from_cache() {
+        dao.getExpenses();
+        dao.deleteExpenseById(RENT_ID);
+
+        Assert.assertNull("deleted expense still cached", dao.getExpenseById(RENT_ID));
+        Assert.assertEquals("cached listing was not invalidated", 2, dao.getExpenses().size());
+    }
+
+    @Test
+    public void entries_beyond_max_size_are_evicted() {
+        dao = new CachingExpenseDao(new JdbcExpenseDao(dataSource), 1, 60_000);
+        dao.getExpenses();
+
+        Assert.assertEquals("unexpected cache size", 1, dao.getStats().getSize());
+        Assert.assertEquals("unexpected evictions", 2, dao.getStats().getEvictions());
+    }
+
+    @Test
+    public void expired_entries_are_reloaded() {
+        dao = new CachingExpenseDao(new JdbcExpenseDao(dataSource), 100, 0);
+        dao.getExpenses();
+        dao.getExpenses();
+
+        Assert.assertEquals("expired listing was served from cache", 0, dao.getStats().getHits());
+        Assert.assertEquals("unexpected cache misses", 2, dao.getStats().getMisses());
+    }
+}
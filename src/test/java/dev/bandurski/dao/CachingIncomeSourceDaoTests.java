@@ -0,0 +1,75 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.IncomeSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class CachingIncomeSourceDaoTests extends BaseDaoTests {
+
+    private static final int OTHER_ID = 1;
+    private static final int SALARY_ID = 2;
+
+    private CachingIncomeSourceDao dao;
+
+    @Before
+    public void setup() {
+        dao = new CachingIncomeSourceDao(new JdbcIncomeSourceDao(dataSource), 100, 60_000);
+    }
+
+    @Test
+    public void getIncomeSources_second_call_is_served_from_cache() {
+        List<IncomeSource> first = dao.getIncomeSources();
+        List<IncomeSource> second = dao.getIncomeSources();
+
+        Assert.assertSame("second getIncomeSources() call did not return cached list", first, second);
+        Assert.assertEquals("unexpected cache hits", 1, dao.getStats().getHits());
+        Assert.assertEquals("unexpected cache misses", 1, dao.getStats().getMisses());
+        Assert.assertEquals("cached income source has wrong name", "Salary",
+                dao.getIncomeSourceById(SALARY_ID).getName());
+        Assert.assertEquals("row from listing was not a hit", 2, dao.getStats().getHits());
+    }
+
+    @Test
+    public void writes_are_visible_to_later_reads() {
+        dao.getIncomeSources();
+
+        IncomeSource changed = new IncomeSource();
+        changed.setIncomeSourceId(OTHER_ID);
+        changed.setName("Gifts");
+        changed.setAmount(new BigDecimal("9999.99"));
+        dao.updateIncomeSource(changed);
+        dao.deleteIncomeSourceById(SALARY_ID);
+
+        Assert.assertEquals("cached income source was not updated", "Gifts",
+                dao.getIncomeSourceById(OTHER_ID).getName());
+        Assert.assertNull("deleted income source still cached", dao.getIncomeSourceById(SALARY_ID));
+        Assert.assertEquals("cached listing was not invalidated", 1, dao.getIncomeSources().size());
+    }
+
+    @Test
+    public void load_that_overlaps_a_write_is_not_cached() {
+        CachingIncomeSourceDao[] caching = new CachingIncomeSourceDao[1];
+        JdbcIncomeSourceDao racing = new JdbcIncomeSourceDao(dataSource) {
+            private boolean raced;
+
+            @Override
+            public List<IncomeSource> getIncomeSources() {
+                List<IncomeSource> sources = super.getIncomeSources();
+                // Another caller writes while this listing is on its way back.
+                if (!raced) {
+                    raced = true;
+                    caching[0].deleteIncomeSourceById(OTHER_ID);
+                }
+                return sources;
+            }
+        };
+        caching[0] = new CachingIncomeSourceDao(racing, 100, 60_000);
+
+        Assert.assertEquals("incorrect listing loaded before the write", 2, caching[0].getIncomeSources().size());
+        Assert.assertEquals("listing loaded before the write was cached", 1, caching[0].getIncomeSources().size());
+    }
+}
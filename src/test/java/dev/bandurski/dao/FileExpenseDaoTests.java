@@ -0,0 +1,103 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.exception.MissingRowsException;
+import dev.bandurski.exception.UpdateConflictException;
+import dev.bandurski.model.Expense;
+import dev.bandurski.storage.LogStore;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+public class FileExpenseDaoTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LogStore store;
+    private FileExpenseDao dao;
+
+    @Before
+    public void setup() throws IOException {
+        store = LogStore.open(folder.getRoot().toPath().resolve("expense.log"));
+        dao = new FileExpenseDao(store);
+        dao.createExpenses(List.of(expense("Rent", "1550.52"), expense("Internet", "77.77"),
+                expense("Car Payment", "244.44"), expense("Phone", "77.77")));
+    }
+
+    @After
+    public void cleanup() {
+        store.close();
+    }
+
+    @Test
+    public void pages_follow_the_listing_order() {
+        List<Expense> expenses = dao.getExpenses();
+        List<Expense> firstPage = dao.getExpensesPage(null, 0, 3);
+        Expense last = firstPage.get(2);
+        List<Expense> secondPage = dao.getExpensesPage(last.getAmount(), last.getExpenseId(), 3);
+
+        Assert.assertEquals("incorrect listing order", "Rent", expenses.get(0).getName());
+        Assert.assertEquals("tie was not broken by descending id", "Phone", expenses.get(2).getName());
+        Assert.assertEquals("incorrect first page", expenses.subList(0, 3).toString(), firstPage.toString());
+        Assert.assertEquals("incorrect second page", expenses.subList(3, 4).toString(), secondPage.toString());
+    }
+
+    @Test
+    public void updates_report_missing_rows_like_the_database() {
+        Expense missing = expense("Missing", "1.00");
+        missing.setExpenseId(999);
+
+        try {
+            dao.updateExpense(missing);
+            Assert.fail("update of a missing expense did not fail");
+        } catch (DaoException e) {
+            Assert.assertEquals("incorrect message", "Zero rows affected, expected at least one", e.getMessage());
+        }
+
+        Expense rent = dao.getExpenses().get(0);
+        rent.setAmount(new BigDecimal("1600.00"));
+        try {
+            dao.updateExpenses(List.of(rent, missing));
+            Assert.fail("bulk update with a missing expense did not fail");
+        } catch (MissingRowsException e) {
+            Assert.assertEquals("incorrect message", "Expenses not found: [999]", e.getMessage());
+            Assert.assertArrayEquals("incorrect missing ids", new int[] {999}, e.getMissingIds());
+        }
+        Assert.assertEquals("update from failed batch was applied", new BigDecimal("1550.52"),
+                dao.getExpenseById(rent.getExpenseId()).getAmount());
+    }
+
+    @Test
+    public void updates_based_on_a_stale_version_conflict() {
+        Expense read = dao.getExpenses().get(0);
+        Expense first = expense("Mortgage", "1600.00");
+        first.setExpenseId(read.getExpenseId());
+        first.setVersion(read.getVersion());
+        Expense second = expense("Lease", "1700.00");
+        second.setExpenseId(read.getExpenseId());
+        second.setVersion(read.getVersion());
+
+        Assert.assertEquals("update did not bump the version", 2, dao.updateExpense(first).getVersion());
+        try {
+            dao.updateExpense(second);
+            Assert.fail("update based on a stale version did not fail");
+        } catch (UpdateConflictException e) {
+            Assert.assertEquals("conflict did not carry the current row", "Mortgage", e.getCurrent().getName());
+        }
+    }
+
+    private static Expense expense(String name, String amount) {
+        Expense expense = new Expense();
+        expense.setName(name);
+        expense.setAmount(new BigDecimal(amount));
+        return expense;
+    }
+}
@@ -0,0 +1,59 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.metrics.MethodStats;
+import dev.bandurski.model.Expense;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class InstrumentedExpenseDaoTests extends BaseDaoTests {
+
+    private InstrumentedExpenseDao dao;
+
+    @Before
+    public void setup() {
+        dao = new InstrumentedExpenseDao(new JdbcExpenseDao(dataSource));
+    }
+
+    @Test
+    public void calls_are_counted_per_method() {
+        dao.getExpenses();
+        dao.getExpenses();
+        dao.getExpenseById(1);
+
+        List<MethodStats> stats = dao.getMetrics().getStats();
+
+        Assert.assertEquals("uncalled methods were reported", 2, stats.size());
+        MethodStats getExpenseById = stats.get(0);
+        MethodStats getExpenses = stats.get(1);
+        Assert.assertEquals("incorrect method order", "getExpenseById", getExpenseById.getName());
+        Assert.assertEquals("incorrect getExpenses calls", 2, getExpenses.getCalls());
+        Assert.assertEquals("incorrect getExpenseById calls", 1, getExpenseById.getCalls());
+        Assert.assertTrue("latency was not recorded", getExpenses.getMaxMillis() > 0);
+        Assert.assertTrue("p50 is above max", getExpenses.getP50Millis() <= getExpenses.getMaxMillis());
+    }
+
+    @Test
+    public void failures_are_counted_by_cause_and_rethrown() {
+        Expense missing = new Expense();
+        missing.setExpenseId(999);
+        missing.setName("Missing");
+        missing.setAmount(new BigDecimal("1.00"));
+
+        try {
+            dao.updateExpense(missing);
+            Assert.fail("update of a missing expense did not fail");
+        } catch (DaoException expected) {
+            // Counted below.
+        }
+
+        MethodStats updateExpense = dao.getMetrics().getStats().get(0);
+        Assert.assertEquals("failed call was not counted", 1, updateExpense.getCalls());
+        Assert.assertEquals("error was not counted by cause", Long.valueOf(1),
+                updateExpense.getErrors().get("DaoException"));
+    }
+}
@@ -0,0 +1,94 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.BudgetSummary;
+import dev.bandurski.model.Expense;
+import dev.bandurski.model.IncomeSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JdbcBudgetSummaryDaoTests extends BaseDaoTests {
+
+    private JdbcBudgetSummaryDao dao;
+    private JdbcExpenseDao expenseDao;
+    private JdbcIncomeSourceDao incomeSourceDao;
+
+    @Before
+    public void setup() {
+        dao = new JdbcBudgetSummaryDao(dataSource);
+        expenseDao = new JdbcExpenseDao(dataSource);
+        incomeSourceDao = new JdbcIncomeSourceDao(dataSource);
+    }
+
+    @Test
+    public void getBudgetSummary_returns_totals_of_existing_rows() {
+        assertSummaryMatches("6000.66", 2, "1872.73", 3, "4127.93");
+    }
+
+    @Test
+    public void getBudgetSummary_reflects_created_rows() {
+        Expense expense = new Expense();
+        expense.setName("Balloons");
+        expense.setAmount(new BigDecimal("27.27"));
+        expenseDao.createExpense(expense);
+
+        List<IncomeSource> sources = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            IncomeSource source = new IncomeSource();
+            source.setName("Bonus " + i);
+            source.setAmount(new BigDecimal("100.00"));
+            sources.add(source);
+        }
+        incomeSourceDao.createIncomeSources(sources);
+
+        assertSummaryMatches("6200.66", 4, "1900.00", 4, "4300.66");
+    }
+
+    @Test
+    public void getBudgetSummary_reflects_updated_and_deleted_rows() {
+        Expense rent = expenseDao.getExpenseById(1);
+        rent.setAmount(new BigDecimal("1000.00"));
+        expenseDao.updateExpense(rent);
+        incomeSourceDao.deleteIncomeSourceById(1);
+
+        assertSummaryMatches("5000.21", 1, "1322.21", 3, "3678.00");
+    }
+
+    @Test
+    public void getBudgetSummary_keeps_budgets_apart() {
+        JdbcBudgetSummaryDao otherDao = new JdbcBudgetSummaryDao(dataSource, 2);
+        assertSummaryMatches(otherDao, "0.00", 0, "0.00", 0, "0.00");
+
+        Expense expense = new Expense();
+        expense.setName("Rent");
+        expense.setAmount(new BigDecimal("27.27"));
+        new JdbcExpenseDao(dataSource, 2).createExpense(expense);
+
+        assertSummaryMatches(otherDao, "0.00", 0, "27.27", 1, "-27.27");
+        assertSummaryMatches("6000.66", 2, "1872.73", 3, "4127.93");
+    }
+
+    private void assertSummaryMatches(String incomeTotal, int incomeCount, String expenseTotal,
+                                      int expenseCount, String netIncome) {
+        assertSummaryMatches(dao, incomeTotal, incomeCount, expenseTotal, expenseCount, netIncome);
+    }
+
+    private void assertSummaryMatches(JdbcBudgetSummaryDao dao, String incomeTotal, int incomeCount,
+                                      String expenseTotal, int expenseCount, String netIncome) {
+        BudgetSummary summary = dao.getBudgetSummary();
+        Assert.assertEquals("summary did not match on: income_total",
+                new BigDecimal(incomeTotal), summary.getIncomeTotal());
+        Assert.assertEquals("summary did not match on: income_count",
+                incomeCount, summary.getIncomeCount());
+        Assert.assertEquals("summary did not match on: expense_total",
+                new BigDecimal(expenseTotal), summary.getExpenseTotal());
+        Assert.assertEquals("summary did not match on: expense_count",
+                expenseCount, summary.getExpenseCount());
+        Assert.assertEquals("summary did not match on: net_income",
+                new BigDecimal(netIncome), summary.getNetIncome());
+    }
+}
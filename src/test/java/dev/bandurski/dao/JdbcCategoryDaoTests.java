@@ -0,0 +1,126 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.model.Category;
+import dev.bandurski.model.CategoryTotal;
+import dev.bandurski.model.CategoryTree;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class JdbcCategoryDaoTests extends BaseDaoTests {
+
+    private JdbcCategoryDao dao;
+
+    @Before
+    public void setup() {
+        dao = new JdbcCategoryDao(dataSource);
+    }
+
+    @Test
+    public void getCategories_lists_parents_before_children() {
+        List<Category> categories = dao.getCategories();
+
+        Assert.assertEquals("incorrect number of categories", 5, categories.size());
+        Assert.assertEquals("incorrect first category", "Employment", categories.get(0).getName());
+        Assert.assertEquals("children did not follow their parent", "Housing", categories.get(1).getName());
+        Assert.assertEquals("incorrect first child", "Rent", categories.get(2).getName());
+        Assert.assertEquals("incorrect parent id", (Integer) categories.get(1).getCategoryId(),
+                categories.get(2).getParentId());
+    }
+
+    @Test
+    public void getCategoryTotals_rolls_children_into_parents() {
+        List<CategoryTotal> totals = dao.getCategoryTotals();
+
+        Assert.assertEquals("incorrect number of rows", 6, totals.size());
+        CategoryTotal housing = findTotal(totals, "Housing");
+        Assert.assertEquals("parent should have no items of its own", 0, housing.getItemCount());
+        Assert.assertEquals("incorrect subtree expenses", new BigDecimal("1628.29"), housing.getSubtreeExpenseTotal());
+        CategoryTotal uncategorized = totals.get(totals.size() - 1);
+        Assert.assertNull("uncategorized row should come last", uncategorized.getCategoryId());
+        Assert.assertEquals("incorrect uncategorized income", new BigDecimal("1000.45"), uncategorized.getIncomeTotal());
+    }
+
+    @Test
+    public void category_tree_matches_query_and_reaggregates() {
+        Category utilities = findCategory("Utilities");
+        Category power = new Category();
+        power.setParentId(utilities.getCategoryId());
+        power.setName("Power");
+        power = dao.createCategory(power);
+        int expenseId = new JdbcExpenseDao(dataSource).getExpenses().get(0).getExpenseId();
+        Assert.assertEquals("expense was not assigned", 1, dao.setExpenseCategory(expenseId, power.getCategoryId()));
+
+        List<CategoryTotal> totals = dao.getCategoryTotals();
+        CategoryTree tree = CategoryTree.of(totals);
+
+        for (CategoryTotal total : totals) {
+            if (total.getCategoryId() == null) {
+                continue;
+            }
+            int index = tree.indexOf(total.getCategoryId());
+            Assert.assertEquals("incorrect depth for " + total.getName(), total.getDepth(), tree.getDepth(index));
+            Assert.assertEquals("incorrect subtree expenses for " + total.getName(),
+                    total.getSubtreeExpenseTotal().movePointRight(2).longValueExact(),
+                    tree.getSubtreeExpenseCents(index));
+        }
+
+        tree.add(power.getCategoryId(), 0, 1000);
+        int housing = tree.indexOf(findCategory("Housing").getCategoryId());
+        Assert.assertEquals("change did not reach the top-level category", 162_829 + 1000,
+                tree.getSubtreeExpenseCents(housing));
+    }
+
+    @Test
+    public void other_budget_only_files_and_totals_its_own_items() {
+        JdbcCategoryDao otherDao = new JdbcCategoryDao(dataSource, 2);
+        int rentId = new JdbcExpenseDao(dataSource).getExpenses().get(0).getExpenseId();
+        Category housing = new Category();
+        housing.setName("Housing");
+        housing = otherDao.createCategory(housing);
+
+        Assert.assertEquals("another budget's categories were listed", 1, otherDao.getCategories().size());
+        Assert.assertEquals("category was added to the default budget", 5, dao.getCategories().size());
+        Assert.assertEquals("another budget's expense was filed", 0,
+                otherDao.setExpenseCategory(rentId, housing.getCategoryId()));
+        Assert.assertEquals("another budget's income source was filed", 0,
+                otherDao.setIncomeSourceCategory(1, housing.getCategoryId()));
+
+        List<CategoryTotal> totals = otherDao.getCategoryTotals();
+        Assert.assertEquals("another budget's categories were totalled", 1, totals.size());
+        Assert.assertEquals("another budget's expenses were totalled", BigDecimal.ZERO.compareTo(
+                totals.get(0).getSubtreeExpenseTotal()), 0);
+    }
+
+    @Test(expected = DaoException.class)
+    public void items_cannot_be_filed_under_another_budgets_category() {
+        Category housing = new Category();
+        housing.setName("Housing");
+        housing = new JdbcCategoryDao(dataSource, 2).createCategory(housing);
+        int rentId = new JdbcExpenseDao(dataSource).getExpenses().get(0).getExpenseId();
+
+        dao.setExpenseCategory(rentId, housing.getCategoryId());
+    }
+
+    private CategoryTotal findTotal(List<CategoryTotal> totals, String name) {
+        for (CategoryTotal total : totals) {
+            if (name.equals(total.getName())) {
+                return total;
+            }
+        }
+        return null;
+    }
+
+    private Category findCategory(String name) {
+        for (Category category : dao.getCategories()) {
+            if (category.getName().equals(name)) {
+                return category;
+            }
+        }
+        return null;
+    }
+}
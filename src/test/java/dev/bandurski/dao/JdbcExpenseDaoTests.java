@@ -1,5 +1,8 @@
 package dev.bandurski.dao;
 
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.exception.MissingRowsException;
+import dev.bandurski.exception.UpdateConflictException;
 import dev.bandurski.model.Expense;
 import dev.bandurski.model.IncomeSource;
 import org.junit.Assert;
@@ -8,6 +11,7 @@ import org.junit.Test;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class JdbcExpenseDaoTests extends BaseDaoTests {
@@ -47,6 +51,36 @@ public class JdbcExpenseDaoTests extends BaseDaoTests {
         }
     }
 
+    @Test
+    public void forEachExpense_visits_expenses_in_correct_order() {
+        dao.setFetchSize(1);
+        List<Expense> expenses = new ArrayList<>();
+        dao.forEachExpense(expenses::add);
+
+        Assert.assertEquals("forEachExpense() visited incorrect number of expenses",
+                ALL_EXPENSES.size(), expenses.size());
+        for (int i = 0; i < ALL_EXPENSES.size(); i++) {
+            assertExpensesMatch("expense at position " + i + " (zero indexed) " +
+                    "did not match on column: ", ALL_EXPENSES.get(i), expenses.get(i));
+        }
+    }
+
+    @Test
+    public void getExpensesPage_returns_consecutive_pages() {
+        List<Expense> firstPage = dao.getExpensesPage(null, 0, 2);
+        Assert.assertEquals("first page had incorrect number of expenses", 2, firstPage.size());
+        assertExpensesMatch("first page position 0 did not match on column: ",
+                ALL_EXPENSES.get(0), firstPage.get(0));
+        assertExpensesMatch("first page position 1 did not match on column: ",
+                ALL_EXPENSES.get(1), firstPage.get(1));
+
+        Expense last = firstPage.get(1);
+        List<Expense> secondPage = dao.getExpensesPage(last.getAmount(), last.getExpenseId(), 2);
+        Assert.assertEquals("second page had incorrect number of expenses", 1, secondPage.size());
+        assertExpensesMatch("second page position 0 did not match on column: ",
+                ALL_EXPENSES.get(2), secondPage.get(0));
+    }
+
     @Test
     public void getExpenseById_returns_correct_expense() {
         Expense expense = dao.getExpenseById(EXPENSE_3.getExpenseId());
@@ -79,13 +113,63 @@ public class JdbcExpenseDaoTests extends BaseDaoTests {
         Expense expenseToUpdate = mapValuesToExpense(EXPENSE_2.getExpenseId(),
                 "Monkeys", new BigDecimal("9999.99"));
 
-        dao.updateExpense(expenseToUpdate);
-        Expense retrievedExpense = dao.getExpenseById(EXPENSE_2.getExpenseId());
+        Expense updatedExpense = dao.updateExpense(expenseToUpdate);
+        assertExpensesMatch("returned expense did not match on column: ",
+                expenseToUpdate, updatedExpense);
 
+        Expense retrievedExpense = dao.getExpenseById(EXPENSE_2.getExpenseId());
         assertExpensesMatch("updated expense did not match on column: ",
                 expenseToUpdate, retrievedExpense);
     }
 
+    @Test(expected = DaoException.class)
+    public void updateExpense_with_unknown_id_throws() {
+        dao.updateExpense(mapValuesToExpense(999, "Nothing", new BigDecimal("1.00")));
+    }
+
+    @Test
+    public void updateExpense_with_stale_version_throws_conflict() {
+        Expense read = dao.getExpenseById(EXPENSE_2.getExpenseId());
+        Expense first = mapValuesToExpense(read.getExpenseId(), "Fiber", new BigDecimal("65.00"));
+        first.setVersion(read.getVersion());
+        Expense second = mapValuesToExpense(read.getExpenseId(), "Cable", new BigDecimal("99.00"));
+        second.setVersion(read.getVersion());
+
+        Assert.assertEquals("update did not bump the version", read.getVersion() + 1,
+                dao.updateExpense(first).getVersion());
+        try {
+            dao.updateExpense(second);
+            Assert.fail("update based on a stale version did not fail");
+        } catch (UpdateConflictException e) {
+            Assert.assertEquals("conflict did not carry the current row", "Fiber", e.getCurrent().getName());
+        }
+        Assert.assertEquals("stale update was applied", "Fiber", dao.getExpenseById(read.getExpenseId()).getName());
+    }
+
+    @Test
+    public void updateExpenses_with_stale_version_updates_nothing() {
+        Expense read = dao.getExpenseById(EXPENSE_2.getExpenseId());
+        Expense changed = mapValuesToExpense(read.getExpenseId(), "Fiber", new BigDecimal("65.00"));
+        changed.setVersion(read.getVersion());
+        dao.updateExpense(changed);
+
+        List<Expense> expensesToUpdate = new ArrayList<>();
+        expensesToUpdate.add(mapValuesToExpense(EXPENSE_1.getExpenseId(),
+                "Mortgage", new BigDecimal("1999.99")));
+        expensesToUpdate.add(mapValuesToExpense(read.getExpenseId(), "Cable", new BigDecimal("99.00")));
+        expensesToUpdate.get(1).setVersion(read.getVersion());
+
+        try {
+            dao.updateExpenses(expensesToUpdate);
+            Assert.fail("updateExpenses() did not fail for a stale version");
+        } catch (UpdateConflictException e) {
+            Assert.assertEquals("conflict was reported for the wrong row", read.getExpenseId(),
+                    ((Expense) e.getCurrent()).getExpenseId());
+            assertExpensesMatch("expense changed by failed update on column: ",
+                    EXPENSE_1, dao.getExpenseById(EXPENSE_1.getExpenseId()));
+        }
+    }
+
     @Test
     public void deleteExpenseById_expense_can_no_longer_be_retrieved() {
         dao.deleteExpenseById(EXPENSE_1.getExpenseId());
@@ -94,6 +178,128 @@ public class JdbcExpenseDaoTests extends BaseDaoTests {
         Assert.assertNull("deleted expense can still be retrieved", retrievedSource);
     }
 
+    @Test
+    public void createExpenses_inserts_all_expenses_in_order() {
+        List<Expense> newExpenses = new ArrayList<>();
+        newExpenses.add(mapValuesToExpense(0, "Balloons", new BigDecimal("45.99")));
+        newExpenses.add(mapValuesToExpense(0, "Streamers", new BigDecimal("12.50")));
+
+        List<Expense> createdExpenses = dao.createExpenses(newExpenses);
+        Assert.assertEquals("createExpenses() returned incorrect number of expenses",
+                newExpenses.size(), createdExpenses.size());
+
+        for (int i = 0; i < newExpenses.size(); i++) {
+            Expense created = createdExpenses.get(i);
+            Assert.assertNotEquals("expenseId not set when created, remained 0",
+                    0, created.getExpenseId());
+            newExpenses.get(i).setExpenseId(created.getExpenseId());
+            assertExpensesMatch("created expense did not match on column: ",
+                    newExpenses.get(i), dao.getExpenseById(created.getExpenseId()));
+        }
+    }
+
+    @Test
+    public void updateExpenses_updates_all_expenses() {
+        List<Expense> expensesToUpdate = new ArrayList<>();
+        expensesToUpdate.add(mapValuesToExpense(EXPENSE_1.getExpenseId(),
+                "Mortgage", new BigDecimal("1999.99")));
+        expensesToUpdate.add(mapValuesToExpense(EXPENSE_2.getExpenseId(),
+                "Fiber", new BigDecimal("65.00")));
+
+        List<Expense> updatedExpenses = dao.updateExpenses(expensesToUpdate);
+        Assert.assertEquals("updateExpenses() returned incorrect number of expenses",
+                expensesToUpdate.size(), updatedExpenses.size());
+
+        for (Expense expected : expensesToUpdate) {
+            assertExpensesMatch("updated expense did not match on column: ",
+                    expected, dao.getExpenseById(expected.getExpenseId()));
+        }
+    }
+
+    @Test
+    public void updateExpenses_with_unknown_id_updates_nothing() {
+        List<Expense> expensesToUpdate = new ArrayList<>();
+        expensesToUpdate.add(mapValuesToExpense(EXPENSE_1.getExpenseId(),
+                "Mortgage", new BigDecimal("1999.99")));
+        expensesToUpdate.add(mapValuesToExpense(999, "Nothing", new BigDecimal("1.00")));
+
+        try {
+            dao.updateExpenses(expensesToUpdate);
+            Assert.fail("updateExpenses() did not fail for an unknown id");
+        } catch (MissingRowsException e) {
+            Assert.assertArrayEquals("incorrect missing ids", new int[] {999}, e.getMissingIds());
+            assertExpensesMatch("expense changed by failed update on column: ",
+                    EXPENSE_1, dao.getExpenseById(EXPENSE_1.getExpenseId()));
+        }
+    }
+
+    @Test
+    public void updateExpenses_with_duplicate_id_updates_nothing() {
+        List<Expense> expensesToUpdate = new ArrayList<>();
+        expensesToUpdate.add(mapValuesToExpense(EXPENSE_1.getExpenseId(),
+                "Mortgage", new BigDecimal("1999.99")));
+        expensesToUpdate.add(mapValuesToExpense(EXPENSE_1.getExpenseId(),
+                "Lease", new BigDecimal("1200.00")));
+
+        try {
+            dao.updateExpenses(expensesToUpdate);
+            Assert.fail("updateExpenses() did not fail for a duplicate id");
+        } catch (DaoException e) {
+            Assert.assertEquals("incorrect message", "Expense 1 appears more than once in one update",
+                    e.getMessage());
+        }
+        assertExpensesMatch("expense changed by failed update on column: ",
+                EXPENSE_1, dao.getExpenseById(EXPENSE_1.getExpenseId()));
+    }
+
+    @Test
+    public void deleteExpensesByIds_expenses_can_no_longer_be_retrieved() {
+        int[] deletedIds = dao.deleteExpensesByIds(
+                new int[] {EXPENSE_1.getExpenseId(), 999, EXPENSE_3.getExpenseId()});
+
+        Arrays.sort(deletedIds);
+        Assert.assertArrayEquals("deleteExpensesByIds() returned incorrect ids",
+                new int[] {EXPENSE_1.getExpenseId(), EXPENSE_3.getExpenseId()}, deletedIds);
+        Assert.assertNull("deleted expense can still be retrieved",
+                dao.getExpenseById(EXPENSE_1.getExpenseId()));
+        Assert.assertNull("deleted expense can still be retrieved",
+                dao.getExpenseById(EXPENSE_3.getExpenseId()));
+        Assert.assertNotNull("expense not in id list was deleted",
+                dao.getExpenseById(EXPENSE_2.getExpenseId()));
+    }
+
+    @Test
+    public void other_budget_only_sees_and_deletes_its_own_expenses() {
+        JdbcExpenseDao otherDao = new JdbcExpenseDao(dataSource, 2);
+        Expense rent = mapValuesToExpense(0, EXPENSE_1.getName(), new BigDecimal("900.00"));
+
+        Expense created = otherDao.createExpense(rent);
+
+        List<Expense> expenses = otherDao.getExpenses();
+        Assert.assertEquals("other budget returned incorrect number of expenses", 1, expenses.size());
+        assertExpensesMatch("other budget's expense did not match on column: ", created, expenses.get(0));
+        Assert.assertNull("other budget can read an expense by id",
+                otherDao.getExpenseById(EXPENSE_1.getExpenseId()));
+        Assert.assertEquals("other budget deleted an expense by id",
+                0, otherDao.deleteExpensesByIds(new int[] {EXPENSE_1.getExpenseId(), EXPENSE_2.getExpenseId()}).length);
+        Assert.assertEquals("default budget's expenses changed",
+                ALL_EXPENSES.size(), dao.getExpenses().size());
+    }
+
+    @Test
+    public void other_budget_cannot_update_expenses() {
+        JdbcExpenseDao otherDao = new JdbcExpenseDao(dataSource, 2);
+        Expense rent = mapValuesToExpense(EXPENSE_1.getExpenseId(), "Stolen rent", new BigDecimal("1.00"));
+
+        try {
+            otherDao.updateExpenses(List.of(rent));
+            Assert.fail("updateExpenses() updated another budget's expense");
+        } catch (DaoException e) {
+            assertExpensesMatch("expense changed by another budget on column: ",
+                    EXPENSE_1, dao.getExpenseById(EXPENSE_1.getExpenseId()));
+        }
+    }
+
     private static Expense mapValuesToExpense(int expenseId, String name,
                                                    BigDecimal amount) {
         Expense expense = new Expense();
@@ -1,5 +1,8 @@
 package dev.bandurski.dao;
 
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.exception.MissingRowsException;
+import dev.bandurski.exception.UpdateConflictException;
 import dev.bandurski.model.IncomeSource;
 import org.junit.Assert;
 import org.junit.Before;
@@ -7,6 +10,7 @@ import org.junit.Test;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class JdbcIncomeSourceDaoTests extends BaseDaoTests {
@@ -43,6 +47,35 @@ public class JdbcIncomeSourceDaoTests extends BaseDaoTests {
         }
     }
 
+    @Test
+    public void forEachIncomeSource_visits_sources_in_correct_order() {
+        dao.setFetchSize(1);
+        List<IncomeSource> sources = new ArrayList<>();
+        dao.forEachIncomeSource(sources::add);
+
+        Assert.assertEquals("forEachIncomeSource() visited incorrect number of sources",
+                ALL_SOURCES.size(), sources.size());
+        for (int i = 0; i < ALL_SOURCES.size(); i++) {
+            assertIncomeSourcesMatch("source at position " + i + " (zero indexed) " +
+                    "did not match on column: ", ALL_SOURCES.get(i), sources.get(i));
+        }
+    }
+
+    @Test
+    public void getIncomeSourcesPage_returns_consecutive_pages() {
+        List<IncomeSource> firstPage = dao.getIncomeSourcesPage(null, 0, 1);
+        Assert.assertEquals("first page had incorrect number of sources", 1, firstPage.size());
+        assertIncomeSourcesMatch("first page position 0 did not match on column: ",
+                ALL_SOURCES.get(0), firstPage.get(0));
+
+        IncomeSource last = firstPage.get(0);
+        List<IncomeSource> secondPage = dao.getIncomeSourcesPage(last.getAmount(),
+                last.getIncomeSourceId(), 5);
+        Assert.assertEquals("second page had incorrect number of sources", 1, secondPage.size());
+        assertIncomeSourcesMatch("second page position 0 did not match on column: ",
+                ALL_SOURCES.get(1), secondPage.get(0));
+    }
+
     @Test
     public void getIncomeSourceById_returns_correct_source() {
         IncomeSource source = dao.getIncomeSourceById(SOURCE_2.getIncomeSourceId());
@@ -75,13 +108,20 @@ public class JdbcIncomeSourceDaoTests extends BaseDaoTests {
         IncomeSource incomeSourceToUpdate = mapValuesToIncomeSource(SOURCE_1.getIncomeSourceId(),
                 "Some Source", new BigDecimal("9999.99"));
 
-        dao.updateIncomeSource(incomeSourceToUpdate);
-        IncomeSource retrievedIncomeSource = dao.getIncomeSourceById(SOURCE_1.getIncomeSourceId());
+        IncomeSource updatedIncomeSource = dao.updateIncomeSource(incomeSourceToUpdate);
+        assertIncomeSourcesMatch("returned incomeSource did not match on column: ",
+                incomeSourceToUpdate, updatedIncomeSource);
 
+        IncomeSource retrievedIncomeSource = dao.getIncomeSourceById(SOURCE_1.getIncomeSourceId());
         assertIncomeSourcesMatch("updated incomeSource did not match on column: ",
                 incomeSourceToUpdate, retrievedIncomeSource);
     }
 
+    @Test(expected = DaoException.class)
+    public void updateIncomeSource_with_unknown_id_throws() {
+        dao.updateIncomeSource(mapValuesToIncomeSource(999, "Nothing", new BigDecimal("1.00")));
+    }
+
     @Test
     public void deleteIncomeSourceById_source_can_no_longer_be_retrieved() {
         dao.deleteIncomeSourceById(SOURCE_2.getIncomeSourceId());
@@ -90,6 +130,140 @@ public class JdbcIncomeSourceDaoTests extends BaseDaoTests {
         Assert.assertNull("deleted incomeSource can still be retrieved", retrievedSource);
     }
 
+    @Test
+    public void createIncomeSources_inserts_all_sources_in_order() {
+        List<IncomeSource> newSources = new ArrayList<>();
+        newSources.add(mapValuesToIncomeSource(0, "Dividends", new BigDecimal("120.00")));
+        newSources.add(mapValuesToIncomeSource(0, "Tutoring", new BigDecimal("300.25")));
+
+        List<IncomeSource> createdSources = dao.createIncomeSources(newSources);
+        Assert.assertEquals("createIncomeSources() returned incorrect number of sources",
+                newSources.size(), createdSources.size());
+
+        for (int i = 0; i < newSources.size(); i++) {
+            IncomeSource created = createdSources.get(i);
+            Assert.assertNotEquals("incomeSourceId not set when created, remained 0",
+                    0, created.getIncomeSourceId());
+            newSources.get(i).setIncomeSourceId(created.getIncomeSourceId());
+            assertIncomeSourcesMatch("created incomeSource did not match on column: ",
+                    newSources.get(i), dao.getIncomeSourceById(created.getIncomeSourceId()));
+        }
+    }
+
+    @Test
+    public void updateIncomeSources_updates_all_sources() {
+        List<IncomeSource> sourcesToUpdate = new ArrayList<>();
+        sourcesToUpdate.add(mapValuesToIncomeSource(SOURCE_1.getIncomeSourceId(),
+                "Side Gig", new BigDecimal("750.00")));
+        sourcesToUpdate.add(mapValuesToIncomeSource(SOURCE_2.getIncomeSourceId(),
+                "Wages", new BigDecimal("5100.00")));
+
+        List<IncomeSource> updatedSources = dao.updateIncomeSources(sourcesToUpdate);
+        Assert.assertEquals("updateIncomeSources() returned incorrect number of sources",
+                sourcesToUpdate.size(), updatedSources.size());
+
+        for (IncomeSource expected : sourcesToUpdate) {
+            assertIncomeSourcesMatch("updated incomeSource did not match on column: ",
+                    expected, dao.getIncomeSourceById(expected.getIncomeSourceId()));
+        }
+    }
+
+    @Test
+    public void updateIncomeSources_with_unknown_id_updates_nothing() {
+        List<IncomeSource> sourcesToUpdate = new ArrayList<>();
+        sourcesToUpdate.add(mapValuesToIncomeSource(SOURCE_1.getIncomeSourceId(),
+                "Side Gig", new BigDecimal("750.00")));
+        sourcesToUpdate.add(mapValuesToIncomeSource(999, "Nothing", new BigDecimal("1.00")));
+
+        try {
+            dao.updateIncomeSources(sourcesToUpdate);
+            Assert.fail("updateIncomeSources() did not fail for an unknown id");
+        } catch (MissingRowsException e) {
+            Assert.assertArrayEquals("incorrect missing ids", new int[] {999}, e.getMissingIds());
+            assertIncomeSourcesMatch("income source changed by failed update on column: ",
+                    SOURCE_1, dao.getIncomeSourceById(SOURCE_1.getIncomeSourceId()));
+        }
+    }
+
+    @Test
+    public void updateIncomeSources_with_duplicate_id_updates_nothing() {
+        List<IncomeSource> sourcesToUpdate = new ArrayList<>();
+        sourcesToUpdate.add(mapValuesToIncomeSource(SOURCE_2.getIncomeSourceId(),
+                "Wages", new BigDecimal("5100.00")));
+        sourcesToUpdate.add(mapValuesToIncomeSource(SOURCE_1.getIncomeSourceId(),
+                "Side Gig", new BigDecimal("750.00")));
+        sourcesToUpdate.add(mapValuesToIncomeSource(SOURCE_1.getIncomeSourceId(),
+                "Tips", new BigDecimal("75.00")));
+
+        try {
+            dao.updateIncomeSources(sourcesToUpdate);
+            Assert.fail("updateIncomeSources() did not fail for a duplicate id");
+        } catch (DaoException e) {
+            Assert.assertEquals("incorrect message", "Income source 1 appears more than once in one update",
+                    e.getMessage());
+        }
+        assertIncomeSourcesMatch("income source changed by failed update on column: ",
+                SOURCE_1, dao.getIncomeSourceById(SOURCE_1.getIncomeSourceId()));
+        assertIncomeSourcesMatch("income source changed by failed update on column: ",
+                SOURCE_2, dao.getIncomeSourceById(SOURCE_2.getIncomeSourceId()));
+    }
+
+    @Test
+    public void deleteIncomeSourcesByIds_sources_can_no_longer_be_retrieved() {
+        int[] deletedIds = dao.deleteIncomeSourcesByIds(
+                new int[] {SOURCE_1.getIncomeSourceId(), 999, SOURCE_2.getIncomeSourceId()});
+
+        Arrays.sort(deletedIds);
+        Assert.assertArrayEquals("deleteIncomeSourcesByIds() returned incorrect ids",
+                new int[] {SOURCE_1.getIncomeSourceId(), SOURCE_2.getIncomeSourceId()}, deletedIds);
+        Assert.assertTrue("deleted incomeSources can still be retrieved",
+                dao.getIncomeSources().isEmpty());
+    }
+
+    @Test
+    public void updateIncomeSource_with_stale_version_throws_conflict() {
+        IncomeSource read = dao.getIncomeSourceById(SOURCE_1.getIncomeSourceId());
+        IncomeSource first = mapValuesToIncomeSource(read.getIncomeSourceId(), "Gifts", new BigDecimal("50.00"));
+        first.setVersion(read.getVersion());
+        IncomeSource second = mapValuesToIncomeSource(read.getIncomeSourceId(), "Tips", new BigDecimal("75.00"));
+        second.setVersion(read.getVersion());
+
+        Assert.assertEquals("update did not bump the version", read.getVersion() + 1,
+                dao.updateIncomeSource(first).getVersion());
+        try {
+            dao.updateIncomeSource(second);
+            Assert.fail("update based on a stale version did not fail");
+        } catch (UpdateConflictException e) {
+            Assert.assertEquals("conflict did not carry the current row", "Gifts", e.getCurrent().getName());
+        }
+        Assert.assertEquals("stale update was applied", "Gifts",
+                dao.getIncomeSourceById(read.getIncomeSourceId()).getName());
+    }
+
+    @Test
+    public void updateIncomeSources_with_stale_version_updates_nothing() {
+        IncomeSource read = dao.getIncomeSourceById(SOURCE_1.getIncomeSourceId());
+        IncomeSource changed = mapValuesToIncomeSource(read.getIncomeSourceId(), "Gifts", new BigDecimal("50.00"));
+        changed.setVersion(read.getVersion());
+        dao.updateIncomeSource(changed);
+
+        List<IncomeSource> sourcesToUpdate = new ArrayList<>();
+        sourcesToUpdate.add(mapValuesToIncomeSource(SOURCE_2.getIncomeSourceId(),
+                "Wages", new BigDecimal("6000.00")));
+        sourcesToUpdate.add(mapValuesToIncomeSource(read.getIncomeSourceId(), "Tips", new BigDecimal("75.00")));
+        sourcesToUpdate.get(1).setVersion(read.getVersion());
+
+        try {
+            dao.updateIncomeSources(sourcesToUpdate);
+            Assert.fail("updateIncomeSources() did not fail for a stale version");
+        } catch (UpdateConflictException e) {
+            Assert.assertEquals("conflict was reported for the wrong row", read.getIncomeSourceId(),
+                    ((IncomeSource) e.getCurrent()).getIncomeSourceId());
+            assertIncomeSourcesMatch("income source changed by failed update on column: ",
+                    SOURCE_2, dao.getIncomeSourceById(SOURCE_2.getIncomeSourceId()));
+        }
+    }
+
     private static IncomeSource mapValuesToIncomeSource(int incomeSourceId, String name,
                                                         BigDecimal amount) {
         IncomeSource incomeSource = new IncomeSource();
@@ -0,0 +1,104 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.LedgerEntry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JdbcLedgerEntryDaoTests extends BaseDaoTests {
+
+    private JdbcLedgerEntryDao dao;
+
+    @Before
+    public void setup() {
+        dao = new JdbcLedgerEntryDao(dataSource);
+    }
+
+    @Test
+    public void getLedgerEntriesPage_returns_entries_in_range_oldest_first() {
+        List<LedgerEntry> entries = dao.getLedgerEntriesPage(LocalDate.of(2023, 1, 3), LocalDate.of(2023, 2, 3),
+                null, 0, 10);
+
+        Assert.assertEquals("incorrect number of entries", 3, entries.size());
+        Assert.assertEquals("incorrect first entry date", LocalDate.of(2023, 1, 3), entries.get(0).getEntryDate());
+        Assert.assertEquals("incorrect first entry type", LedgerEntry.Type.EXPENSE, entries.get(0).getType());
+        Assert.assertEquals("incorrect last entry date", LocalDate.of(2023, 2, 3), entries.get(2).getEntryDate());
+    }
+
+    @Test
+    public void getLedgerEntriesPage_continues_after_the_last_entry_of_the_previous_page() {
+        LocalDate from = LocalDate.of(2023, 1, 3);
+        LocalDate to = LocalDate.of(2023, 2, 3);
+        List<LedgerEntry> all = new ArrayList<>();
+        dao.forEachLedgerEntry(from, to, all::add);
+
+        List<LedgerEntry> first = dao.getLedgerEntriesPage(from, to, null, 0, 2);
+        LedgerEntry last = first.get(first.size() - 1);
+        List<LedgerEntry> second = dao.getLedgerEntriesPage(from, to, last.getEntryDate(), last.getLedgerEntryId(), 2);
+
+        Assert.assertEquals("incorrect first page size", 2, first.size());
+        Assert.assertEquals("incorrect second page size", 1, second.size());
+        Assert.assertEquals("pages do not match the streamed entries", all.get(2).getLedgerEntryId(),
+                second.get(0).getLedgerEntryId());
+    }
+
+    @Test
+    public void createLedgerEntry_in_new_month_creates_its_partition() {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setEntryDate(LocalDate.of(2031, 7, 4));
+        entry.setType(LedgerEntry.Type.EXPENSE);
+        entry.setName("Fireworks");
+        entry.setAmount(new BigDecimal("99.95"));
+
+        LedgerEntry created = dao.createLedgerEntry(entry);
+
+        Assert.assertTrue("id was not assigned", created.getLedgerEntryId() > 0);
+        Assert.assertEquals("incorrect amount", new BigDecimal("99.95"), created.getAmount());
+        Assert.assertEquals("entry not found in its month", 1,
+                dao.getLedgerEntriesPage(LocalDate.of(2031, 7, 1), LocalDate.of(2031, 7, 31), null, 0, 10).size());
+        Assert.assertEquals("delete did not find the entry", 1,
+                dao.deleteLedgerEntry(created.getEntryDate(), created.getLedgerEntryId()));
+    }
+
+    @Test
+    public void other_budget_only_sees_and_deletes_its_own_entries() {
+        JdbcLedgerEntryDao otherDao = new JdbcLedgerEntryDao(dataSource, 2);
+        LocalDate from = LocalDate.of(2023, 2, 1);
+        LocalDate to = LocalDate.of(2023, 2, 28);
+        LedgerEntry rent = dao.getLedgerEntriesPage(from, to, null, 0, 10).get(1);
+        LedgerEntry entry = new LedgerEntry();
+        entry.setEntryDate(LocalDate.of(2023, 2, 10));
+        entry.setType(LedgerEntry.Type.EXPENSE);
+        entry.setName("Rent");
+        entry.setAmount(new BigDecimal("900.00"));
+
+        LedgerEntry created = otherDao.createLedgerEntry(entry);
+
+        List<LedgerEntry> otherEntries = otherDao.getLedgerEntriesPage(from, to, null, 0, 10);
+        Assert.assertEquals("another budget's entries were listed", 1, otherEntries.size());
+        Assert.assertEquals("incorrect entry listed", created.getLedgerEntryId(),
+                otherEntries.get(0).getLedgerEntryId());
+        Assert.assertEquals("entry was added to the default budget", 3,
+                dao.getLedgerEntriesPage(from, to, null, 0, 10).size());
+        Assert.assertEquals("another budget's entry was deleted", 0,
+                otherDao.deleteLedgerEntry(rent.getEntryDate(), rent.getLedgerEntryId()));
+    }
+
+    @Test
+    public void date_range_only_scans_overlapping_partitions() {
+        // Bound like getLedgerEntriesPage binds them, rather than as literals the planner can fold.
+        List<String> plan = new JdbcTemplate(dataSource).queryForList(
+                "EXPLAIN SELECT * FROM ledger_entry WHERE budget_id = ? AND entry_date >= ? AND entry_date <= ?",
+                String.class, BudgetSummaryDao.DEFAULT_BUDGET_ID, LocalDate.of(2023, 2, 1), LocalDate.of(2023, 2, 28));
+
+        String joined = String.join("\n", plan);
+        Assert.assertTrue("February partition was not scanned:\n" + joined, joined.contains("ledger_entry_2023_02"));
+        Assert.assertFalse("January partition was not pruned:\n" + joined, joined.contains("ledger_entry_2023_01"));
+    }
+}
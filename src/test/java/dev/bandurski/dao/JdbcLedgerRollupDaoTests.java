@@ -0,0 +1,181 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.model.BudgetVariance;
+import dev.bandurski.model.LedgerEntry;
+import dev.bandurski.model.Money;
+import dev.bandurski.model.MonthlySummary;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+public class JdbcLedgerRollupDaoTests extends BaseDaoTests {
+
+    private static final YearMonth FEBRUARY = YearMonth.of(2023, 2);
+
+    private JdbcLedgerRollupDao dao;
+    private JdbcLedgerEntryDao ledgerEntryDao;
+
+    @Before
+    public void setup() {
+        dao = new JdbcLedgerRollupDao(dataSource);
+        ledgerEntryDao = new JdbcLedgerEntryDao(dataSource);
+    }
+
+    @Test
+    public void getMonthlySummaries_matches_totals_from_ledger() {
+        assertSummariesMatchLedger();
+    }
+
+    @Test
+    public void getMonthlySummaries_totals_each_month() {
+        List<MonthlySummary> summaries = dao.getMonthlySummaries(YearMonth.of(2022, 12), FEBRUARY);
+
+        Assert.assertEquals("incorrect number of months", 2, summaries.size());
+        MonthlySummary february = summaries.get(1);
+        Assert.assertEquals("incorrect month", FEBRUARY, february.getMonth());
+        Assert.assertEquals("incorrect income", new BigDecimal("5000.21"), february.getIncomeTotal());
+        Assert.assertEquals("incorrect expenses", new BigDecimal("1628.29"), february.getExpenseTotal());
+        Assert.assertEquals("incorrect entry count", 3, february.getEntryCount());
+        Assert.assertEquals("incorrect net income", new BigDecimal("3371.92"), february.getNetIncome());
+    }
+
+    @Test
+    public void rollups_follow_inserts_updates_and_deletes() {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setEntryDate(LocalDate.of(2023, 2, 20));
+        entry.setType(LedgerEntry.Type.EXPENSE);
+        entry.setName("Internet");
+        entry.setAmount(new BigDecimal("10.00"));
+        LedgerEntry created = ledgerEntryDao.createLedgerEntry(entry);
+        assertSummariesMatchLedger();
+        Assert.assertEquals("insert was not added to name totals", new BigDecimal("87.77"),
+                findVariance("Internet").getActual());
+
+        new JdbcTemplate(dataSource).update(
+                "UPDATE ledger_entry SET entry_date = DATE '2023-01-20', amount = 12.00 WHERE ledger_entry_id = ?",
+                created.getLedgerEntryId());
+        assertSummariesMatchLedger();
+        Assert.assertEquals("update did not move the entry out of February", new BigDecimal("77.77"),
+                findVariance("Internet").getActual());
+
+        ledgerEntryDao.deleteLedgerEntry(LocalDate.of(2023, 2, 15), findEntryId("Internet", FEBRUARY));
+        assertSummariesMatchLedger();
+        BudgetVariance internet = findVariance("Internet");
+        Assert.assertEquals("delete did not clear the name total", BigDecimal.ZERO.compareTo(internet.getActual()), 0);
+        Assert.assertEquals("incorrect entry count after delete", 0, internet.getEntryCount());
+    }
+
+    @Test
+    public void getBudgetVariances_compares_budget_lines_with_ledger() {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setEntryDate(LocalDate.of(2023, 2, 28));
+        entry.setType(LedgerEntry.Type.EXPENSE);
+        entry.setName("Vet");
+        entry.setAmount(new BigDecimal("120.00"));
+        ledgerEntryDao.createLedgerEntry(entry);
+
+        List<BudgetVariance> variances = dao.getBudgetVariances(FEBRUARY);
+
+        Assert.assertEquals("incorrect number of lines", 6, variances.size());
+        Assert.assertEquals("income was not listed first", LedgerEntry.Type.INCOME, variances.get(0).getType());
+        BudgetVariance carPayment = findVariance("Car Payment");
+        Assert.assertEquals("incorrect variance for unpaid expense", new BigDecimal("-244.44"),
+                carPayment.getVariance());
+        BudgetVariance vet = findVariance("Vet");
+        Assert.assertEquals("unbudgeted expense should have no budget", BigDecimal.ZERO.compareTo(vet.getBudgeted()), 0);
+        Assert.assertEquals("incorrect variance for unbudgeted expense", new BigDecimal("120.00"), vet.getVariance());
+    }
+
+    @Test
+    public void refreshRollups_repairs_drifted_totals() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("UPDATE ledger_month_totals SET expense_total = 0");
+        jdbcTemplate.update("DELETE FROM ledger_name_totals");
+
+        dao.refreshRollups(YearMonth.of(2023, 1), FEBRUARY);
+
+        assertSummariesMatchLedger();
+        Assert.assertEquals("name totals were not rebuilt", new BigDecimal("1550.52"),
+                findVariance("Rent").getActual());
+    }
+
+    @Test
+    public void other_budget_has_its_own_rollups() {
+        JdbcLedgerRollupDao otherDao = new JdbcLedgerRollupDao(dataSource, 2);
+        LedgerEntry entry = new LedgerEntry();
+        entry.setEntryDate(LocalDate.of(2023, 2, 10));
+        entry.setType(LedgerEntry.Type.EXPENSE);
+        entry.setName("Rent");
+        entry.setAmount(new BigDecimal("900.00"));
+        new JdbcLedgerEntryDao(dataSource, 2).createLedgerEntry(entry);
+
+        List<MonthlySummary> otherSummaries = otherDao.getMonthlySummaries(YearMonth.of(2023, 1), FEBRUARY);
+        Assert.assertEquals("another budget's months were summarized", 1, otherSummaries.size());
+        Assert.assertEquals("incorrect expenses", new BigDecimal("900.00"), otherSummaries.get(0).getExpenseTotal());
+        List<BudgetVariance> otherVariances = otherDao.getBudgetVariances(FEBRUARY);
+        Assert.assertEquals("another budget's lines were compared", 1, otherVariances.size());
+        Assert.assertEquals("unbudgeted expense should have no budget",
+                BigDecimal.ZERO.compareTo(otherVariances.get(0).getBudgeted()), 0);
+
+        otherDao.refreshRollups(YearMonth.of(2023, 1), FEBRUARY);
+        assertSummariesMatchLedger();
+        Assert.assertEquals("default budget's name totals changed", new BigDecimal("1550.52"),
+                findVariance("Rent").getActual());
+    }
+
+    private void assertSummariesMatchLedger() {
+        YearMonth from = YearMonth.of(2022, 1);
+        YearMonth to = YearMonth.of(2024, 12);
+
+        // Income cents, expense cents and entry count for each month, added up from the entries.
+        Map<YearMonth, long[]> expected = new TreeMap<>();
+        ledgerEntryDao.forEachLedgerEntry(from.atDay(1), to.atEndOfMonth(), entry -> {
+            long[] totals = expected.computeIfAbsent(YearMonth.from(entry.getEntryDate()), month -> new long[3]);
+            totals[entry.getType() == LedgerEntry.Type.INCOME ? 0 : 1] += entry.getAmountCents();
+            totals[2]++;
+        });
+        List<MonthlySummary> actual = dao.getMonthlySummaries(from, to);
+
+        Assert.assertEquals("incorrect months", List.copyOf(expected.keySet()),
+                actual.stream().map(MonthlySummary::getMonth).collect(Collectors.toList()));
+        for (MonthlySummary summary : actual) {
+            long[] totals = expected.get(summary.getMonth());
+            Assert.assertEquals("incorrect income for " + summary.getMonth(),
+                    totals[0], Money.toCents(summary.getIncomeTotal()));
+            Assert.assertEquals("incorrect expenses for " + summary.getMonth(),
+                    totals[1], Money.toCents(summary.getExpenseTotal()));
+            Assert.assertEquals("incorrect entry count for " + summary.getMonth(),
+                    totals[2], summary.getEntryCount());
+        }
+    }
+
+    private BudgetVariance findVariance(String name) {
+        for (BudgetVariance variance : dao.getBudgetVariances(FEBRUARY)) {
+            if (variance.getName().equals(name)) {
+                return variance;
+            }
+        }
+        return null;
+    }
+
+    private long findEntryId(String name, YearMonth month) {
+        List<LedgerEntry> entries = new ArrayList<>();
+        ledgerEntryDao.forEachLedgerEntry(month.atDay(1), month.atEndOfMonth(), entries::add);
+        for (LedgerEntry entry : entries) {
+            if (entry.getName().equals(name)) {
+                return entry.getLedgerEntryId();
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,42 @@
+package dev.bandurski.dao;
+
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * Runs each transaction inside a savepoint of the test's transaction, which is rolled back
+ * after every test.
+ */
+class SavepointTransactions implements TransactionOperations {
+
+    private final DataSource dataSource;
+
+    SavepointTransactions(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+        try {
+            Connection connection = dataSource.getConnection();
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                T result = action.doInTransaction(new SimpleTransactionStatus());
+                connection.releaseSavepoint(savepoint);
+                return result;
+            } catch (RuntimeException e) {
+                connection.rollback(savepoint);
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
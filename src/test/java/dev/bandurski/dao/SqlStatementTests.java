@@ -0,0 +1,63 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.metrics.StatementStats;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.util.HashSet;
+import java.util.Set;
+
+public class SqlStatementTests extends BaseDaoTests {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    public void repeated_calls_reuse_the_server_prepared_statement() {
+        JdbcExpenseDao dao = new JdbcExpenseDao(dataSource);
+        SqlStatements.EXPENSE_SELECT_BY_ID.reset();
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertNotNull("expense not found", dao.getExpenseById(1));
+        }
+
+        StatementStats stats = SqlStatements.EXPENSE_SELECT_BY_ID.getStats();
+        Assert.assertEquals("incorrect number of executions", 3, stats.getExecutions());
+        Assert.assertTrue("statement was parsed more than once: " + stats.getParses(), stats.getParses() <= 1);
+        Assert.assertEquals("statement is not prepared on the server", 1, (int) jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_prepared_statements " +
+                        "WHERE statement = 'SELECT expense_id, name, amount, version FROM expense " +
+                        "WHERE budget_id = $1 AND expense_id = $2'",
+                Integer.class));
+    }
+
+    @Test
+    public void zero_threshold_parses_every_execution() {
+        SqlStatement statement = new SqlStatement("test.count", "SELECT count(*) FROM expense WHERE amount > ?", 0);
+
+        for (int i = 0; i < 3; i++) {
+            statement.query(jdbcTemplate, ResultSet::next, 1);
+        }
+
+        StatementStats stats = statement.getStats();
+        Assert.assertEquals("incorrect number of executions", 3, stats.getExecutions());
+        Assert.assertEquals("incorrect number of parses", 3, stats.getParses());
+        Assert.assertEquals("unnamed statement was reused", 0, stats.getReuses());
+    }
+
+    @Test
+    public void every_statement_is_registered_once() {
+        Set<String> names = new HashSet<>();
+        for (SqlStatement statement : SqlStatements.all()) {
+            Assert.assertTrue("duplicate statement " + statement.getName(), names.add(statement.getName()));
+        }
+        Assert.assertEquals("incorrect number of statements", 22, names.size());
+    }
+}
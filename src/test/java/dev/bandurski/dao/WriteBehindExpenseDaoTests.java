@@ -0,0 +1,200 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.exception.UpdateConflictException;
+import dev.bandurski.model.Expense;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class WriteBehindExpenseDaoTests extends BaseDaoTests {
+
+    private static final int RENT_ID = 1;
+    private static final int INTERNET_ID = 2;
+
+    private JdbcExpenseDao stored;
+    private WriteBehindExpenseDao dao;
+    private int rollbacks;
+
+    @Before
+    public void setup() {
+        stored = new JdbcExpenseDao(dataSource);
+        dao = new WriteBehindExpenseDao(stored, new SavepointTransactions(dataSource), () -> rollbacks++, 100);
+    }
+
+    @Test
+    public void reads_see_pending_writes_before_they_are_saved() {
+        Expense balloons = dao.createExpense(expense(0, "Balloons", "77.77"));
+        dao.updateExpense(expense(RENT_ID, "Rent", "50.00"));
+        dao.deleteExpenseById(INTERNET_ID);
+
+        List<Expense> expenses = dao.getExpenses();
+        Assert.assertTrue("new expense did not get a temporary id", balloons.getExpenseId() < 0);
+        Assert.assertEquals("incorrect number of pending writes", 3, dao.getPendingCount());
+        Assert.assertEquals("incorrect merged listing",
+                List.of("Car Payment", "Balloons", "Rent"), names(expenses));
+        Assert.assertEquals("deleted expense is still visible", null, dao.getExpenseById(INTERNET_ID));
+        Assert.assertEquals("writes reached the database before a flush", 3, stored.getExpenses().size());
+
+        List<Expense> firstPage = dao.getExpensesPage(null, 0, 2);
+        Expense last = firstPage.get(1);
+        List<Expense> secondPage = dao.getExpensesPage(last.getAmount(), last.getExpenseId(), 2);
+        Assert.assertEquals("incorrect first page", names(expenses.subList(0, 2)), names(firstPage));
+        Assert.assertEquals("incorrect second page", names(expenses.subList(2, 3)), names(secondPage));
+    }
+
+    @Test
+    public void flush_saves_one_write_per_row_and_resolves_temporary_ids() {
+        Expense balloons = dao.createExpense(expense(0, "Balloons", "1.00"));
+        dao.updateExpense(expense(balloons.getExpenseId(), "Balloons", "2.00"));
+        dao.updateExpense(expense(balloons.getExpenseId(), "Streamers", "3.00"));
+        dao.updateExpense(expense(RENT_ID, "Rent", "1600.00"));
+        dao.updateExpense(expense(RENT_ID, "Rent", "1700.00"));
+        Assert.assertEquals("repeated writes were not merged", 2, dao.getPendingCount());
+
+        dao.flush();
+
+        Assert.assertEquals("pending writes were not cleared", 0, dao.getPendingCount());
+        Assert.assertEquals("incorrect stored listing", List.of("Rent", "Car Payment", "Internet", "Streamers"),
+                names(stored.getExpenses()));
+        Expense streamers = dao.getExpenseById(balloons.getExpenseId());
+        Assert.assertTrue("temporary id did not resolve to the stored row", streamers.getExpenseId() > 0);
+        Assert.assertEquals("incorrect stored amount", new BigDecimal("3.00"), streamers.getAmount());
+
+        dao.deleteExpenseById(balloons.getExpenseId());
+        dao.flush();
+        Assert.assertNull("delete by temporary id was not saved", stored.getExpenseById(streamers.getExpenseId()));
+    }
+
+    @Test
+    public void flush_saves_what_it_can_and_reports_the_rest() {
+        dao.createExpense(expense(0, "Rent", "1.00"));
+        dao.createExpense(expense(0, "Balloons", "45.99"));
+
+        try {
+            dao.flush();
+            Assert.fail("duplicate name was not reported");
+        } catch (DaoException e) {
+            Assert.assertTrue("incorrect message: " + e.getMessage(),
+                    e.getMessage().startsWith("Could not save 1 of 2 pending changes"));
+        }
+
+        Assert.assertEquals("good write was not saved", List.of("Rent", "Car Payment", "Internet", "Balloons"),
+                names(stored.getExpenses()));
+        Assert.assertEquals("rollbacks were not reported", 2, rollbacks);
+    }
+
+    @Test
+    public void updates_of_missing_rows_fail_straight_away() {
+        try {
+            dao.updateExpense(expense(999, "Missing", "1.00"));
+            Assert.fail("update of a missing expense did not fail");
+        } catch (DaoException e) {
+            Assert.assertEquals("incorrect message", "Zero rows affected, expected at least one", e.getMessage());
+        }
+        Assert.assertEquals("failed update was buffered", 0, dao.getPendingCount());
+    }
+
+    @Test
+    public void pages_continue_after_a_cursor_on_a_new_row() {
+        // Ties with Car Payment on amount, and sorts before it as the newer row.
+        Expense balloons = dao.createExpense(expense(0, "Balloons", "244.44"));
+
+        List<Expense> firstPage = dao.getExpensesPage(null, 0, 2);
+        List<Expense> secondPage = dao.getExpensesPage(balloons.getAmount(), balloons.getExpenseId(), 2);
+
+        Assert.assertEquals("incorrect first page", List.of("Rent", "Balloons"), names(firstPage));
+        Assert.assertEquals("incorrect page after a new row", List.of("Car Payment", "Internet"), names(secondPage));
+    }
+
+    @Test
+    public void updating_then_deleting_a_new_row_leaves_nothing_to_save() {
+        Expense balloons = dao.createExpense(expense(0, "Balloons", "1.00"));
+        dao.updateExpense(expense(balloons.getExpenseId(), "Streamers", "2.00"));
+
+        Assert.assertEquals("incorrect row count", 1, dao.deleteExpenseById(balloons.getExpenseId()));
+        Assert.assertEquals("deleted new row is still pending", 0, dao.getPendingCount());
+        Assert.assertNull("deleted new row is still visible", dao.getExpenseById(balloons.getExpenseId()));
+
+        dao.flush();
+        Assert.assertEquals("deleted new row was saved", List.of("Rent", "Car Payment", "Internet"),
+                names(stored.getExpenses()));
+    }
+
+    @Test
+    public void merged_updates_are_saved_as_one_compare_and_set() {
+        Expense rent = dao.getExpenseById(RENT_ID);
+        Expense first = dao.updateExpense(expense(RENT_ID, "Rent", "1600.00", rent.getVersion()));
+        Expense second = dao.updateExpense(expense(RENT_ID, "Rent", "1700.00", first.getVersion()));
+
+        Assert.assertEquals("pending update did not show the next version", rent.getVersion() + 1, first.getVersion());
+        Assert.assertEquals("merged update moved the version again", first.getVersion(), second.getVersion());
+
+        dao.flush();
+        Expense saved = stored.getExpenseById(RENT_ID);
+        Assert.assertEquals("merged updates were not saved once", rent.getVersion() + 1, saved.getVersion());
+        Assert.assertEquals("incorrect saved amount", new BigDecimal("1700.00"), saved.getAmount());
+    }
+
+    @Test
+    public void background_failures_are_reported_by_the_next_flush_not_the_next_write() {
+        dao.createExpense(expense(0, "Rent", "1.00"));
+        dao.flushInBackground();
+
+        Expense balloons = dao.createExpense(expense(0, "Balloons", "45.99"));
+        Assert.assertTrue("later write was rejected", balloons.getExpenseId() < 0);
+
+        try {
+            dao.flush();
+            Assert.fail("background failure was not reported");
+        } catch (DaoException e) {
+            Assert.assertTrue("incorrect message: " + e.getMessage(),
+                    e.getMessage().startsWith("Could not save 1 of 1 pending changes"));
+        }
+        Assert.assertEquals("later write was not saved", List.of("Rent", "Car Payment", "Internet", "Balloons"),
+                names(stored.getExpenses()));
+
+        dao.flush();
+    }
+
+    @Test
+    public void flush_reports_a_change_by_another_client_as_a_conflict() {
+        Expense rent = dao.getExpenseById(RENT_ID);
+        dao.updateExpense(expense(RENT_ID, "Rent", "1600.00", rent.getVersion()));
+        // Another client saves its own change before the buffered one is flushed.
+        stored.updateExpense(expense(RENT_ID, "Rent", "1800.00", rent.getVersion()));
+
+        try {
+            dao.flush();
+            Assert.fail("conflicting update was saved");
+        } catch (UpdateConflictException e) {
+            Assert.assertTrue("incorrect message: " + e.getMessage(),
+                    e.getMessage().startsWith("Could not save 1 of 1 pending changes"));
+            Assert.assertEquals("conflict did not carry the current row", new BigDecimal("1800.00"),
+                    e.getCurrent().getAmount());
+        }
+        Assert.assertEquals("conflicting update was applied", new BigDecimal("1800.00"),
+                stored.getExpenseById(RENT_ID).getAmount());
+    }
+
+    private static Expense expense(int id, String name, String amount) {
+        return expense(id, name, amount, 0);
+    }
+
+    private static Expense expense(int id, String name, String amount, int version) {
+        Expense expense = new Expense();
+        expense.setExpenseId(id);
+        expense.setName(name);
+        expense.setAmount(new BigDecimal(amount));
+        expense.setVersion(version);
+        return expense;
+    }
+
+    private static List<String> names(List<Expense> expenses) {
+        return expenses.stream().map(Expense::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,75 @@
+package dev.bandurski.dao;
+
+import dev.bandurski.exception.DaoException;
+import dev.bandurski.model.IncomeSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class WriteBehindIncomeSourceDaoTests extends BaseDaoTests {
+
+    private static final int OTHER_ID = 1;
+    private static final int SALARY_ID = 2;
+
+    private JdbcIncomeSourceDao stored;
+    private WriteBehindIncomeSourceDao dao;
+
+    @Before
+    public void setup() {
+        stored = new JdbcIncomeSourceDao(dataSource);
+        dao = new WriteBehindIncomeSourceDao(stored, new SavepointTransactions(dataSource), () -> { }, 100);
+    }
+
+    @Test
+    public void flush_saves_what_reads_showed_while_pending() {
+        IncomeSource bonus = dao.createIncomeSource(incomeSource(0, "Bonus", "2000.00"));
+        dao.updateIncomeSource(incomeSource(SALARY_ID, "Salary", "5500.00"));
+        dao.deleteIncomeSourceById(OTHER_ID);
+
+        List<String> pending = names(dao.getIncomeSources());
+        Assert.assertEquals("incorrect merged listing", List.of("Salary", "Bonus"), pending);
+        Assert.assertEquals("incorrect page after a new row", List.of(),
+                names(dao.getIncomeSourcesPage(bonus.getAmount(), bonus.getIncomeSourceId(), 2)));
+        Assert.assertEquals("writes reached the database before a flush", 2, stored.getIncomeSources().size());
+
+        dao.flush();
+
+        Assert.assertEquals("pending writes were not cleared", 0, dao.getPendingCount());
+        Assert.assertEquals("incorrect stored listing", pending, names(stored.getIncomeSources()));
+        Assert.assertEquals("temporary id did not resolve to the stored row", "Bonus",
+                dao.getIncomeSourceById(bonus.getIncomeSourceId()).getName());
+    }
+
+    @Test
+    public void background_failures_are_reported_by_the_next_flush() {
+        dao.createIncomeSource(incomeSource(0, "Salary", "1.00"));
+        dao.flushInBackground();
+        dao.createIncomeSource(incomeSource(0, "Bonus", "2000.00"));
+
+        try {
+            dao.flush();
+            Assert.fail("background failure was not reported");
+        } catch (DaoException e) {
+            Assert.assertTrue("incorrect message: " + e.getMessage(),
+                    e.getMessage().startsWith("Could not save 1 of 1 pending changes"));
+        }
+        Assert.assertEquals("later write was not saved", List.of("Salary", "Bonus", "Other"),
+                names(stored.getIncomeSources()));
+    }
+
+    private static IncomeSource incomeSource(int id, String name, String amount) {
+        IncomeSource incomeSource = new IncomeSource();
+        incomeSource.setIncomeSourceId(id);
+        incomeSource.setName(name);
+        incomeSource.setAmount(new BigDecimal(amount));
+        return incomeSource;
+    }
+
+    private static List<String> names(List<IncomeSource> incomeSources) {
+        return incomeSources.stream().map(IncomeSource::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,43 @@
+package dev.bandurski.datasource;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ShardRouterTests {
+
+    @Test
+    public void getDatabaseName_places_budgets_round_robin() {
+        ShardRouter router = new ShardRouter(List.of("budgets_a", "budgets_b", "budgets_c"), name -> null);
+
+        Assert.assertEquals("incorrect database for budget 1", "budgets_a", router.getDatabaseName(1));
+        Assert.assertEquals("incorrect database for budget 2", "budgets_b", router.getDatabaseName(2));
+        Assert.assertEquals("incorrect database for budget 3", "budgets_c", router.getDatabaseName(3));
+        Assert.assertEquals("incorrect database for budget 4", "budgets_a", router.getDatabaseName(4));
+    }
+
+    @Test
+    public void getDataSource_connects_once_per_database() {
+        List<String> connected = new ArrayList<>();
+        ShardRouter router = new ShardRouter(List.of("budgets_a", "budgets_b"), name -> {
+            connected.add(name);
+            return new SingleConnectionDataSource("jdbc:postgresql://localhost:5432/" + name, false);
+        });
+
+        DataSource first = router.getDataSource(1);
+        router.getDataSource(2);
+
+        Assert.assertSame("budgets on the same database did not share a data source",
+                first, router.getDataSource(3));
+        Assert.assertEquals("incorrect databases connected", List.of("budgets_a", "budgets_b"), connected);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getDatabaseName_rejects_invalid_budget_id() {
+        new ShardRouter(List.of("budgets_a"), name -> null).getDatabaseName(0);
+    }
+}
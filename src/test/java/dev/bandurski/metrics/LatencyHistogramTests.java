@@ -0,0 +1,44 @@
+package dev.bandurski.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTests {
+
+    @Test
+    public void percentiles_are_within_bucket_precision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        Assert.assertEquals("incorrect count", 1000, histogram.getCount());
+        Assert.assertEquals("incorrect max", 1_000_000, histogram.getMaxNanos());
+        assertWithin("incorrect p50", 500_000, histogram.getPercentileNanos(50));
+        assertWithin("incorrect p99", 990_000, histogram.getPercentileNanos(99));
+        Assert.assertEquals("p100 is not the max", 1_000_000, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    public void buckets_cover_their_values() {
+        long[] values = {0, 1, 15, 16, 17, 31, 32, 33, 1000, 123_456_789, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            Assert.assertTrue("bucket upper bound below " + value,
+                    LatencyHistogram.upperBoundOf(bucket) >= value);
+            if (bucket > 0) {
+                Assert.assertTrue("previous bucket also covers " + value,
+                        LatencyHistogram.upperBoundOf(bucket - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    public void empty_histogram_reports_zero() {
+        Assert.assertEquals("empty p99 is not zero", 0, new LatencyHistogram().getPercentileNanos(99));
+    }
+
+    private static void assertWithin(String message, long expected, long actual) {
+        Assert.assertTrue(message + ": " + actual, Math.abs(actual - expected) <= expected / 16);
+    }
+}
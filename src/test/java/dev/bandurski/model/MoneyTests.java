@@ -0,0 +1,72 @@
+package dev.bandurski.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class MoneyTests {
+
+    @Test
+    public void toCents_converts_whole_cents_exactly() {
+        Assert.assertEquals("incorrect cents", 1234, Money.toCents(new BigDecimal("12.34")));
+        Assert.assertEquals("incorrect cents for trailing zeros", 1234, Money.toCents(new BigDecimal("12.3400")));
+        Assert.assertEquals("incorrect cents for a whole amount", 1200, Money.toCents(new BigDecimal("12")));
+        Assert.assertEquals("incorrect cents for a negative amount", -1234, Money.toCents(new BigDecimal("-12.34")));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void toCents_rejects_fractions_of_a_cent() {
+        Money.toCents(new BigDecimal("12.345"));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void toCents_rejects_amounts_past_a_long() {
+        Money.toCents(new BigDecimal(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void toBigDecimal_keeps_two_decimal_places() {
+        Assert.assertEquals("incorrect amount", new BigDecimal("12.30"), Money.toBigDecimal(1230));
+        Assert.assertEquals("incorrect round trip", new BigDecimal("-0.05"),
+                Money.toBigDecimal(Money.toCents(new BigDecimal("-0.05"))));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void add_throws_on_overflow() {
+        Money.add(Long.MAX_VALUE, 1);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void subtract_throws_on_overflow() {
+        Money.subtract(Long.MIN_VALUE, 1);
+    }
+
+    @Test
+    public void sum_adds_every_amount() {
+        List<Expense> expenses = List.of(expense("1550.52"), expense("77.77"), expense("-0.29"));
+
+        Assert.assertEquals("incorrect sum", 162800, Money.sum(expenses));
+        Assert.assertEquals("incorrect sum of nothing", 0, Money.sum(List.of()));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void sum_throws_on_overflow() {
+        Expense large = new Expense();
+        large.setAmountCents(Long.MAX_VALUE);
+
+        Money.sum(List.of(large, expense("0.01")));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void setAmount_rejects_null() {
+        new Expense().setAmount(null);
+    }
+
+    private static Expense expense(String amount) {
+        Expense expense = new Expense();
+        expense.setAmount(new BigDecimal(amount));
+        return expense;
+    }
+}
@@ -0,0 +1,156 @@
+package dev.bandurski.service;
+
+import dev.bandurski.dao.BaseDaoTests;
+import dev.bandurski.dao.JdbcExpenseDao;
+import dev.bandurski.dao.JdbcIncomeSourceDao;
+import dev.bandurski.exception.ImportException;
+import dev.bandurski.model.Expense;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CsvImporterTests extends BaseDaoTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CsvImporter importer;
+    private JdbcExpenseDao expenseDao;
+
+    @Before
+    public void setup() {
+        importer = new CsvImporter(dataSource);
+        expenseDao = new JdbcExpenseDao(dataSource);
+    }
+
+    @Test
+    public void importExpenses_inserts_new_rows_and_skips_existing_names() throws IOException {
+        Path file = writeCsv("name,amount", "Balloons,45.99", "Rent,1.00", "\"Cake, chocolate\",12.5");
+
+        ImportResult result = importer.importExpenses(file, CsvImporter.DuplicatePolicy.SKIP, lines -> {});
+
+        Assert.assertEquals("incorrect rows read", 3, result.getRowsRead());
+        Assert.assertEquals("incorrect rows inserted", 2, result.getRowsInserted());
+        Assert.assertEquals("incorrect rows updated", 0, result.getRowsUpdated());
+        Assert.assertEquals("incorrect rows skipped", 1, result.getRowsSkipped());
+        Assert.assertEquals("existing expense was changed", new BigDecimal("1550.52"),
+                findExpense("Rent").getAmount());
+        Assert.assertEquals("quoted name was not imported", new BigDecimal("12.50"),
+                findExpense("Cake, chocolate").getAmount());
+    }
+
+    @Test
+    public void importExpenses_updates_existing_names_and_last_duplicate_wins() throws IOException {
+        Path file = writeCsv("name,amount", "Rent,1.00", "Rent,2.00");
+
+        ImportResult result = importer.importExpenses(file, CsvImporter.DuplicatePolicy.UPDATE, lines -> {});
+
+        Assert.assertEquals("incorrect rows updated", 1, result.getRowsUpdated());
+        Assert.assertEquals("incorrect rows skipped", 1, result.getRowsSkipped());
+        Assert.assertEquals("existing expense was not updated", new BigDecimal("2.00"),
+                findExpense("Rent").getAmount());
+    }
+
+    @Test
+    public void importExpenses_into_another_budget_only_matches_its_own_names() throws IOException {
+        Path file = writeCsv("name,amount", "Rent,1.00");
+        CsvImporter otherImporter = new CsvImporter(dataSource, 2);
+
+        ImportResult result = otherImporter.importExpenses(file, CsvImporter.DuplicatePolicy.UPDATE, lines -> {});
+
+        List<Expense> otherExpenses = new JdbcExpenseDao(dataSource, 2).getExpenses();
+        Assert.assertEquals("incorrect rows inserted", 1, result.getRowsInserted());
+        Assert.assertEquals("row was not imported into the other budget", 1, otherExpenses.size());
+        Assert.assertEquals("incorrect imported amount", new BigDecimal("1.00"), otherExpenses.get(0).getAmount());
+        Assert.assertEquals("default budget's expense was changed", new BigDecimal("1550.52"),
+                findExpense("Rent").getAmount());
+    }
+
+    @Test
+    public void importExpenses_with_invalid_row_imports_nothing() throws IOException {
+        Path file = writeCsv("name,amount", "Balloons,45.99", "Streamers,lots");
+
+        try {
+            importer.importExpenses(file, CsvImporter.DuplicatePolicy.SKIP, lines -> {});
+            Assert.fail("invalid amount was not rejected");
+        } catch (ImportException e) {
+            Assert.assertTrue("error did not name the line: " + e.getMessage(),
+                    e.getMessage().contains("line 3"));
+        }
+        Assert.assertNull("rows were imported from a rejected file", findExpense("Balloons"));
+    }
+
+    @Test
+    public void importExpenses_counts_lines_inside_quoted_fields() throws IOException {
+        Path file = writeCsv("name,amount", "\"Party\nsupplies\",45.99", "Streamers,lots");
+
+        try {
+            importer.importExpenses(file, CsvImporter.DuplicatePolicy.SKIP, lines -> {});
+            Assert.fail("invalid amount was not rejected");
+        } catch (ImportException e) {
+            Assert.assertTrue("error did not name the line: " + e.getMessage(),
+                    e.getMessage().contains("line 4"));
+        }
+    }
+
+    @Test
+    public void importExpenses_reports_merge_failures_as_import_errors() throws IOException {
+        new JdbcTemplate(dataSource).execute(
+                "ALTER TABLE expense ADD CONSTRAINT expense_amount_positive CHECK (amount > 0)");
+        Path file = writeCsv("name,amount", "Balloons,45.99", "Refund,-5.00");
+
+        try {
+            importer.importExpenses(file, CsvImporter.DuplicatePolicy.SKIP, lines -> {});
+            Assert.fail("merge failure was not reported");
+        } catch (ImportException e) {
+            Assert.assertTrue("incorrect message: " + e.getMessage(),
+                    e.getMessage().startsWith("Could not merge imported rows"));
+        }
+        Assert.assertNull("rows were imported from a rejected file", findExpense("Balloons"));
+    }
+
+    @Test
+    public void importIncomeSources_reports_progress() throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("name,amount");
+        for (int i = 0; i < 25_000; i++) {
+            lines.add("Source " + i + "," + i + ".00");
+        }
+        Path file = writeCsv(lines.toArray(new String[0]));
+        List<Long> progress = new ArrayList<>();
+
+        ImportResult result = importer.importIncomeSources(file, CsvImporter.DuplicatePolicy.SKIP,
+                progress::add);
+
+        Assert.assertEquals("incorrect rows inserted", 25_000, result.getRowsInserted());
+        Assert.assertEquals("incorrect number of progress reports", 2, progress.size());
+        Assert.assertEquals("income sources were not imported", 25_002,
+                new JdbcIncomeSourceDao(dataSource).getIncomeSources().size());
+    }
+
+    private Path writeCsv(String... lines) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private Expense findExpense(String name) {
+        for (Expense expense : expenseDao.getExpenses()) {
+            if (expense.getName().equals(name)) {
+                return expense;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,69 @@
+package dev.bandurski.service;
+
+import dev.bandurski.dao.BaseDaoTests;
+import dev.bandurski.dao.JdbcExpenseDao;
+import dev.bandurski.dao.JdbcIncomeSourceDao;
+import dev.bandurski.model.Expense;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class TransactionExporterTests extends BaseDaoTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TransactionExporter exporter;
+    private JdbcExpenseDao expenseDao;
+
+    @Before
+    public void setup() {
+        expenseDao = new JdbcExpenseDao(dataSource);
+        exporter = new TransactionExporter(expenseDao, new JdbcIncomeSourceDao(dataSource));
+    }
+
+    @Test
+    public void exportExpenses_csv_can_be_imported_again() throws IOException {
+        Expense quoted = new Expense();
+        quoted.setName("Cake, \"chocolate\"");
+        quoted.setAmount(new BigDecimal("12.50"));
+        expenseDao.createExpense(quoted);
+        Path file = folder.newFile().toPath();
+
+        long rows = exporter.exportExpenses(file, TransactionExporter.Format.CSV);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Assert.assertEquals("incorrect number of rows written", 4, rows);
+        Assert.assertEquals("incorrect header", "name,amount", lines.get(0));
+        Assert.assertEquals("incorrect first row", "Rent,1550.52", lines.get(1));
+        Assert.assertTrue("quoted name was not escaped",
+                lines.contains("\"Cake, \"\"chocolate\"\"\",12.50"));
+
+        ImportResult result = new CsvImporter(dataSource)
+                .importExpenses(file, CsvImporter.DuplicatePolicy.SKIP, progress -> {});
+        Assert.assertEquals("exported rows did not match existing expenses", 4, result.getRowsSkipped());
+    }
+
+    @Test
+    public void exportIncomeSources_ndjson_writes_one_object_per_line() throws IOException {
+        Path file = folder.newFile().toPath();
+
+        long rows = exporter.exportIncomeSources(file, TransactionExporter.Format.NDJSON);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Assert.assertEquals("incorrect number of rows written", 2, rows);
+        Assert.assertEquals("incorrect first row",
+                "{\"income_source_id\":2,\"name\":\"Salary\",\"amount\":5000.21}", lines.get(0));
+        Assert.assertEquals("incorrect second row",
+                "{\"income_source_id\":1,\"name\":\"Other\",\"amount\":1000.45}", lines.get(1));
+    }
+}
@@ -0,0 +1,164 @@
+package dev.bandurski.storage;
+
+import dev.bandurski.exception.DaoException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LogStoreTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path file;
+    private LogStore store;
+
+    @Before
+    public void setup() throws IOException {
+        file = folder.getRoot().toPath().resolve("expense.log");
+        store = LogStore.open(file);
+    }
+
+    @After
+    public void cleanup() {
+        store.close();
+    }
+
+    @Test
+    public void reopen_replays_changes_and_keeps_ids_unique() throws IOException {
+        List<LogRecord> inserted = store.insert(List.of(
+                new LogRecord(0, "Rent", 155052), new LogRecord(0, "Internet", 7777),
+                new LogRecord(0, "Car Payment", 24444)));
+        store.update(List.of(new LogRecord(inserted.get(0).getId(), "Rent", 160000)));
+        store.delete(new int[]{inserted.get(2).getId()});
+
+        reopen();
+
+        Assert.assertEquals("incorrect number of records", 2, store.size());
+        Assert.assertEquals("incorrect total", 167777, store.getTotalCents());
+        Assert.assertEquals("update was not replayed", 160000, store.get(inserted.get(0).getId()).getAmountCents());
+        Assert.assertNull("delete was not replayed", store.get(inserted.get(2).getId()));
+        int newId = store.insert(List.of(new LogRecord(0, "Balloons", 4599))).get(0).getId();
+        Assert.assertTrue("deleted id was reused", newId > inserted.get(2).getId());
+    }
+
+    @Test
+    public void reopen_drops_a_torn_change_and_keeps_earlier_ones() throws IOException {
+        store.insert(List.of(new LogRecord(0, "Rent", 155052)));
+        int end = store.getWritePosition();
+        store.insert(List.of(new LogRecord(0, "Internet", 7777), new LogRecord(0, "Car Payment", 24444)));
+        int tornEnd = store.getWritePosition();
+        store.close();
+
+        // Corrupt the last record, as if the second change never fully reached the disk.
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(tornEnd - 1);
+            int lastByte = raw.read();
+            raw.seek(tornEnd - 1);
+            raw.write(lastByte ^ 0xFF);
+        }
+        store = LogStore.open(file);
+
+        Assert.assertEquals("partial change was not dropped", 1, store.size());
+        Assert.assertEquals("log does not end after the last complete change", end, store.getWritePosition());
+        Assert.assertEquals("incorrect record", "Rent", store.list().get(0).getName());
+
+        store.insert(List.of(new LogRecord(0, "Balloons", 4599)));
+        reopen();
+        Assert.assertEquals("change after recovery was lost", 2, store.size());
+    }
+
+    @Test
+    public void reopen_never_replays_the_rest_of_a_torn_change() throws IOException {
+        store.insert(List.of(new LogRecord(0, "Rent", 155052)));
+        int end = store.getWritePosition();
+        store.insert(List.of(new LogRecord(0, "Internet", 7777), new LogRecord(0, "Car Payment", 24444)));
+        store.close();
+
+        // Corrupt the first record of the change and leave the intact record after it.
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(end + 8);
+            int firstPayloadByte = raw.read();
+            raw.seek(end + 8);
+            raw.write(firstPayloadByte ^ 0xFF);
+        }
+        store = LogStore.open(file);
+        Assert.assertEquals("partial change was not dropped", 1, store.size());
+
+        // Same size as the corrupted record, so it ends exactly where the leftover record began.
+        store.insert(List.of(new LogRecord(0, "Balloons", 4599)));
+        reopen();
+
+        List<String> names = new ArrayList<>();
+        for (LogRecord record : store.list()) {
+            names.add(record.getName());
+        }
+        Assert.assertEquals("incorrect records after recovery", List.of("Rent", "Balloons"), names);
+    }
+
+    @Test
+    public void compact_keeps_live_records_and_shrinks_the_log() throws IOException {
+        List<LogRecord> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            records.add(new LogRecord(0, "Expense " + i, i));
+        }
+        records = store.insert(records);
+        for (int round = 1; round <= 50; round++) {
+            List<LogRecord> updates = new ArrayList<>();
+            for (LogRecord record : records) {
+                updates.add(new LogRecord(record.getId(), record.getName(), record.getAmountCents() + round));
+            }
+            store.update(updates);
+        }
+        List<LogRecord> before = store.list();
+        long sizeBefore = store.getWritePosition();
+
+        Assert.assertTrue("log was not worth compacting", store.compactIfWorthwhile());
+
+        Assert.assertTrue("log did not shrink", store.getWritePosition() < sizeBefore / 10);
+        Assert.assertFalse("compaction file was left behind", Files.exists(file.resolveSibling("expense.log.compact")));
+        reopen();
+        Assert.assertEquals("incorrect records after compaction", before.toString(), store.list().toString());
+        Assert.assertFalse("compacted log was worth compacting again", store.compactIfWorthwhile());
+    }
+
+    @Test
+    public void violations_write_nothing() {
+        store.insert(List.of(new LogRecord(0, "Rent", 155052), new LogRecord(0, "Internet", 7777)));
+        int end = store.getWritePosition();
+
+        assertViolation(() -> store.insert(List.of(new LogRecord(0, "Balloons", 1), new LogRecord(0, "Rent", 1))));
+        assertViolation(() -> store.insert(List.of(new LogRecord(0, null, 1))));
+        assertViolation(() -> store.insert(List.of(new LogRecord(0, "Huge", LogStore.MAX_AMOUNT_CENTS + 1))));
+        assertViolation(() -> store.update(List.of(new LogRecord(2, "Rent", 1))));
+        Assert.assertTrue("update of a missing id was applied",
+                store.update(List.of(new LogRecord(1, "Rent", 1), new LogRecord(99, "Missing", 1))).isEmpty());
+
+        Assert.assertEquals("rejected change was written", end, store.getWritePosition());
+        Assert.assertEquals("rejected change was applied", 162829, store.getTotalCents());
+    }
+
+    private void reopen() throws IOException {
+        store.close();
+        store = LogStore.open(file);
+    }
+
+    private static void assertViolation(Runnable change) {
+        try {
+            change.run();
+            Assert.fail("violation was not rejected");
+        } catch (DaoException e) {
+            Assert.assertEquals("incorrect message", "Data integrity violation", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package dev.bandurski.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class IntIndexTests {
+
+    @Test
+    public void colliding_keys_are_all_found() {
+        IntIndex<String> index = new IntIndex<>(8);
+        List<Integer> colliding = collidingKeys(index, 1, 4);
+
+        for (int key : colliding) {
+            index.put(key, "value " + key);
+        }
+
+        Assert.assertEquals("incorrect size", colliding.size(), index.size());
+        for (int key : colliding) {
+            Assert.assertEquals("incorrect value for key " + key, "value " + key, index.get(key));
+        }
+    }
+
+    @Test
+    public void missing_keys_return_null() {
+        IntIndex<String> index = new IntIndex<>(8);
+        List<Integer> colliding = collidingKeys(index, 1, 4);
+        for (int key : colliding.subList(0, 3)) {
+            index.put(key, "value " + key);
+        }
+
+        Assert.assertNull("missing key in an empty slot was found", new IntIndex<String>(8).get(1));
+        Assert.assertNull("missing key after a probe chain was found", index.get(colliding.get(3)));
+    }
+
+    @Test
+    public void zero_and_negative_keys_are_stored() {
+        IntIndex<String> index = new IntIndex<>(4);
+        Assert.assertNull("zero key was found before it was put", index.get(0));
+
+        index.put(0, "zero");
+        index.put(-1, "minus one");
+        index.put(Integer.MIN_VALUE, "min");
+        index.put(Integer.MAX_VALUE, "max");
+
+        Assert.assertEquals("incorrect value for zero", "zero", index.get(0));
+        Assert.assertEquals("incorrect value for -1", "minus one", index.get(-1));
+        Assert.assertEquals("incorrect value for MIN_VALUE", "min", index.get(Integer.MIN_VALUE));
+        Assert.assertEquals("incorrect value for MAX_VALUE", "max", index.get(Integer.MAX_VALUE));
+        Assert.assertNull("unknown negative key was found", index.get(-2));
+    }
+
+    @Test
+    public void put_replaces_the_value_for_an_existing_key() {
+        IntIndex<String> index = new IntIndex<>(2);
+        index.put(7, "first");
+        index.put(7, "second");
+
+        Assert.assertEquals("replacing a value changed the size", 1, index.size());
+        Assert.assertEquals("value was not replaced", "second", index.get(7));
+    }
+
+    @Test
+    public void fills_to_the_expected_size() {
+        for (int expectedSize = 0; expectedSize <= 100; expectedSize++) {
+            List<Integer> keys = new ArrayList<>();
+            for (int i = 0; i < expectedSize; i++) {
+                keys.add(i * 31 - 500);
+            }
+
+            IntIndex<Integer> index = IntIndex.of(keys, Integer::intValue);
+
+            Assert.assertEquals("incorrect size for expected size " + expectedSize, expectedSize, index.size());
+            for (int key : keys) {
+                Assert.assertEquals("incorrect value for key " + key, Integer.valueOf(key), index.get(key));
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void put_rejects_keys_past_half_the_table() {
+        IntIndex<String> index = new IntIndex<>(2);
+        for (int key = 1; key <= 3; key++) {
+            index.put(key, "value " + key);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void put_rejects_null_values() {
+        new IntIndex<String>(2).put(1, null);
+    }
+
+    private static List<Integer> collidingKeys(IntIndex<?> index, int firstKey, int count) {
+        List<Integer> keys = new ArrayList<>();
+        int slot = index.slotOf(firstKey);
+        for (int key = firstKey; keys.size() < count; key++) {
+            if (index.slotOf(key) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
@@ -1,21 +1,338 @@
-DROP TABLE IF EXISTS category;
+DROP TABLE IF EXISTS ledger_month_totals;
+DROP TABLE IF EXISTS ledger_name_totals;
+DROP FUNCTION IF EXISTS add_ledger_entry;
+DROP TABLE IF EXISTS ledger_entry;
+DROP TABLE IF EXISTS budget_totals;
 DROP TABLE IF EXISTS income_source;
 DROP TABLE IF EXISTS expense;
+--Referenced by income_source and expense, so it goes after them.
+DROP TABLE IF EXISTS category;
 
 BEGIN TRANSACTION;
 
+--Categories nest to any depth through parent_id; a NULL parent is a top-level category.
+--Each budget has its own tree, and a parent must belong to the same budget as its children.
+CREATE TABLE IF NOT EXISTS category (
+    --The budget (tenant) the row belongs to; budget 1 is the one seeded below.
+    budget_id int NOT NULL DEFAULT 1,
+    category_id serial,
+    parent_id int,
+    name varchar(80) NOT NULL,
+    PRIMARY KEY (budget_id, category_id),
+    FOREIGN KEY (budget_id, parent_id) REFERENCES category (budget_id, category_id)
+);
+
+--Sibling names are unique within a budget, top-level categories included.
+CREATE UNIQUE INDEX IF NOT EXISTS category_parent_name_idx
+    ON category (budget_id, coalesce(parent_id, 0), name);
+
 CREATE TABLE IF NOT EXISTS income_source (
     income_source_id serial PRIMARY KEY,
-    name varchar(80) NOT NULL UNIQUE,
-    amount decimal(10,2) NOT NULL
+    --The budget (tenant) the row belongs to; budget 1 is the one seeded below.
+    budget_id int NOT NULL DEFAULT 1,
+    name varchar(80) NOT NULL,
+    amount decimal(10,2) NOT NULL,
+    category_id int,
+    --Bumped by every update, so a client can update only the row it last read.
+    version int NOT NULL DEFAULT 1,
+    --Names only need to be unique within a budget.
+    UNIQUE (budget_id, name),
+    --Items can only be filed under their own budget's categories.
+    FOREIGN KEY (budget_id, category_id) REFERENCES category (budget_id, category_id)
 );
 
 CREATE TABLE IF NOT EXISTS expense (
     expense_id serial PRIMARY KEY,
-    name varchar(80) NOT NULL UNIQUE,
-    amount decimal(10,2) NOT NULL
+    --The budget (tenant) the row belongs to; budget 1 is the one seeded below.
+    budget_id int NOT NULL DEFAULT 1,
+    name varchar(80) NOT NULL,
+    amount decimal(10,2) NOT NULL,
+    category_id int,
+    --Bumped by every update, so a client can update only the row it last read.
+    version int NOT NULL DEFAULT 1,
+    --Names only need to be unique within a budget.
+    UNIQUE (budget_id, name),
+    --Items can only be filed under their own budget's categories.
+    FOREIGN KEY (budget_id, category_id) REFERENCES category (budget_id, category_id)
+);
+
+CREATE INDEX IF NOT EXISTS income_source_category_idx ON income_source (budget_id, category_id);
+CREATE INDEX IF NOT EXISTS expense_category_idx ON expense (budget_id, category_id);
+
+--Matches the listing order within a budget so each page is a single index seek,
+--however many other budgets share the table.
+CREATE INDEX IF NOT EXISTS income_source_budget_amount_id_idx
+    ON income_source (budget_id, amount DESC, income_source_id DESC);
+CREATE INDEX IF NOT EXISTS expense_budget_amount_id_idx
+    ON expense (budget_id, amount DESC, expense_id DESC);
+
+--budget-totals
+--There is no budget table: a budget is only the budget_id its rows carry, so neither this
+--column nor the budget_id columns above reference anything, and an id nobody has written
+--to reads as an empty budget. Budgets are placed on databases by the application.
+--One row per budget kept current by the statement triggers below so the summary never
+--scans the ledger. A budget's row is created by its first income source or expense.
+--Every write to a budget updates its one row, so writers to the same budget queue on that
+--row lock until they commit; keep those transactions short.
+CREATE TABLE IF NOT EXISTS budget_totals (
+    budget_id int PRIMARY KEY,
+    income_total decimal(20,2) NOT NULL DEFAULT 0,
+    income_count int NOT NULL DEFAULT 0,
+    expense_total decimal(20,2) NOT NULL DEFAULT 0,
+    expense_count int NOT NULL DEFAULT 0
+);
+
+CREATE OR REPLACE FUNCTION income_source_totals() RETURNS trigger AS '
+BEGIN
+    IF TG_OP = ''TRUNCATE'' THEN
+        UPDATE budget_totals SET income_total = 0, income_count = 0;
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN (''INSERT'', ''UPDATE'') THEN
+        INSERT INTO budget_totals AS totals (budget_id, income_total, income_count)
+        SELECT budget_id, sum(amount), count(*) FROM new_rows GROUP BY budget_id
+        ON CONFLICT (budget_id) DO UPDATE SET
+            income_total = totals.income_total + EXCLUDED.income_total,
+            income_count = totals.income_count + EXCLUDED.income_count;
+    END IF;
+    IF TG_OP IN (''UPDATE'', ''DELETE'') THEN
+        UPDATE budget_totals SET
+            income_total = income_total - old_totals.amount,
+            income_count = income_count - old_totals.entries
+        FROM (SELECT budget_id, sum(amount) AS amount, count(*) AS entries FROM old_rows GROUP BY budget_id)
+            AS old_totals
+        WHERE budget_totals.budget_id = old_totals.budget_id;
+    END IF;
+    RETURN NULL;
+END;
+' LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION expense_totals() RETURNS trigger AS '
+BEGIN
+    IF TG_OP = ''TRUNCATE'' THEN
+        UPDATE budget_totals SET expense_total = 0, expense_count = 0;
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN (''INSERT'', ''UPDATE'') THEN
+        INSERT INTO budget_totals AS totals (budget_id, expense_total, expense_count)
+        SELECT budget_id, sum(amount), count(*) FROM new_rows GROUP BY budget_id
+        ON CONFLICT (budget_id) DO UPDATE SET
+            expense_total = totals.expense_total + EXCLUDED.expense_total,
+            expense_count = totals.expense_count + EXCLUDED.expense_count;
+    END IF;
+    IF TG_OP IN (''UPDATE'', ''DELETE'') THEN
+        UPDATE budget_totals SET
+            expense_total = expense_total - old_totals.amount,
+            expense_count = expense_count - old_totals.entries
+        FROM (SELECT budget_id, sum(amount) AS amount, count(*) AS entries FROM old_rows GROUP BY budget_id)
+            AS old_totals
+        WHERE budget_totals.budget_id = old_totals.budget_id;
+    END IF;
+    RETURN NULL;
+END;
+' LANGUAGE plpgsql;
+
+CREATE TRIGGER income_source_totals_insert AFTER INSERT ON income_source
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION income_source_totals();
+CREATE TRIGGER income_source_totals_update AFTER UPDATE ON income_source
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION income_source_totals();
+CREATE TRIGGER income_source_totals_delete AFTER DELETE ON income_source
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION income_source_totals();
+CREATE TRIGGER income_source_totals_truncate AFTER TRUNCATE ON income_source
+    FOR EACH STATEMENT EXECUTE FUNCTION income_source_totals();
+
+CREATE TRIGGER expense_totals_insert AFTER INSERT ON expense
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION expense_totals();
+CREATE TRIGGER expense_totals_update AFTER UPDATE ON expense
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION expense_totals();
+CREATE TRIGGER expense_totals_delete AFTER DELETE ON expense
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION expense_totals();
+CREATE TRIGGER expense_totals_truncate AFTER TRUNCATE ON expense
+    FOR EACH STATEMENT EXECUTE FUNCTION expense_totals();
+
+--ledger
+--Dated history, range partitioned by month. Queries with an entry_date range only scan
+--the partitions that overlap it, so older years cost nothing until they are asked for.
+CREATE TABLE IF NOT EXISTS ledger_entry (
+    --The budget (tenant) the row belongs to; budget 1 is the one seeded below.
+    budget_id int NOT NULL DEFAULT 1,
+    ledger_entry_id bigserial,
+    entry_date date NOT NULL,
+    entry_type varchar(7) NOT NULL CHECK (entry_type IN ('income', 'expense')),
+    name varchar(80) NOT NULL,
+    amount decimal(10,2) NOT NULL,
+    --Leads with budget_id then entry_date so within a partition the key also serves a budget's
+    --range scans in listing order.
+    PRIMARY KEY (budget_id, entry_date, ledger_entry_id)
+) PARTITION BY RANGE (entry_date);
+
+CREATE OR REPLACE FUNCTION create_ledger_partition(entry_month date) RETURNS void AS '
+DECLARE
+    first_day date := date_trunc(''month'', entry_month)::date;
+    partition_name text := ''ledger_entry_'' || to_char(first_day, ''YYYY_MM'');
+BEGIN
+    IF to_regclass(partition_name) IS NULL THEN
+        --Another session can create the same month between the check and the create.
+        BEGIN
+            EXECUTE format(''CREATE TABLE IF NOT EXISTS %I PARTITION OF ledger_entry FOR VALUES FROM (%L) TO (%L)'',
+                partition_name, first_day, (first_day + interval ''1 month'')::date);
+        EXCEPTION WHEN duplicate_table OR unique_violation THEN
+            NULL;
+        END;
+    END IF;
+END;
+' LANGUAGE plpgsql;
+
+--Creates the partition for a new month on first use, so callers never see a missing partition.
+CREATE OR REPLACE FUNCTION add_ledger_entry(new_budget_id int, new_date date, new_type varchar,
+                                            new_name varchar, new_amount decimal) RETURNS SETOF ledger_entry AS '
+BEGIN
+    PERFORM create_ledger_partition(new_date);
+    RETURN QUERY INSERT INTO ledger_entry (budget_id, entry_date, entry_type, name, amount)
+        VALUES (new_budget_id, new_date, new_type, new_name, new_amount)
+        RETURNING *;
+END;
+' LANGUAGE plpgsql;
+
+--ledger-rollups
+--Per-month aggregates kept current by the statement triggers below, so trend and variance
+--screens read one row per month (or per month and name) instead of every ledger entry.
+CREATE TABLE IF NOT EXISTS ledger_month_totals (
+    budget_id int NOT NULL,
+    entry_month date NOT NULL,
+    income_total decimal(20,2) NOT NULL DEFAULT 0,
+    income_count int NOT NULL DEFAULT 0,
+    expense_total decimal(20,2) NOT NULL DEFAULT 0,
+    expense_count int NOT NULL DEFAULT 0,
+    PRIMARY KEY (budget_id, entry_month)
 );
 
+CREATE TABLE IF NOT EXISTS ledger_name_totals (
+    budget_id int NOT NULL,
+    entry_month date NOT NULL,
+    entry_type varchar(7) NOT NULL,
+    name varchar(80) NOT NULL,
+    total decimal(20,2) NOT NULL DEFAULT 0,
+    entry_count int NOT NULL DEFAULT 0,
+    PRIMARY KEY (budget_id, entry_month, entry_type, name)
+);
+
+--Adds the rows in new_rows and subtracts the rows in old_rows, whichever the operation has.
+--The transition tables only exist for the operations that define them, so the delta query is
+--chosen per operation and run once as a CTE that feeds both upserts, instead of being copied
+--into a temporary table on every statement.
+CREATE OR REPLACE FUNCTION ledger_rollups() RETURNS trigger AS '
+DECLARE
+    delta text;
+BEGIN
+    IF TG_OP = ''TRUNCATE'' THEN
+        TRUNCATE ledger_month_totals, ledger_name_totals;
+        RETURN NULL;
+    END IF;
+
+    delta := CASE TG_OP
+        WHEN ''INSERT'' THEN
+            ''SELECT budget_id, entry_date, entry_type, name, amount, 1 AS entries FROM new_rows''
+        WHEN ''DELETE'' THEN
+            ''SELECT budget_id, entry_date, entry_type, name, -amount AS amount, -1 AS entries FROM old_rows''
+        ELSE
+            ''SELECT budget_id, entry_date, entry_type, name, amount, 1 AS entries FROM new_rows
+            UNION ALL SELECT budget_id, entry_date, entry_type, name, -amount, -1 FROM old_rows''
+    END;
+
+    --$1 is the month field for date_trunc, $2 and $3 are the entry types.
+    EXECUTE ''WITH delta AS ('' || delta || ''),
+    month_totals AS (
+        INSERT INTO ledger_month_totals AS totals
+            (budget_id, entry_month, income_total, income_count, expense_total, expense_count)
+        SELECT budget_id, date_trunc($1, entry_date)::date,
+            coalesce(sum(amount) FILTER (WHERE entry_type = $2), 0),
+            coalesce(sum(entries) FILTER (WHERE entry_type = $2), 0),
+            coalesce(sum(amount) FILTER (WHERE entry_type = $3), 0),
+            coalesce(sum(entries) FILTER (WHERE entry_type = $3), 0)
+        FROM delta GROUP BY 1, 2
+        ON CONFLICT (budget_id, entry_month) DO UPDATE SET
+            income_total = totals.income_total + EXCLUDED.income_total,
+            income_count = totals.income_count + EXCLUDED.income_count,
+            expense_total = totals.expense_total + EXCLUDED.expense_total,
+            expense_count = totals.expense_count + EXCLUDED.expense_count
+    )
+    INSERT INTO ledger_name_totals AS totals (budget_id, entry_month, entry_type, name, total, entry_count)
+    SELECT budget_id, date_trunc($1, entry_date)::date, entry_type, name, sum(amount), sum(entries)
+    FROM delta GROUP BY 1, 2, 3, 4
+    ON CONFLICT (budget_id, entry_month, entry_type, name) DO UPDATE SET
+        total = totals.total + EXCLUDED.total,
+        entry_count = totals.entry_count + EXCLUDED.entry_count''
+    USING ''month'', ''income'', ''expense'';
+
+    IF TG_OP IN (''UPDATE'', ''DELETE'') THEN
+        DELETE FROM ledger_name_totals WHERE entry_count = 0
+            AND (budget_id, entry_month) IN (SELECT budget_id, date_trunc(''month'', entry_date)::date FROM old_rows);
+        DELETE FROM ledger_month_totals WHERE income_count = 0 AND expense_count = 0
+            AND (budget_id, entry_month) IN (SELECT budget_id, date_trunc(''month'', entry_date)::date FROM old_rows);
+    END IF;
+    RETURN NULL;
+END;
+' LANGUAGE plpgsql;
+
+--Rebuilds one budget's rollups for a range of months from the ledger itself, for bulk loads
+--that bypass the triggers or to check that the incremental totals have not drifted.
+CREATE OR REPLACE FUNCTION refresh_ledger_rollups(for_budget_id int, from_month date, to_month date)
+    RETURNS void AS '
+DECLARE
+    range_start date := date_trunc(''month'', from_month)::date;
+    range_end date := (date_trunc(''month'', to_month) + interval ''1 month'')::date;
+BEGIN
+    DELETE FROM ledger_month_totals
+    WHERE budget_id = for_budget_id AND entry_month >= range_start AND entry_month < range_end;
+    DELETE FROM ledger_name_totals
+    WHERE budget_id = for_budget_id AND entry_month >= range_start AND entry_month < range_end;
+
+    INSERT INTO ledger_month_totals
+        (budget_id, entry_month, income_total, income_count, expense_total, expense_count)
+    SELECT for_budget_id, date_trunc(''month'', entry_date)::date,
+        coalesce(sum(amount) FILTER (WHERE entry_type = ''income''), 0),
+        count(*) FILTER (WHERE entry_type = ''income''),
+        coalesce(sum(amount) FILTER (WHERE entry_type = ''expense''), 0),
+        count(*) FILTER (WHERE entry_type = ''expense'')
+    FROM ledger_entry
+    WHERE budget_id = for_budget_id AND entry_date >= range_start AND entry_date < range_end
+    GROUP BY 2;
+
+    INSERT INTO ledger_name_totals (budget_id, entry_month, entry_type, name, total, entry_count)
+    SELECT for_budget_id, date_trunc(''month'', entry_date)::date, entry_type, name, sum(amount), count(*)
+    FROM ledger_entry
+    WHERE budget_id = for_budget_id AND entry_date >= range_start AND entry_date < range_end
+    GROUP BY 2, 3, 4;
+END;
+' LANGUAGE plpgsql;
+
+CREATE TRIGGER ledger_rollups_insert AFTER INSERT ON ledger_entry
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION ledger_rollups();
+CREATE TRIGGER ledger_rollups_update AFTER UPDATE ON ledger_entry
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION ledger_rollups();
+CREATE TRIGGER ledger_rollups_delete AFTER DELETE ON ledger_entry
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION ledger_rollups();
+CREATE TRIGGER ledger_rollups_truncate AFTER TRUNCATE ON ledger_entry
+    FOR EACH STATEMENT EXECUTE FUNCTION ledger_rollups();
+
+--category
+INSERT INTO category (name)
+VALUES ('Housing'), ('Transportation'), ('Employment');
+
+INSERT INTO category (parent_id, name)
+SELECT category_id, child FROM category, (VALUES ('Rent'), ('Utilities')) AS children (child)
+WHERE name = 'Housing';
+
 --income-source
 INSERT INTO income_source (name, amount)
 VALUES ('Other', 1000.45);
@@ -33,4 +350,24 @@ VALUES ('Internet', 77.77);
 INSERT INTO expense (name, amount)
 VALUES ('Car Payment', 244.44);
 
+--item-category
+UPDATE income_source SET category_id = (SELECT category_id FROM category WHERE name = 'Employment')
+WHERE name LIKE 'Salary%';
+
+UPDATE expense SET category_id = (SELECT category_id FROM category WHERE name = 'Rent')
+WHERE name = 'Rent';
+
+UPDATE expense SET category_id = (SELECT category_id FROM category WHERE name = 'Utilities')
+WHERE name = 'Internet';
+
+UPDATE expense SET category_id = (SELECT category_id FROM category WHERE name = 'Transportation')
+WHERE name = 'Car Payment';
+
+--ledger-entry
+SELECT add_ledger_entry(1, '2023-01-01', 'income', 'Salary', 5000.21);
+SELECT add_ledger_entry(1, '2023-01-03', 'expense', 'Rent', 1550.52);
+SELECT add_ledger_entry(1, '2023-02-01', 'income', 'Salary', 5000.21);
+SELECT add_ledger_entry(1, '2023-02-03', 'expense', 'Rent', 1550.52);
+SELECT add_ledger_entry(1, '2023-02-15', 'expense', 'Internet', 77.77);
+
 COMMIT;
\ No newline at end of file